@@ -0,0 +1,87 @@
+package ch.uzh.ifi.hase.soprafs24.rest.mapper;
+
+import ch.uzh.ifi.hase.soprafs24.constant.FlashcardCategory;
+import ch.uzh.ifi.hase.soprafs24.constant.QuizStatus;
+import ch.uzh.ifi.hase.soprafs24.entity.*;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.FlashcardDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** DTO conversions used on the quiz endpoints. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int deckSize;
+
+    private FlashcardMapper flashcardMapper;
+    private QuizMapper      quizMapper;
+    private List<Flashcard> cards;
+    private Quiz            quiz;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        flashcardMapper = new FlashcardMapper();
+        // the repositories and the selector are only used by the invitation factory, not by the DTO conversion
+        quizMapper = new QuizMapper(null, null, null, new ScoreMapper(), null);
+
+        Deck deck = new Deck();
+        deck.setId(1L);
+        deck.setDeckCategory(FlashcardCategory.MOMENTS);
+        cards = new ArrayList<>(deckSize);
+        for (int i = 0; i < deckSize; i++) {
+            Flashcard card = new Flashcard();
+            card.setId((long) i);
+            card.setDeck(deck);
+            card.setDescription("Question " + i);
+            card.setAnswer("Answer " + i);
+            card.setWrongAnswers(new String[]{ "Wrong " + i + "a", "Wrong " + i + "b", "Wrong " + i + "c" });
+            card.setFlashcardCategory(FlashcardCategory.MOMENTS);
+            cards.add(card);
+        }
+        deck.setFlashcards(cards);
+
+        quiz = new Quiz();
+        quiz.setId(1L);
+        quiz.setStartTime(new Date());
+        quiz.setTimeLimit(60);
+        quiz.setIsMultiple(true);
+        quiz.setQuizStatus(QuizStatus.IN_PROGRESS);
+        quiz.getDecks().add(deck);
+        quiz.setSelectedFlashcards(cards);
+        for (long userId = 1; userId <= 2; userId++) {
+            User user = new User();
+            user.setId(userId);
+            Score score = new Score();
+            score.setQuiz(quiz);
+            score.setUser(user);
+            score.setTotalQuestions(deckSize);
+            quiz.getScores().add(score);
+        }
+    }
+
+    @Benchmark
+    public FlashcardDTO flashcardToDTO() {
+        return flashcardMapper.toDTO(cards.get(deckSize / 2));
+    }
+
+    @Benchmark
+    public List<FlashcardDTO> flashcardsToDTOList() {
+        return flashcardMapper.toDTOList(cards);
+    }
+
+    @Benchmark
+    public QuizDTO quizToDTO() {
+        return quizMapper.convertEntityToDTO(quiz);
+    }
+}
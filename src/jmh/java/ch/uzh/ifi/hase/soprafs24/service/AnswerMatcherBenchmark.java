@@ -0,0 +1,70 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizQuestionDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answer check of one submission: the former
+ * {@code answer.equalsIgnoreCase(typed.trim())} against the normalized-key
+ * match, exact and with typo tolerance, and the option-index match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnswerMatcherBenchmark {
+
+    /** ascii: plain answer typed in another case; accented: needs decomposition; typo: one edit away */
+    @Param({ "ascii", "accented", "typo" })
+    public String input;
+
+    private FlashcardCache.Card card;
+    private String              typed;
+    private AnswerMatcher       exact;
+    private AnswerMatcher       tolerant;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String answer;
+        switch (input) {
+            case "accented":
+                answer = "Crème brûlée";
+                typed  = "  creme BRULEE ";
+                break;
+            case "typo":
+                answer = "Photosynthesis";
+                typed  = "photosynthesys";
+                break;
+            default:
+                answer = "Photosynthesis";
+                typed  = " PHOTOSYNTHESIS ";
+        }
+        card     = new FlashcardCache.Card(1L, 0L, answer, AnswerNormalizer.normalize(answer), 2, new QuizQuestionDTO());
+        exact    = new AnswerMatcher(0);
+        tolerant = new AnswerMatcher(2);
+    }
+
+    @Benchmark
+    public boolean equalsIgnoreCase() {
+        return card.getAnswer().equalsIgnoreCase(typed.trim());
+    }
+
+    @Benchmark
+    public boolean normalizedExact() {
+        return exact.matches(card, typed, null);
+    }
+
+    @Benchmark
+    public boolean normalizedWithTypos() {
+        return tolerant.matches(card, typed, null);
+    }
+
+    @Benchmark
+    public boolean optionIndex() {
+        return exact.matches(card, null, 2);
+    }
+}
@@ -0,0 +1,132 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.QuizStatus;
+import ch.uzh.ifi.hase.soprafs24.entity.Deck;
+import ch.uzh.ifi.hase.soprafs24.entity.Quiz;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.DeckRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizAnswerResponseDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link QuizService#processAnswerWithFeedback} against H2 with {@code quizzes}
+ * solo quizzes running at the same time.
+ * One quiz is started through {@link QuizService#startQuiz}; the others get a
+ * plain quiz row (for the write-behind foreign keys) and a session opened from
+ * the same card selection, which is all the answer path reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")   // 100k sessions of 100 cards each
+public class QuizAnswerPathBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int quizzes;
+
+    @Param({ "10", "100" })
+    public int deckSize;
+
+    private ConfigurableApplicationContext context;
+    private QuizService           quizService;
+    private QuizProgressStore     progressStore;
+    private QuizSessionCache      sessionCache;
+    private QuizWriteBehindBuffer writeBehind;
+
+    private long[] quizIds;
+    private Long   userId;
+    private int    cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context       = QuizBenchmarkContext.start();
+        quizService   = context.getBean(QuizService.class);
+        progressStore = context.getBean(QuizProgressStore.class);
+        sessionCache  = context.getBean(QuizSessionCache.class);
+        writeBehind   = context.getBean(QuizWriteBehindBuffer.class);
+
+        User user = context.getBean(UserService.class).createUser(QuizBenchmarkContext.newUser("bench"));
+        userId = user.getId();
+        Deck deck = context.getBean(DeckRepository.class)
+                .saveAndFlush(QuizBenchmarkContext.newDeck(user, deckSize));
+
+        Quiz template = quizService.startQuiz(deck.getId(), deckSize, 0, false);
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        List<Object[]> rows = new ArrayList<>(quizzes - 1);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 1; i < quizzes; i++) {
+            rows.add(new Object[]{ now, 0, QuizStatus.IN_PROGRESS.ordinal(), false });
+        }
+        jdbc.batchUpdate("INSERT INTO quiz (start_time, time_limit, quiz_status, is_multiple) VALUES (?, ?, ?, ?)",
+                rows);
+
+        quizIds = jdbc.queryForList("SELECT id FROM quiz ORDER BY id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        for (long id : quizIds) {
+            if (id == template.getId()) {
+                continue;
+            }
+            Quiz copy = new Quiz();
+            copy.setId(id);
+            copy.setStartTime(now);
+            copy.setTimeLimit(0);
+            copy.setIsMultiple(false);
+            copy.setQuizStatus(QuizStatus.IN_PROGRESS);
+            copy.setQuestionOrder(template.getQuestionOrder());
+            sessionCache.open(copy);
+            progressStore.registerQuiz(id, 0L);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void flushWrites() {
+        writeBehind.flushAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** Wrong answers: validation, attempt counting, stats buffering and broadcast, no advance. */
+    @Benchmark
+    public QuizAnswerResponseDTO wrongAnswer() {
+        Long quizId = nextQuiz();
+        QuizSession session = sessionCache.get(quizId);
+        int idx = progressStore.getProgress(quizId, userId).getCurrentIndex();
+        return quizService.processAnswerWithFeedback(quizId, session.getCardId(idx), "no idea", userId);
+    }
+
+    /**
+     * Correct answers. The last card is never answered (that would end the quiz),
+     * the player is moved back to the first card instead.
+     */
+    @Benchmark
+    public QuizAnswerResponseDTO correctAnswer() {
+        Long quizId = nextQuiz();
+        QuizSession session = sessionCache.get(quizId);
+        QuizProgressStore.ProgressState prog = progressStore.getProgress(quizId, userId);
+        int idx = prog.getCurrentIndex();
+        if (idx + 1 >= session.size()) {
+            prog.setCurrentIndex(0);
+            idx = 0;
+        }
+        return quizService.processAnswerWithFeedback(quizId, session.getCardId(idx), session.getAnswer(idx), userId);
+    }
+
+    private Long nextQuiz() {
+        long id = quizIds[cursor];
+        cursor = cursor + 1 == quizIds.length ? 0 : cursor + 1;
+        return id;
+    }
+}
@@ -0,0 +1,96 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.FlashcardCategory;
+import ch.uzh.ifi.hase.soprafs24.entity.Deck;
+import ch.uzh.ifi.hase.soprafs24.entity.Flashcard;
+import ch.uzh.ifi.hase.soprafs24.entity.Quiz;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.QuizRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.mapper.FlashcardMapper;
+import ch.uzh.ifi.hase.soprafs24.rest.mapper.InvitationMapper;
+import ch.uzh.ifi.hase.soprafs24.rest.mapper.QuizMapper;
+import ch.uzh.ifi.hase.soprafs24.rest.mapper.ScoreMapper;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal Spring context for the benchmarks: the quiz runtime beans on an
+ * embedded H2, without web layer, GCS/OpenAI clients or scheduling.
+ * STOMP frames are serialized with Jackson (like the broker template does)
+ * and then dropped.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan(basePackageClasses = Quiz.class)
+@EnableJpaRepositories(basePackageClasses = QuizRepository.class)
+@Import({ QuizService.class, UserService.class, QuizMapper.class, ScoreMapper.class, FlashcardMapper.class,
+        QuizProgressStore.class, QuizSessionCache.class, QuizWriteBehindBuffer.class,
+        QuizBroadcastScheduler.class, LocalQuizFanout.class, QuizTimeouts.class,
+        QuestionSelector.class, AnswerMatcher.class, PresenceRegistry.class, FlashcardCache.class,
+        QuizActorExecutor.class, InvitationNotifier.class, InvitationMapper.class })
+public class QuizBenchmarkContext {
+
+    @Bean
+    public SimpMessagingTemplate messagingTemplate() {
+        return stubMessagingTemplate();
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(QuizBenchmarkContext.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    static SimpMessagingTemplate stubMessagingTemplate() {
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> true);
+        template.setMessageConverter(new MappingJackson2MessageConverter());
+        return template;
+    }
+
+    /* ───────────── fixtures ───────────── */
+
+    static User newUser(String username) {
+        User user = new User();
+        user.setName(username);
+        user.setUsername(username);
+        user.setPassword("benchmark");
+        return user;
+    }
+
+    /** A deck of {@code size} cards; not persisted. */
+    static Deck newDeck(User owner, int size) {
+        Deck deck = new Deck();
+        deck.setTitle("benchmark deck");
+        deck.setUser(owner);
+        deck.setDeckCategory(FlashcardCategory.MOMENTS);
+        deck.setIsPublic(false);
+        List<Flashcard> cards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Flashcard card = new Flashcard();
+            card.setDeck(deck);
+            card.setDescription("Question " + i);
+            card.setAnswer("Answer " + i);
+            card.setWrongAnswers(new String[]{ "Wrong " + i + "a", "Wrong " + i + "b", "Wrong " + i + "c" });
+            card.setFlashcardCategory(FlashcardCategory.MOMENTS);
+            cards.add(card);
+        }
+        deck.setFlashcards(cards);
+        return deck;
+    }
+}
@@ -0,0 +1,75 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizUpdateMessageDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-quiz progress snapshot and the progress broadcast built from it,
+ * with {@code quizzes} quizzes of {@code players} players each in the store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuizProgressStoreBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int quizzes;
+
+    @Param({ "2", "8" })
+    public int players;
+
+    @Param({ "10", "100" })
+    public int deckSize;
+
+    private QuizProgressStore     progressStore;
+    private SimpMessagingTemplate messagingTemplate;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        progressStore     = new QuizProgressStore(300, 21600);
+        messagingTemplate = QuizBenchmarkContext.stubMessagingTemplate();
+        for (long quizId = 0; quizId < quizzes; quizId++) {
+            for (long userId = 0; userId < players; userId++) {
+                QuizProgressStore.ProgressState p = progressStore.getProgress(quizId, userId);
+                p.setCurrentIndex((int) ((quizId + userId) % deckSize));
+                p.setTotalCorrect(p.getCurrentIndex());
+            }
+        }
+    }
+
+    @Benchmark
+    public List<QuizProgressStore.UserProgressEntry> getProgressForQuiz() {
+        return progressStore.getProgressForQuiz(nextQuiz());
+    }
+
+    /** Message construction only, as done for each broadcast frame. */
+    @Benchmark
+    public QuizUpdateMessageDTO buildProgressMessage() {
+        Long quizId = nextQuiz();
+        return QuizBroadcastScheduler.buildProgressMessage(
+                progressStore.getProgressForQuiz(quizId), quizId, deckSize, false);
+    }
+
+    /** A full broadcast frame including the Jackson conversion of the STOMP payload. */
+    @Benchmark
+    public void broadcastProgress() {
+        Long quizId = nextQuiz();
+        QuizUpdateMessageDTO msg = QuizBroadcastScheduler.buildProgressMessage(
+                progressStore.getProgressForQuiz(quizId), quizId, deckSize, false);
+        messagingTemplate.convertAndSend("/topic/quizUpdates/" + quizId, msg);
+    }
+
+    private Long nextQuiz() {
+        long id = cursor;
+        cursor = cursor + 1 == quizzes ? 0 : cursor + 1;
+        return id;
+    }
+}
@@ -0,0 +1,86 @@
+package ch.uzh.ifi.hase.soprafs24.config;
+
+import ch.uzh.ifi.hase.soprafs24.service.FlashcardCache;
+import ch.uzh.ifi.hase.soprafs24.service.InvitationNotifier;
+import ch.uzh.ifi.hase.soprafs24.service.MatchmakingService;
+import ch.uzh.ifi.hase.soprafs24.service.PresenceRegistry;
+import ch.uzh.ifi.hase.soprafs24.service.QuizActorExecutor;
+import ch.uzh.ifi.hase.soprafs24.service.QuizProgressStore;
+import ch.uzh.ifi.hase.soprafs24.service.QuizSessionCache;
+import ch.uzh.ifi.hase.soprafs24.service.QuizTimeouts;
+import ch.uzh.ifi.hase.soprafs24.service.QuizWriteBehindBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gauges over the in-memory quiz, presence, invitation and matchmaking state. Timers and counters of the request
+ * paths are registered by the services themselves; everything is exported on
+ * /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder quizStateMetrics(QuizProgressStore progressStore,
+                                        QuizSessionCache sessionCache,
+                                        QuizWriteBehindBuffer writeBehind,
+                                        QuizTimeouts timeouts,
+                                        FlashcardCache flashcardCache,
+                                        QuizActorExecutor actors) {
+        return registry -> {
+            Gauge.builder("quiz.in_progress", sessionCache, QuizSessionCache::size)
+                    .description("Quizzes with an open session")
+                    .register(registry);
+            Gauge.builder("quiz.progress.quizzes", progressStore, QuizProgressStore::getLiveQuizzes)
+                    .description("Quizzes tracked by the progress store")
+                    .register(registry);
+            Gauge.builder("quiz.progress.entries", progressStore, QuizProgressStore::getLiveEntries)
+                    .description("Player entries tracked by the progress store")
+                    .register(registry);
+            FunctionCounter.builder("quiz.progress.evicted", progressStore, QuizProgressStore::getEvictedQuizzes)
+                    .description("Quizzes dropped by the progress reaper")
+                    .register(registry);
+            Gauge.builder("quiz.write_behind.pending", writeBehind, QuizWriteBehindBuffer::getPendingQuizzes)
+                    .description("Quizzes with Score/Statistics writes not flushed yet")
+                    .register(registry);
+            Gauge.builder("quiz.timeouts.pending", timeouts, QuizTimeouts::getPending)
+                    .description("Quiz deadlines and question timeouts waiting on the timer wheel")
+                    .register(registry);
+            Gauge.builder("quiz.card_cache.entries", flashcardCache, FlashcardCache::size)
+                    .description("Cards cached for resolving the question order of quiz sessions")
+                    .register(registry);
+            Gauge.builder("quiz.actors.mailboxes", actors, QuizActorExecutor::getMailboxes)
+                    .description("Quizzes with events queued or running")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder presenceMetrics(PresenceRegistry presence) {
+        return registry -> {
+            Gauge.builder("presence.connected_users", presence, PresenceRegistry::getConnectedUsers)
+                    .description("Users with at least one open STOMP session")
+                    .register(registry);
+            Gauge.builder("presence.pending_writes", presence, PresenceRegistry::getPendingWrites)
+                    .description("Status changes not written to the user table yet")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder invitationMetrics(InvitationNotifier invitationNotifier) {
+        return registry -> Gauge.builder("invitations.events.mailboxes", invitationNotifier, InvitationNotifier::getMailboxes)
+                .description("Users with invitation events buffered for catch-up")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder matchmakingMetrics(MatchmakingService matchmaking) {
+        return registry -> Gauge.builder("matchmaking.waiting", matchmaking, MatchmakingService::getWaiting)
+                .description("Players waiting for a quick match")
+                .register(registry);
+    }
+}
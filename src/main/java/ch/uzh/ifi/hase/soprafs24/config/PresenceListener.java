@@ -0,0 +1,40 @@
+package ch.uzh.ifi.hase.soprafs24.config;
+
+import ch.uzh.ifi.hase.soprafs24.service.PresenceRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+
+/**
+ * Feeds the STOMP session lifecycle into the {@link PresenceRegistry}. Only
+ * sessions that authenticated on CONNECT (see {@link StompAuthInterceptor})
+ * count; the disconnect event also fires when the broker closes a session
+ * whose heartbeats stopped.
+ */
+@Component
+public class PresenceListener {
+
+    private final PresenceRegistry presence;
+
+    public PresenceListener(PresenceRegistry presence) {
+        this.presence = presence;
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        if (user instanceof StompAuthInterceptor.UserPrincipal) {
+            String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+            presence.sessionConnected(sessionId, ((StompAuthInterceptor.UserPrincipal) user).getUserId());
+        }
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        presence.sessionDisconnected(event.getSessionId());
+    }
+}
@@ -0,0 +1,84 @@
+package ch.uzh.ifi.hase.soprafs24.config;
+
+import ch.uzh.ifi.hase.soprafs24.service.QuizFanout;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Backpressure on the client outbound channel.
+ * Counts, per session, the frames handed to the channel but not yet written.
+ * Once a session has {@code maxPending} of them, frames marked droppable
+ * (progress deltas) are discarded instead of queued behind the others; the
+ * client notices the sequence gap and asks for a snapshot.
+ */
+public class SlowConsumerInterceptor implements ExecutorChannelInterceptor {
+
+    private final int maxPending;
+
+    // sessionId -> frames queued or being written
+    private final ConcurrentHashMap<String, Integer> pending = new ConcurrentHashMap<>();
+
+    private final DistributionSummary backlog;
+    private final Counter             dropped;
+
+    public SlowConsumerInterceptor(MeterRegistry registry, int maxPending) {
+        this.maxPending = maxPending;
+        this.backlog = DistributionSummary.builder("stomp.outbound.session.backlog")
+                .description("Frames already pending for the session when another one is sent")
+                .register(registry);
+        this.dropped = Counter.builder("stomp.outbound.dropped")
+                .description("Droppable frames discarded for slow sessions")
+                .register(registry);
+        Gauge.builder("stomp.outbound.sessions.slow", this, SlowConsumerInterceptor::getSlowSessions)
+                .description("Sessions at the pending-frame limit")
+                .register(registry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String sessionId = accessor.getSessionId();
+        if (sessionId == null) {
+            return message;
+        }
+        int depth = pending.getOrDefault(sessionId, 0);
+        backlog.record(depth);
+        if (depth >= maxPending && "true".equals(accessor.getFirstNativeHeader(QuizFanout.DROPPABLE_HEADER))) {
+            dropped.increment();
+            return null;
+        }
+        pending.merge(sessionId, 1, Integer::sum);
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            pending.computeIfPresent(sessionId, (id, n) -> n > 1 ? n - 1 : null);
+        }
+    }
+
+    int getPending(String sessionId) {
+        return pending.getOrDefault(sessionId, 0);
+    }
+
+    int getSlowSessions() {
+        int slow = 0;
+        for (int n : pending.values()) {
+            if (n >= maxPending) {
+                slow++;
+            }
+        }
+        return slow;
+    }
+}
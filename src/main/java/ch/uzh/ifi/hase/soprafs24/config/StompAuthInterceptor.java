@@ -0,0 +1,82 @@
+package ch.uzh.ifi.hase.soprafs24.config;
+
+import ch.uzh.ifi.hase.soprafs24.service.UserService;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.security.Principal;
+
+/**
+ * Binds a STOMP session to a user: a CONNECT frame carrying the user's login
+ * token in the {@code token} header gets a principal named after the user id,
+ * so handlers know who is talking and /user/... destinations reach that user.
+ * Sessions without the header stay anonymous; an unknown token is refused.
+ */
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    static final String TOKEN_HEADER = "token";
+
+    private final UserService userService;
+
+    public StompAuthInterceptor(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String token = accessor.getFirstNativeHeader(TOKEN_HEADER);
+        if (token == null || token.isBlank()) {
+            return message;
+        }
+        Long userId = userService.getUserIdFromToken(token);
+        if (userId == null) {
+            throw new MessagingException(message, "Invalid token");
+        }
+        // the accessor is still mutable on the inbound channel, the session keeps this user
+        accessor.setUser(new UserPrincipal(userId));
+        return message;
+    }
+
+    /** Principal of an authenticated STOMP session; the name is the user id. */
+    public static final class UserPrincipal implements Principal {
+
+        private final Long userId;
+
+        public UserPrincipal(Long userId) {
+            this.userId = userId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String getName() {
+            return String.valueOf(userId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof UserPrincipal && userId.equals(((UserPrincipal) o).userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return userId.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "UserPrincipal[" + userId + "]";
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ch.uzh.ifi.hase.soprafs24.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Counts STOMP MESSAGE frames sent to clients, tagged by topic.
+ * Numeric path segments (quiz and user ids) are folded into {id} so the
+ * number of time series stays bounded.
+ */
+public class StompMetricsInterceptor implements ChannelInterceptor {
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final MeterRegistry registry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public StompMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (!sent || accessor.getMessageType() != SimpMessageType.MESSAGE || accessor.getDestination() == null) {
+            return;
+        }
+        counters.computeIfAbsent(topicOf(accessor.getDestination()),
+                topic -> registry.counter("stomp.messages.out", "topic", topic)).increment();
+    }
+
+    static String topicOf(String destination) {
+        return ID_SEGMENT.matcher(destination).replaceAll("/{id}");
+    }
+}
@@ -1,19 +1,99 @@
 package ch.uzh.ifi.hase.soprafs24.config;
 
+import ch.uzh.ifi.hase.soprafs24.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * STOMP over /ws.
+ * app.websocket.broker=simple keeps the in-JVM broker (single instance);
+ * app.websocket.broker=relay forwards /topic and /queue to an external
+ * STOMP broker (RabbitMQ, ActiveMQ) so every instance reaches every client.
+ * The simple broker exchanges heartbeats with clients, so a crashed client's
+ * session is closed (and its user's presence updated) without waiting for TCP.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final MeterRegistry meterRegistry;
+    private final UserService   userService;
+
+    @Value("${app.websocket.broker:simple}")
+    private String brokerMode;
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMillis;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+    @Value("${app.websocket.relay.login:guest}")
+    private String relayLogin;
+    @Value("${app.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+    @Value("${app.websocket.relay.virtual-host:/}")
+    private String relayVirtualHost;
+
+    @Value("${app.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+    @Value("${app.websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+    @Value("${app.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+    @Value("${app.websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+    @Value("${app.websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+    @Value("${app.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+    @Value("${app.websocket.outbound.max-pending-per-session:64}")
+    private int outboundMaxPendingPerSession;
+
+    @Value("${app.websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMillis;
+    @Value("${app.websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+    @Value("${app.websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+    @Value("${app.websocket.transport.time-to-first-message-ms:30000}")
+    private int timeToFirstMessageMillis;
+
+    public WebSocketConfig(MeterRegistry meterRegistry, UserService userService) {
+        this.meterRegistry = meterRegistry;
+        this.userService   = userService;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple broker with destination prefix "/topic"
-        config.enableSimpleBroker("/topic");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // external broker: every instance subscribes there, so a frame sent on one node reaches all clients
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setVirtualHost(relayVirtualHost)
+                    // user destinations of sessions connected to another instance
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            // Enable a simple broker: "/topic" for broadcasts, "/queue" for replies to a single session (/user/queue/...)
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] {heartbeatMillis, heartbeatMillis})
+                    .setTaskScheduler(stompHeartbeatScheduler());
+        }
         // All messages sent to destinations starting with "/app" will be routed to message-handling methods (e.g., @MessageMapping)
         config.setApplicationDestinationPrefixes("/app");
     }
@@ -24,4 +104,46 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
     }
 
+    /** Sends and checks broker heartbeats; app.websocket.heartbeat-ms=0 turns them off. */
+    @Bean
+    public ThreadPoolTaskScheduler stompHeartbeatScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("stomp-heartbeat-");
+        scheduler.setDaemon(true);
+        return scheduler;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // a session whose writes stay blocked longer, or whose buffer grows larger, is closed
+        registration.setSendTimeLimit(sendTimeLimitMillis)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .setTimeToFirstMessage(timeToFirstMessageMillis);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // frames from clients (@MessageMapping, SUBSCRIBE, ...), short handlers
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+        // CONNECT with a login token binds the session to that user
+        registration.interceptors(new StompAuthInterceptor(userService));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // writes to client sessions; a deeper queue absorbs a broadcast to a large lobby
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+        // slow sessions lose progress deltas first; messages out per topic are counted for the frames actually queued
+        registration.interceptors(new SlowConsumerInterceptor(meterRegistry, outboundMaxPendingPerSession),
+                new StompMetricsInterceptor(meterRegistry));
+    }
+
 }
@@ -10,13 +10,14 @@ import ch.uzh.ifi.hase.soprafs24.service.FlashcardService;
 import ch.uzh.ifi.hase.soprafs24.service.GoogleCloudStorageService;
 
 import javax.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import com.google.cloud.storage.Blob;
 
 import java.io.IOException;
 import java.util.List;
@@ -24,6 +25,8 @@ import java.util.List;
 @RestController
 public class FlashcardController {
 
+    private final Logger log = LoggerFactory.getLogger(FlashcardController.class);
+
     private final FlashcardService flashcardService;
     private final GoogleCloudStorageService googleCloudStorageService;
     private FlashcardMapper flashcardMapper;
@@ -70,7 +73,7 @@ public class FlashcardController {
     public DeckDTO createDeck(@RequestParam Long userId, @Valid @RequestBody DeckDTO deckDTO) {
         Deck deck = deckMapper.toEntity(deckDTO);
         // If numberOfCards is not provided, default to 5 when AI generation is enabled
-        System.out.println("NUMBER OF AI CARDS: " + deckDTO.getNumberOfAICards());
+        log.debug("Creating deck for user {} with {} AI cards requested", userId, deckDTO.getNumberOfAICards());
         int numberOfCards = (deckDTO.getIsAiGenerated() != null && deckDTO.getIsAiGenerated() && deckDTO.getNumberOfAICards() != null)
                 ? deckDTO.getNumberOfAICards()
                 : ((deckDTO.getIsAiGenerated() != null && deckDTO.getIsAiGenerated()) ? 5 : 0);
@@ -183,15 +186,14 @@ public class FlashcardController {
         // Extract filename from URL: https://storage.googleapis.com/fs25-group40-bucket/1741277876898_IMG_4993.jpeg
         String filename = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
 
-        Blob blob = googleCloudStorageService.getFileFromBucket(filename);
-        if (blob == null) {
+        GoogleCloudStorageService.StoredFile file = googleCloudStorageService.downloadFile(filename);
+        if (file == null) {
             return ResponseEntity.notFound().build();
         }
 
-        byte[] content = blob.getContent();
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.valueOf(blob.getContentType()));  // Handles JPEG, PNG, etc.
-        return new ResponseEntity<>(content, headers, HttpStatus.OK);
+        headers.setContentType(MediaType.valueOf(file.getContentType()));  // Handles JPEG, PNG, etc.
+        return new ResponseEntity<>(file.getContent(), headers, HttpStatus.OK);
     }
 
 }
@@ -0,0 +1,34 @@
+package ch.uzh.ifi.hase.soprafs24.controller;
+
+import ch.uzh.ifi.hase.soprafs24.rest.dto.MatchRequestDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.MatchmakingEventDTO;
+import ch.uzh.ifi.hase.soprafs24.service.MatchmakingService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Quick matches, see {@link MatchmakingService}. The match itself arrives
+ * on /user/queue/matchmaking, unless the enqueue call already made it.
+ */
+@RestController
+@RequestMapping("/quiz/match")
+public class MatchmakingController {
+
+    private final MatchmakingService matchmakingService;
+
+    public MatchmakingController(MatchmakingService matchmakingService) {
+        this.matchmakingService = matchmakingService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.OK)
+    public MatchmakingEventDTO enqueue(@RequestBody MatchRequestDTO req) {
+        return matchmakingService.enqueue(req);
+    }
+
+    @DeleteMapping
+    @ResponseStatus(HttpStatus.OK)
+    public void cancel(@RequestParam Long userId) {
+        matchmakingService.cancel(userId);
+    }
+}
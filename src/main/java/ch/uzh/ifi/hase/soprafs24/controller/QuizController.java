@@ -6,6 +6,7 @@ import ch.uzh.ifi.hase.soprafs24.rest.dto.*;
 import ch.uzh.ifi.hase.soprafs24.rest.mapper.*;
 import ch.uzh.ifi.hase.soprafs24.service.QuizService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -66,6 +67,17 @@ public class QuizController {
         return invitationMapper.toDTOList(quizService.getInvitationByToUserId(toUserId));
     }
 
+    /**
+     * Invitation events after {@code after}, for a client that reconnects to
+     * /user/queue/invitations; replaces polling the lists above.
+     */
+    @GetMapping("/invitation/events")
+    @ResponseStatus(HttpStatus.OK)
+    public InvitationEventsDTO invitationEvents(@RequestParam Long userId,
+                                                @RequestParam(defaultValue = "0") long after) {
+        return quizService.getInvitationEvents(userId, after);
+    }
+
     @GetMapping("/response/confirmation")
     @ResponseStatus(HttpStatus.OK)
     public void confirmInvite(@RequestParam Long invitationId) {
@@ -106,7 +118,9 @@ public class QuizController {
                 req.getTimeLimit(),
                 req.getIsMultiple()
         );
-        return quizMapper.convertEntityToDTO(quiz);
+        QuizDTO dto = quizMapper.convertEntityToDTO(quiz);
+        dto.setPrefetch(quizService.getStartWindow(quiz.getId()));
+        return dto;
     }
 
     @PostMapping("/answer")
@@ -115,14 +129,27 @@ public class QuizController {
         if (req.getQuizId() == null || req.getFlashcardId() == null || req.getUserId() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required fields");
         }
-        return quizService.processAnswerWithFeedback(
-                req.getQuizId(), req.getFlashcardId(), req.getSelectedAnswer(), req.getUserId());
+        return quizService.processAnswerWithFeedback(req.getQuizId(), req.getFlashcardId(),
+                req.getSelectedAnswer(), req.getSelectedOption(), req.getUserId());
     }
 
-    @GetMapping("/{quizId}/currentQuestion")
-    @ResponseStatus(HttpStatus.OK)
-    public FlashcardDTO current(@PathVariable Long quizId, @RequestParam Long userId) {
-        return flashcardMapper.toDTO(quizService.getCurrentQuestion(quizId, userId));
+    /** Answers of a solo quiz collected offline, see {@link QuizService#processAnswerBatch}. */
+    @PostMapping("/{quizId}/answers")
+    @ResponseStatus(HttpStatus.CREATED)
+    public QuizAnswerBatchResponseDTO answerBatch(@PathVariable Long quizId,
+                                                  @RequestBody QuizAnswerBatchRequestDTO req) {
+        if (req.getUserId() == null || req.getAnswers() == null || req.getAnswers().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required fields");
+        }
+        return quizService.processAnswerBatch(quizId, req.getUserId(), req.getAnswers());
+    }
+
+    /** The question view is pre-serialized per card, so it is written out as is. */
+    @GetMapping(value = "/{quizId}/currentQuestion", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> current(@PathVariable Long quizId, @RequestParam Long userId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(quizService.getCurrentQuestionJson(quizId, userId));
     }
 
     @GetMapping("/status/{id}")
@@ -131,6 +158,29 @@ public class QuizController {
         return quizMapper.convertEntityToDTO(quizService.getQuizStatus(id));
     }
 
+    /* ───────────── Lobby endpoints ───────────── */
+
+    /** Joins a WAITING multiplayer quiz; the quiz itself is not returned, it would carry every player. */
+    @PostMapping("/{quizId}/lobby/join")
+    @ResponseStatus(HttpStatus.OK)
+    public void joinLobby(@PathVariable Long quizId, @RequestParam Long userId) {
+        quizService.joinLobby(quizId, userId);
+    }
+
+    @PostMapping("/{quizId}/lobby/start")
+    @ResponseStatus(HttpStatus.OK)
+    public QuizDTO startLobby(@PathVariable Long quizId) {
+        return quizMapper.convertEntityToDTO(quizService.startMultiplayerIfReady(quizId));
+    }
+
+    @GetMapping("/{quizId}/leaderboard")
+    @ResponseStatus(HttpStatus.OK)
+    public LeaderboardDTO leaderboard(@PathVariable Long quizId,
+                                      @RequestParam(required = false) Long userId,
+                                      @RequestParam(defaultValue = "10") int limit) {
+        return quizService.getLeaderboard(quizId, userId, limit);
+    }
+
     @DeleteMapping("/quit/{quizId}")
     @ResponseStatus(HttpStatus.OK)
     public void quitGame(@PathVariable Long quizId) {
@@ -0,0 +1,92 @@
+package ch.uzh.ifi.hase.soprafs24.controller;
+
+import ch.uzh.ifi.hase.soprafs24.config.StompAuthInterceptor;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizAnswerRequestDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizAnswerResponseDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizUpdateMessageDTO;
+import ch.uzh.ifi.hase.soprafs24.service.QuizBroadcastScheduler;
+import ch.uzh.ifi.hase.soprafs24.service.QuizService;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * STOMP endpoints under /app for quiz clients.
+ */
+@Controller
+public class QuizMessageController {
+
+    private final QuizBroadcastScheduler broadcaster;
+    private final QuizService            quizService;
+
+    public QuizMessageController(QuizBroadcastScheduler broadcaster, QuizService quizService) {
+        this.broadcaster = broadcaster;
+        this.quizService = quizService;
+    }
+
+    /**
+     * Resync after a gap in the /topic/quizUpdates/{quizId} sequence.
+     * The snapshot goes only to the requesting session, on /user/queue/quizUpdates.
+     */
+    @MessageMapping("/quiz/{quizId}/snapshot")
+    @SendToUser(destinations = "/queue/quizUpdates", broadcast = false)
+    public QuizUpdateMessageDTO snapshot(@DestinationVariable Long quizId) {
+        return broadcaster.snapshot(quizId);
+    }
+
+    /**
+     * Same as POST /quiz/answer, over the already open STOMP session. The
+     * reply goes to the sending session on /user/queue/quiz once the quiz's
+     * mailbox processed the answer; the inbound thread does not wait for it.
+     * The player is the session's user (see {@link StompAuthInterceptor}); an
+     * anonymous session has to name it in the payload, like the HTTP endpoint.
+     */
+    @MessageMapping("/quiz/{quizId}/answer")
+    @SendToUser(destinations = "/queue/quiz", broadcast = false)
+    public CompletableFuture<QuizAnswerResponseDTO> answer(@DestinationVariable Long quizId,
+                                                           @Payload QuizAnswerRequestDTO req,
+                                                           Principal principal) {
+        if (req.getFlashcardId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required fields");
+        }
+        Long userId = playerOf(principal, req.getUserId());
+        return quizService.submitAnswer(quizId, req.getFlashcardId(),
+                req.getSelectedAnswer(), req.getSelectedOption(), userId);
+    }
+
+    /** Rejected messages are answered on /user/queue/errors, in the shape of the HTTP error body. */
+    @MessageExceptionHandler(ResponseStatusException.class)
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, Object> handleResponseStatusException(ResponseStatusException ex) {
+        Map<String, Object> errorBody = new HashMap<>();
+        errorBody.put("timestamp", java.time.LocalDateTime.now());
+        errorBody.put("status", ex.getStatus().value());
+        errorBody.put("error", ex.getStatus().getReasonPhrase());
+        errorBody.put("message", ex.getReason());
+        return errorBody;
+    }
+
+    private static Long playerOf(Principal principal, Long claimedUserId) {
+        if (principal instanceof StompAuthInterceptor.UserPrincipal) {
+            Long userId = ((StompAuthInterceptor.UserPrincipal) principal).getUserId();
+            if (claimedUserId != null && !claimedUserId.equals(userId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Cannot answer for another user.");
+            }
+            return userId;
+        }
+        if (claimedUserId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required fields");
+        }
+        return claimedUserId;
+    }
+}
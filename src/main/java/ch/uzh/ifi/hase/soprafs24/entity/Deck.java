@@ -28,16 +28,6 @@ public class Deck implements Serializable {
     @JsonIgnore
     private User user;
 
-    @ManyToOne
-    @JoinColumn(name = "quiz_id", nullable = true)
-    @JsonIgnore
-    private Quiz quiz;
-
-    @ManyToOne
-    @JoinColumn(name = "invitation_id", nullable = true)
-    @JsonIgnore
-    private Invitation invitation;
-
     private String title;
 
     @Column(nullable = false)
@@ -47,4 +47,14 @@ public class Flashcard implements Serializable {
     @Column(nullable = false)
     private String answer;
 
+    // AnswerNormalizer key of the answer, set whenever the answer is written
+    @Column(nullable = true)
+    @JsonIgnore
+    private String answerKey;
+
+    // bumped by every update; cached question views of older versions are never served again
+    @Version
+    @JsonIgnore
+    private Long version;
+
 }
\ No newline at end of file
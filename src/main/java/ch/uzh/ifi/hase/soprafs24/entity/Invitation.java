@@ -12,9 +12,11 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
+import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
-import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
 
@@ -25,7 +27,14 @@ import lombok.Setter;
 @Getter 
 @Setter // Generates getters, setters automatically
 @Entity
-@Table(name = "invitation")
+// columnList takes logical names: the field name of plain columns, the @JoinColumn name of relations
+@Table(name = "invitation", indexes = {
+        // earliest accepted invitation of a sender
+        @Index(name = "idx_invitation_from_accepted", columnList = "from_user_id, isAccepted, isAcceptedDate"),
+        @Index(name = "idx_invitation_to_user", columnList = "to_user_id"),
+        // expiry of unanswered invitations
+        @Index(name = "idx_invitation_pending_created", columnList = "isAccepted, createdDate")
+})
 public class Invitation  implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -41,7 +50,13 @@ public class Invitation  implements Serializable {
     @JsonIgnore
     private Quiz quiz;
 
-    @OneToMany(mappedBy = "invitation", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Owned by the invitation through invitation_decks; the decks themselves are never written.
+    @ManyToMany
+    @JoinTable(
+            name = "invitation_decks",
+            joinColumns = @JoinColumn(name = "invitation_id"),
+            inverseJoinColumns = @JoinColumn(name = "deck_id")
+    )
     @JsonIgnore
     private List<Deck> decks = new ArrayList<>();
 
@@ -64,4 +79,8 @@ public class Invitation  implements Serializable {
     @Column(nullable = true)
     private Date isAcceptedDate;
 
+    // unanswered invitations are expired some time after this (see InvitationReaper)
+    @Column(nullable = true)
+    private Date createdDate;
+
 }
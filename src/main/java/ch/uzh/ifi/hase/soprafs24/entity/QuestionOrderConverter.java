@@ -0,0 +1,79 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Stores a quiz's question order (card ids) in one binary column.
+ * Format: a version byte, the number of ids, then each id as the zig-zag
+ * varint of its difference to the previous one. Ids of one deck are close
+ * together, so most cards take two or three bytes instead of a join row.
+ */
+@Converter
+public class QuestionOrderConverter implements AttributeConverter<long[], byte[]> {
+
+    private static final byte VERSION = 1;
+
+    @Override
+    public byte[] convertToDatabaseColumn(long[] ids) {
+        return ids == null ? null : encode(ids);
+    }
+
+    @Override
+    public long[] convertToEntityAttribute(byte[] bytes) {
+        return bytes == null ? null : decode(bytes);
+    }
+
+    public static byte[] encode(long[] ids) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + ids.length * 3);
+        out.write(VERSION);
+        writeVarint(out, ids.length);
+        long previous = 0;
+        for (long id : ids) {
+            long delta = id - previous;
+            writeVarint(out, (delta << 1) ^ (delta >> 63));     // zig-zag: small negatives stay small
+            previous = id;
+        }
+        return out.toByteArray();
+    }
+
+    public static long[] decode(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unknown question order format");
+        }
+        int[] pos = { 1 };
+        int n = (int) readVarint(bytes, pos);
+        long[] ids = new long[n];
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            long zigzag = readVarint(bytes, pos);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated question order");
+            }
+            byte b = bytes[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in question order");
+    }
+}
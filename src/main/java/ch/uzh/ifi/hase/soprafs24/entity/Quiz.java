@@ -8,6 +8,7 @@ import java.util.List;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -37,8 +38,15 @@ public class Quiz implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    // If multiple decks can be used, you already have getDecks().
-    // To store the *actual questions*, let's define a ManyToMany of Flashcards.
+    // The actual questions, in order, as packed card ids (see QuestionOrderConverter).
+    // One column instead of one quiz_flashcards row per card.
+    @Convert(converter = QuestionOrderConverter.class)
+    @Column(name = "question_order", nullable = true, length = 1_048_576)
+    @JsonIgnore
+    private long[] questionOrder;
+
+    // Legacy storage of the questions, only read to migrate quizzes created
+    // before question_order (QuizSessionCache, QuestionOrderMigration).
     @ManyToMany
     @JoinTable(
             name = "quiz_flashcards",
@@ -47,8 +55,15 @@ public class Quiz implements Serializable {
     )
     private List<Flashcard> selectedFlashcards = new ArrayList<>();
 
-    // Associated decks (for example, if multiple decks/questions are used)
-    @OneToMany(mappedBy = "quiz", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Associated decks (for example, if multiple decks/questions are used).
+    // Owned by the quiz through quiz_decks, so starting a quiz never writes the deck rows
+    // and any number of quizzes can run on the same deck.
+    @ManyToMany
+    @JoinTable(
+            name = "quiz_decks",
+            joinColumns = @JoinColumn(name = "quiz_id"),
+            inverseJoinColumns = @JoinColumn(name = "deck_id")
+    )
     @JsonIgnore
     private List<Deck> decks = new ArrayList<>();
 
@@ -78,4 +93,8 @@ public class Quiz implements Serializable {
     @Column(nullable = false)
     private Boolean isMultiple;
 
+    public int getQuestionCount() {
+        return questionOrder != null ? questionOrder.length : selectedFlashcards.size();
+    }
+
 }
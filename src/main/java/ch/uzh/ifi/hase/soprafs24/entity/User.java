@@ -24,10 +24,12 @@ import java.util.List;
  */
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Getter 
 @Setter // Generates getters, setters automatically
 @Entity
+@DynamicUpdate // profile saves must not write back a status the presence registry has changed since
 @Table(name = "user")
 public class User implements Serializable {
 
@@ -1,8 +1,12 @@
 package ch.uzh.ifi.hase.soprafs24.repository;
 
+import ch.uzh.ifi.hase.soprafs24.constant.FlashcardCategory;
 import ch.uzh.ifi.hase.soprafs24.entity.Deck;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +18,22 @@ public interface DeckRepository extends JpaRepository<Deck, Long> {
     Optional<Deck> findById(Long id);
 
     List<Deck> findByIsPublicTrue();
+
+    /* ids only, for quick matches without deck preferences */
+
+    @Query("select d.id from Deck d where d.isPublic = true and d.deckCategory = :category")
+    List<Long> findPublicIdsByCategory(@Param("category") FlashcardCategory category);
+
+    @Query("select d.id from Deck d where d.isPublic = true")
+    List<Long> findPublicIds();
+
+    /* quizzes and invitations own their deck links; drop them before the deck goes */
+
+    @Modifying
+    @Query(value = "DELETE FROM quiz_decks WHERE deck_id = :deckId", nativeQuery = true)
+    int unlinkFromQuizzes(@Param("deckId") Long deckId);
+
+    @Modifying
+    @Query(value = "DELETE FROM invitation_decks WHERE deck_id = :deckId", nativeQuery = true)
+    int unlinkFromInvitations(@Param("deckId") Long deckId);
 }
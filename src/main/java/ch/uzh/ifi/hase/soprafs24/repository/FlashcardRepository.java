@@ -4,9 +4,16 @@ import ch.uzh.ifi.hase.soprafs24.entity.Flashcard;
 
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface FlashcardRepository extends JpaRepository<Flashcard, Long> {
@@ -14,4 +21,13 @@ public interface FlashcardRepository extends JpaRepository<Flashcard, Long> {
     Optional<Flashcard> findById(Long id);
 
     Flashcard findByImageUrl(String imageUrl);
-}
\ No newline at end of file
+
+    /** Ids only, streamed – the caller must be inside a transaction and close the stream. */
+    @Query("SELECT f.id FROM Flashcard f WHERE f.deck.id = :deckId ORDER BY f.id")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<Long> streamIdsByDeckId(@Param("deckId") Long deckId);
+
+    /** One row per deck that has cards: [deckId, number of cards]. */
+    @Query("SELECT f.deck.id, COUNT(f) FROM Flashcard f WHERE f.deck.id IN :deckIds GROUP BY f.deck.id")
+    List<Object[]> countByDeckIds(@Param("deckIds") Collection<Long> deckIds);
+}
@@ -3,9 +3,15 @@ package ch.uzh.ifi.hase.soprafs24.repository;
 import ch.uzh.ifi.hase.soprafs24.entity.Invitation;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.Optional;
 import java.util.List;
 
@@ -19,4 +25,24 @@ public interface InvitationRepository extends JpaRepository<Invitation, Long> {
 
     List<Invitation> findByToUser(User toUser);
 
+    /* accepted invitations of a sender, served by idx_invitation_from_accepted */
+
+    Optional<Invitation> findFirstByFromUser_IdAndIsAcceptedTrueOrderByIsAcceptedDateAscIdAsc(Long fromUserId);
+
+    List<Invitation> findByFromUser_IdAndIsAcceptedTrueAndIdNot(Long fromUserId, Long keepId);
+
+    /* unanswered invitations created before the cutoff, served by idx_invitation_pending_created */
+
+    List<Invitation> findByIsAcceptedFalseAndCreatedDateBefore(Date cutoff, Pageable page);
+
+    /* bulk removal; the deck links go first */
+
+    @Modifying
+    @Query(value = "DELETE FROM invitation_decks WHERE invitation_id IN (:ids)", nativeQuery = true)
+    int unlinkDecks(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Invitation i WHERE i.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
 }
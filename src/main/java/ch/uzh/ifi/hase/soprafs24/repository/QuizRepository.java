@@ -1,13 +1,44 @@
 package ch.uzh.ifi.hase.soprafs24.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import ch.uzh.ifi.hase.soprafs24.constant.QuizStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.Quiz;
 
 @Repository("quizRepository")
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
     Optional<Quiz> findById(Long id);
+
+    List<Quiz> findByQuizStatus(QuizStatus quizStatus);
+
+    /* bulk removal of the quizzes of discarded invitations: links, scores and statistics first */
+
+    @Modifying
+    @Query(value = "DELETE FROM quiz_decks WHERE quiz_id IN (:ids)", nativeQuery = true)
+    int unlinkDecks(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM quiz_flashcards WHERE quiz_id IN (:ids)", nativeQuery = true)
+    int unlinkFlashcards(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Score s WHERE s.quiz.id IN :ids")
+    int deleteScores(@Param("ids") Collection<Long> ids);
+
+    // statistics are the players' history: they stay, without the quiz
+    @Modifying
+    @Query("UPDATE Statistics s SET s.quiz = null WHERE s.quiz.id IN :ids")
+    int unlinkStatistics(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Quiz q WHERE q.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
@@ -17,4 +17,8 @@ public interface ScoreRepository extends JpaRepository<Score,Long>{
     Score findByQuizIdAndUserId(@Param("quizId") Long quizId, @Param("userId") Long userId);
 
     // Score findByQuizIdAndUserId(Long quizId, Long userId);
+
+    boolean existsByQuiz_IdAndUser_Id(Long quizId, Long userId);
+
+    long countByQuiz_Id(Long quizId);
 } 
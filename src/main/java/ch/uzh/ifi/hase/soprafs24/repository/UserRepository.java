@@ -1,8 +1,14 @@
 package ch.uzh.ifi.hase.soprafs24.repository;
 
+import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository("userRepository")
@@ -12,4 +18,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
   User findByName(String name);
 
   User findByUsername(String username);
+
+  // presence write-behind: one statement per status instead of a load and save per user
+  @Modifying
+  @Query("update User u set u.status = :status where u.id in :ids")
+  int updateStatus(@Param("status") UserStatus status, @Param("ids") Collection<Long> ids);
 }
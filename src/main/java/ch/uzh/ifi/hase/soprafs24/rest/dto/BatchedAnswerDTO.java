@@ -0,0 +1,18 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** One answer of a {@link QuizAnswerBatchRequestDTO}, as the client recorded it. */
+@Getter
+@Setter
+public class BatchedAnswerDTO {
+
+    private Long flashcardId;
+
+    private String selectedAnswer;
+
+    private Integer selectedOption;     // index into the question's options, instead of selectedAnswer
+
+    private Long clientTimestamp;       // epoch millis on the client; strictly increasing within a player's answers
+}
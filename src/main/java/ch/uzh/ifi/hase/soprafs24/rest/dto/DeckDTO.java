@@ -5,8 +5,6 @@ import java.util.List;
 
 import ch.uzh.ifi.hase.soprafs24.constant.FlashcardCategory;
 import ch.uzh.ifi.hase.soprafs24.entity.Flashcard;
-import ch.uzh.ifi.hase.soprafs24.entity.Invitation;
-import ch.uzh.ifi.hase.soprafs24.entity.Quiz;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
 import lombok.Getter;
 import lombok.Setter;
@@ -25,10 +23,6 @@ public class DeckDTO {
 
     private List<Flashcard> flashcards; 
 
-    private Quiz quiz;
-
-    private Invitation invitation;
-
     private Boolean isPublic;
 
     private Boolean isAiGenerated;
@@ -0,0 +1,24 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Frame on /user/queue/invitations, and entry of the catch-up response.
+ * {@code type} is "created" (to the invited user), "accepted" or "rejected"
+ * (to the sender), "cancelled" (to the invited user) or "expired" (to both,
+ * when nobody answered in time). Sequences grow per
+ * server, so a client keeps the highest one it has seen and ignores repeats.
+ */
+@Getter
+@Setter
+public class InvitationEventDTO {
+
+    private long sequence;
+
+    private String type;
+
+    private Long invitationId;
+
+    private InvitationDTO invitation;   // state at the time of the event
+}
@@ -0,0 +1,26 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Response of GET /quiz/invitation/events: the events after the client's
+ * last sequence. {@code complete} is false when older events were already
+ * dropped (or the server restarted); the client then reloads its invitation
+ * lists once and continues from {@code latestSequence}.
+ * {@code latestSequence} is a cursor over the events of all users, not the
+ * sequence of the user's own last event; it only ever grows and is the value
+ * to pass as {@code after} next time.
+ */
+@Getter
+@Setter
+public class InvitationEventsDTO {
+
+    private long latestSequence;
+
+    private boolean complete;
+
+    private List<InvitationEventDTO> events;
+}
@@ -0,0 +1,20 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/** Response of GET /quiz/{quizId}/leaderboard: the leaders and, if asked for, the caller's own place. */
+@Getter
+@Setter
+public class LeaderboardDTO {
+
+    private Long quizId;
+
+    private int players;
+
+    private List<PlayerRankDTO> leaders;
+
+    private PlayerRankDTO own;          // null without userId, or if the player is not ranked
+}
@@ -0,0 +1,22 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import ch.uzh.ifi.hase.soprafs24.constant.FlashcardCategory;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Body of POST /quiz/match. A player names either decks or a category;
+ * with decks, the category is taken from them (MIXED if they differ).
+ */
+@Getter
+@Setter
+public class MatchRequestDTO {
+
+    private Long userId;
+
+    private FlashcardCategory category;
+
+    private List<Long> deckIds;
+}
@@ -0,0 +1,26 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import ch.uzh.ifi.hase.soprafs24.constant.FlashcardCategory;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Frame on /user/queue/matchmaking, and the response of POST /quiz/match.
+ * {@code type} is "waiting" (queued, only as response), "matched" (the quiz
+ * is running), "failed" (the quiz could not be created, enqueue again) or
+ * "expired" (nobody compatible came in time).
+ */
+@Getter
+@Setter
+public class MatchmakingEventDTO {
+
+    private String type;
+
+    private FlashcardCategory category;
+
+    private Long quizId;
+
+    private Long opponentId;
+
+    private String message;
+}
@@ -0,0 +1,18 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** One player's place on a quiz leaderboard; rank 1 is the best. */
+@Getter
+@Setter
+public class PlayerRankDTO {
+
+    private Long userId;
+
+    private int rank;
+
+    private int score;
+
+    private boolean finished;
+}
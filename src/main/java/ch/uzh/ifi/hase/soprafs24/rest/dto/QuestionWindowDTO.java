@@ -0,0 +1,26 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The upcoming questions of a player, so a fast client can render the next
+ * cards without a round trip. {@code questions.get(0)} is the question at
+ * {@code fromIndex}, the one the next answer is checked against; answers are
+ * still only validated on the server. {@code imageUrls} lists the images of
+ * the window for preloading.
+ */
+@Getter
+@Setter
+public class QuestionWindowDTO {
+
+    private int fromIndex;
+
+    private int totalQuestions;
+
+    private List<QuizQuestionDTO> questions;
+
+    private List<String> imageUrls;
+}
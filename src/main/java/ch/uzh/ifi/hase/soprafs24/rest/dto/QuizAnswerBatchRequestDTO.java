@@ -0,0 +1,16 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Answers a solo player gave while offline, in the order they were given. */
+@Getter
+@Setter
+public class QuizAnswerBatchRequestDTO {
+
+    private Long userId;
+
+    private List<BatchedAnswerDTO> answers;
+}
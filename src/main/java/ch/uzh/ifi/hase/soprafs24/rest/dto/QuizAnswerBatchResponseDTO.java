@@ -0,0 +1,21 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** The player's progress after a batch of answers was applied. */
+@Getter
+@Setter
+public class QuizAnswerBatchResponseDTO {
+
+    private int applied;                // answers of the batch that were applied
+    private int ignored;                // already applied by an earlier batch, or given after the time limit
+
+    private int currentIndex;
+    private int totalQuestions;
+    private int totalCorrect;
+    private int totalAttempts;
+    private boolean finished;
+
+    private QuestionWindowDTO prefetch; // upcoming questions from currentIndex on, null if finished
+}
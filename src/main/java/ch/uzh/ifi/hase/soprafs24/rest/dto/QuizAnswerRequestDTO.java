@@ -4,6 +4,7 @@ public class QuizAnswerRequestDTO {
     private Long quizId;
     private Long flashcardId;
     private String selectedAnswer;
+    private Integer selectedOption; // index into the question's options, instead of selectedAnswer
     private Long userId;
 
     public Long getQuizId() {
@@ -24,6 +25,12 @@ public class QuizAnswerRequestDTO {
     public void setSelectedAnswer(String selectedAnswer) {
         this.selectedAnswer = selectedAnswer;
     }
+    public Integer getSelectedOption() {
+        return selectedOption;
+    }
+    public void setSelectedOption(Integer selectedOption) {
+        this.selectedOption = selectedOption;
+    }
 
     public Long getUserId() {
         return userId;
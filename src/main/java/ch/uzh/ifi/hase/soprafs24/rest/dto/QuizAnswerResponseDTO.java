@@ -3,7 +3,10 @@ package ch.uzh.ifi.hase.soprafs24.rest.dto;
 public class QuizAnswerResponseDTO {
     private boolean wasCorrect;
     private boolean isFinished;
-    private FlashcardDTO nextQuestion; // can be null if finished
+    private QuizQuestionDTO nextQuestion; // without the answer, null if finished
+    private QuestionWindowDTO prefetch; // upcoming questions from nextQuestion on, null if finished or disabled
+    private int rank;                   // the player's place after this answer, 1 = leading
+    private int players;                // number of ranked players
 
     public boolean isWasCorrect() {
         return wasCorrect;
@@ -19,11 +22,32 @@ public class QuizAnswerResponseDTO {
         isFinished = finished;
     }
 
-    public FlashcardDTO getNextQuestion() {
+    public QuizQuestionDTO getNextQuestion() {
         return nextQuestion;
     }
-    public void setNextQuestion(FlashcardDTO nextQuestion) {
+    public void setNextQuestion(QuizQuestionDTO nextQuestion) {
         this.nextQuestion = nextQuestion;
     }
 
+    public QuestionWindowDTO getPrefetch() {
+        return prefetch;
+    }
+    public void setPrefetch(QuestionWindowDTO prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+    public void setPlayers(int players) {
+        this.players = players;
+    }
+
 }
@@ -29,4 +29,5 @@ public class QuizDTO {
     private int    timeLimit;    // seconds or minutes – service defines semantics
     private String quizStatus;   // e.g. “RUNNING”, “FINISHED”
     private Boolean isMultiple;  // multiple-choice mode flag
+    private QuestionWindowDTO prefetch; // first questions of a running quiz, null otherwise
 }
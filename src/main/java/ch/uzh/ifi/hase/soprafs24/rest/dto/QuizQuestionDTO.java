@@ -0,0 +1,25 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import ch.uzh.ifi.hase.soprafs24.constant.FlashcardCategory;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A question as it may be sent ahead of time: everything the client shows,
+ * but not which option is correct. The answer and the wrong answers are
+ * mixed into {@code options}; null for cards without wrong answers.
+ */
+@Getter
+@Setter
+public class QuizQuestionDTO {
+
+    private Long id;
+
+    private String description;
+
+    private String imageUrl;
+
+    private FlashcardCategory flashcardCategory;
+
+    private String[] options;
+}
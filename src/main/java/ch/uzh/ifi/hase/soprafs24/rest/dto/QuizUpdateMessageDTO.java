@@ -1,12 +1,26 @@
 package ch.uzh.ifi.hase.soprafs24.rest.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
+/**
+ * Frame on /topic/quizUpdates/{quizId}.
+ * Frames are numbered per quiz. A snapshot lists every player; a delta only
+ * the players whose score or index changed since the previous frame, and
+ * leaves out totalQuestions. A client that sees a gap in the sequence asks
+ * for a snapshot via /app/quiz/{quizId}/snapshot. {@code leaders} is the top
+ * of the leaderboard; a delta carries it only when it changed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class QuizUpdateMessageDTO {
     private Long quizId;
     private String updateType; // e.g., "progress", "scoreUpdate", etc.
+    private long sequence;     // per quiz, +1 for every frame on the topic
+    private boolean snapshot;  // true: playerProgress is complete
     private Long totalQuestions;
     private List<PlayerProgressDTO> playerProgress;
+    private List<PlayerRankDTO> leaders;
 
     public Long getQuizId() {
         return quizId;
@@ -20,6 +34,18 @@ public class QuizUpdateMessageDTO {
     public void setUpdateType(String updateType) {
         this.updateType = updateType;
     }
+    public long getSequence() {
+        return sequence;
+    }
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
     public Long getTotalQuestions() {
         return totalQuestions;
     }
@@ -32,6 +58,12 @@ public class QuizUpdateMessageDTO {
     public void setPlayerProgress(List<PlayerProgressDTO> playerProgress) {
         this.playerProgress = playerProgress;
     }
+    public List<PlayerRankDTO> getLeaders() {
+        return leaders;
+    }
+    public void setLeaders(List<PlayerRankDTO> leaders) {
+        this.leaders = leaders;
+    }
 
     // Inner DTO to represent each player's progress
     public static class PlayerProgressDTO {
@@ -21,7 +21,6 @@ public class DeckMapper {
         dto.setIsAiGenerated(deck.getIsAiGenerated());
         dto.setAiPrompt(deck.getAiPrompt());
         dto.setFlashcards(deck.getFlashcards());
-        dto.setQuiz(deck.getQuiz());
         // Map the transient field: numberofAIcards
         dto.setNumberOfAICards(deck.getNumberOfAICards());
         return dto;
@@ -41,7 +40,6 @@ public class DeckMapper {
         deck.setIsAiGenerated(dto.getIsAiGenerated());
         deck.setAiPrompt(dto.getAiPrompt());
         deck.setFlashcards(dto.getFlashcards());
-        deck.setQuiz(dto.getQuiz());
         // Map the transient field: numberofAIcards (if provided)
         deck.setNumberOfAICards(dto.getNumberOfAICards());
         return deck;
@@ -19,7 +19,7 @@ public class InvitationMapper {
         dto.setIsAccepted(invitation.getIsAccepted());
         dto.setFromUserId(invitation.getFromUser().getId());
         dto.setToUserId(invitation.getToUser().getId());
-        dto.setQuizId(invitation.getQuiz().getId());
+        dto.setQuizId(invitation.getQuiz() != null ? invitation.getQuiz().getId() : null);   // none before createQuiz
 
         List<Long> managedDeckIds = invitation.getDecks().stream()
             .map(deck -> deck.getId())
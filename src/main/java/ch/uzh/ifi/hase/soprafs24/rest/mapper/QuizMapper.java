@@ -1,8 +1,8 @@
 package ch.uzh.ifi.hase.soprafs24.rest.mapper;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -14,6 +14,7 @@ import ch.uzh.ifi.hase.soprafs24.repository.DeckRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.QuizRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.ScoreRepository;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizDTO;
+import ch.uzh.ifi.hase.soprafs24.service.QuestionSelector;
 
 @Component
 public class QuizMapper {
@@ -23,15 +24,18 @@ public class QuizMapper {
     private final QuizRepository  quizRepository;
     private final DeckRepository  deckRepository;
     private final ScoreMapper  scoreMapper;
+    private final QuestionSelector questionSelector;
 
     public QuizMapper(ScoreRepository scoreRepository,
                       QuizRepository quizRepository,
                       DeckRepository deckRepository,
-                      ScoreMapper  scoreMapper) {
+                      ScoreMapper  scoreMapper,
+                      QuestionSelector questionSelector) {
         this.scoreRepository = scoreRepository;
         this.quizRepository  = quizRepository;
         this.deckRepository  = deckRepository;
         this.scoreMapper = scoreMapper;
+        this.questionSelector = questionSelector;
     }
 
     /* ───────────────────── DTO ↔ Entity helpers ───────────────────── */
@@ -115,24 +119,23 @@ public class QuizMapper {
         quiz.setIsMultiple(true);
         quiz.setInvitation(invitation);
 
-        /* 1 make sure decks are managed entities */
-        List<Deck> managedDecks = invitation.getDecks().stream()
-            .map(deck -> deckRepository.findById(deck.getId())
-                    .orElseThrow(() -> new RuntimeException("Deck not found: " + deck.getId())))
-            .collect(Collectors.toList());
+        /* 1 make sure decks are managed entities (one query for all of them) */
+        List<Long> invitedDeckIds = invitation.getDecks().stream().map(Deck::getId).collect(Collectors.toList());
+        List<Deck> managedDecks = deckRepository.findAllById(invitedDeckIds);
+        if (managedDecks.size() != new HashSet<>(invitedDeckIds).size()) {
+            throw new RuntimeException("Deck not found among: " + invitedDeckIds);
+        }
         quiz.setDecks(new ArrayList<>(managedDecks));
 
-        /* ── 2. Use *all* flashcards from those decks ───────────────────────────── */
-        List<Flashcard> cardPool = managedDecks.stream()
-                .flatMap(d -> d.getFlashcards().stream())
-                .collect(Collectors.toList());
+        /* ── 2. Use *all* flashcards from those decks (up to quiz.selection.max-questions), in random order ── */
+        List<Long> deckIds = managedDecks.stream().map(Deck::getId).collect(Collectors.toList());
+        long[] questionOrder = questionSelector.selectIds(deckIds, 0);
 
-        if (cardPool.isEmpty()) {
+        if (questionOrder.length == 0) {
             throw new IllegalStateException("Invited decks contain no flashcards.");
         }
 
-        Collections.shuffle(cardPool);                  // randomise order
-        quiz.setSelectedFlashcards(new ArrayList<>(cardPool));   // ← keep them all
+        quiz.setQuestionOrder(questionOrder);
 
         /* 2️⃣  save quiz first (so scores have FK) */
         quiz = quizRepository.save(quiz);
@@ -141,7 +144,7 @@ public class QuizMapper {
         User sender   = invitation.getFromUser();
         User receiver = invitation.getToUser();
 
-        int totalQ = quiz.getSelectedFlashcards().size();
+        int totalQ = quiz.getQuestionCount();
 
         Score senderScore = new Score();
         senderScore.setUser(sender);
@@ -0,0 +1,44 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides whether a submitted answer is correct. Typed answers are compared
+ * by their {@link AnswerNormalizer} key against the card's precomputed key,
+ * optionally forgiving a few typos; a chosen option is compared by index.
+ */
+@Component
+public class AnswerMatcher {
+
+    private final int maxTypos;
+
+    /** @param maxTypos edits forgiven in typed answers, at most one per 5 characters of the answer; 0 = exact */
+    public AnswerMatcher(@Value("${quiz.answers.max-typos:0}") int maxTypos) {
+        this.maxTypos = maxTypos;
+    }
+
+    /**
+     * @param typed  the typed answer, ignored when an option was chosen
+     * @param option index into the card's shuffled options, or null
+     */
+    public boolean matches(FlashcardCache.Card card, String typed, Integer option) {
+        if (option != null) {
+            return option == card.getCorrectOption();
+        }
+        if (typed == null) {
+            return false;
+        }
+        String expected = card.getAnswerKey();
+        if (expected.isEmpty()) {
+            // an answer without letters or digits ("?!") has to be typed as is
+            return card.getAnswer().equalsIgnoreCase(typed.trim());
+        }
+        String key = AnswerNormalizer.normalize(typed);
+        return AnswerNormalizer.withinDistance(key, expected, allowedTypos(expected));
+    }
+
+    int allowedTypos(String answerKey) {
+        return Math.min(maxTypos, answerKey.length() / 5);
+    }
+}
@@ -0,0 +1,126 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.text.Normalizer;
+
+/**
+ * Canonical form of answers, so "Zürich", "zurich " and "ZURICH!" compare
+ * equal: compatibility decomposition (NFKD, which also splits ligatures and
+ * full-width forms), accents dropped, case folded, and every run of
+ * whitespace or separating punctuation collapsed to a single space.
+ * Symbols that change the answer stay in the key: math, currency and other
+ * symbols, {@code #} and {@code %}, and a minus sign in front of a number,
+ * so "C++", "C#" and "C", or "-5" and "5", stay different.
+ * A card's key is computed when the card is written; only the submitted
+ * answer is normalized on the answer path.
+ */
+public final class AnswerNormalizer {
+
+    // punctuation by Unicode category, but part of the answer rather than a separator
+    private static final String KEPT_PUNCTUATION = "#%";
+
+    private AnswerNormalizer() {}
+
+    /** @return the key of {@code text}, "" for null or text without letters, digits and symbols */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = isAscii(text) ? text : Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder key = new StringBuilder(decomposed.length());
+        boolean gap = false;
+        for (int i = 0; i < decomposed.length(); ) {
+            int cp = decomposed.codePointAt(i);
+            i += Character.charCount(cp);
+            int type = Character.getType(cp);
+            if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK) {
+                continue;                                   // accents of the previous letter
+            }
+            if (Character.isLetterOrDigit(cp) || type == Character.COMBINING_SPACING_MARK
+                    || isKeptSymbol(cp, type)
+                    || cp == '-' && (gap || key.length() == 0) && startsWithDigit(decomposed, i)) {
+                if (gap && key.length() > 0) {
+                    key.append(' ');
+                }
+                gap = false;
+                if (cp == 'ß' || cp == 'ẞ') {
+                    key.append("ss");                       // the one common full case folding
+                } else {
+                    key.appendCodePoint(Character.toLowerCase(Character.toUpperCase(cp)));
+                }
+            } else {
+                gap = true;
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Whether the Levenshtein distance of {@code a} and {@code b} is at most
+     * {@code max}. Only the diagonal band of width 2·max+1 is computed, so
+     * this is O(length·max) and gives up as soon as a row exceeds the bound.
+     */
+    public static boolean withinDistance(String a, String b, int max) {
+        if (max <= 0) {
+            return a.equals(b);
+        }
+        if (Math.abs(a.length() - b.length()) > max) {
+            return false;
+        }
+        if (a.length() > b.length()) {
+            String t = a; a = b; b = t;
+        }
+        int n = a.length();
+        int m = b.length();
+        int outside = max + 1;                               // stands for "more than max"
+        int[] prev = new int[n + 1];
+        int[] cur  = new int[n + 1];
+        for (int i = 0; i <= n; i++) {
+            prev[i] = i <= max ? i : outside;
+        }
+        for (int j = 1; j <= m; j++) {
+            int from = Math.max(1, j - max);
+            int to   = Math.min(n, j + max);
+            cur[0] = j <= max ? j : outside;
+            if (from > 1) {
+                cur[from - 1] = outside;
+            }
+            int rowMin = cur[0];
+            char bj = b.charAt(j - 1);
+            for (int i = from; i <= to; i++) {
+                int cost = a.charAt(i - 1) == bj ? 0 : 1;
+                int d = Math.min(Math.min(prev[i] + 1, cur[i - 1] + 1), prev[i - 1] + cost);
+                cur[i] = Math.min(d, outside);
+                rowMin = Math.min(rowMin, cur[i]);
+            }
+            if (to < n) {
+                cur[to + 1] = outside;
+            }
+            if (rowMin > max) {
+                return false;
+            }
+            int[] t = prev; prev = cur; cur = t;
+        }
+        return prev[n] <= max;
+    }
+
+    private static boolean isKeptSymbol(int cp, int type) {
+        return type == Character.MATH_SYMBOL
+                || type == Character.CURRENCY_SYMBOL
+                || type == Character.MODIFIER_SYMBOL
+                || type == Character.OTHER_SYMBOL
+                || KEPT_PUNCTUATION.indexOf(cp) >= 0;
+    }
+
+    private static boolean startsWithDigit(String text, int from) {
+        return from < text.length() && Character.isDigit(text.codePointAt(from));
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
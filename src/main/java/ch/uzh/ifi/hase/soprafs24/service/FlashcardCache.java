@@ -0,0 +1,223 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Flashcard;
+import ch.uzh.ifi.hase.soprafs24.repository.FlashcardRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizQuestionDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * LRU cache of the card data a quiz session needs (id, answer, question view),
+ * so sessions of quizzes over the same decks resolve their question order
+ * without loading the cards again. FlashcardService evicts changed cards.
+ * The serialized question views live in a second LRU keyed by card id and
+ * version, so serving a question is a plain byte copy.
+ */
+@Component
+public class FlashcardCache {
+
+    private final FlashcardRepository flashcardRepository;
+    private final ObjectMapper        objectMapper;
+
+    // access-ordered, guarded by themselves
+    private final LinkedHashMap<Long, Card>       cards;
+    private final LinkedHashMap<VersionKey, byte[]> questionJson;
+
+    public FlashcardCache(FlashcardRepository flashcardRepository,
+                          ObjectMapper objectMapper,
+                          @Value("${quiz.card-cache.max-entries:50000}") int maxEntries) {
+        this.flashcardRepository = flashcardRepository;
+        this.objectMapper        = objectMapper;
+        this.cards = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Card> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.questionJson = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<VersionKey, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cards of {@code ids}, in that order; misses are loaded in one query.
+     * Ids of cards deleted in the meantime are left out.
+     */
+    public List<Card> resolve(long[] ids) {
+        Card[] resolved = new Card[ids.length];
+        List<Long> missing = new ArrayList<>();
+        synchronized (cards) {
+            for (int i = 0; i < ids.length; i++) {
+                resolved[i] = cards.get(ids[i]);
+                if (resolved[i] == null) {
+                    missing.add(ids[i]);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, Card> loaded = new LinkedHashMap<>();
+            for (Flashcard f : flashcardRepository.findAllById(missing)) {
+                loaded.put(f.getId(), toCard(f));
+            }
+            synchronized (cards) {
+                cards.putAll(loaded);
+            }
+            for (int i = 0; i < ids.length; i++) {
+                if (resolved[i] == null) {
+                    resolved[i] = loaded.get(ids[i]);
+                }
+            }
+        }
+        List<Card> result = new ArrayList<>(ids.length);
+        for (Card c : resolved) {
+            if (c != null) {
+                result.add(c);
+            }
+        }
+        return result;
+    }
+
+    /** Caches cards that are already loaded anyway. */
+    public void putAll(Collection<Flashcard> flashcards) {
+        List<Card> converted = new ArrayList<>(flashcards.size());
+        for (Flashcard f : flashcards) {
+            converted.add(toCard(f));
+        }
+        synchronized (cards) {
+            converted.forEach(c -> cards.put(c.getId(), c));
+        }
+    }
+
+    /**
+     * The card's question view as JSON, serialized once per card version.
+     * The array is shared between requests and must not be modified.
+     */
+    public byte[] questionJson(Card card) {
+        VersionKey key = new VersionKey(card.getId(), card.getVersion());
+        byte[] json;
+        synchronized (questionJson) {
+            json = questionJson.get(key);
+        }
+        if (json == null) {
+            try {
+                json = objectMapper.writeValueAsBytes(card.getQuestion());
+            }
+            catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize question " + card.getId(), e);
+            }
+            synchronized (questionJson) {
+                questionJson.put(key, json);
+            }
+        }
+        return json;
+    }
+
+    public void evict(Long cardId) {
+        synchronized (cards) {
+            cards.remove(cardId);
+        }
+    }
+
+    public int size() {
+        synchronized (cards) {
+            return cards.size();
+        }
+    }
+
+    private Card toCard(Flashcard f) {
+        long version = f.getVersion() != null ? f.getVersion() : 0L;
+        String answerKey = f.getAnswerKey() != null ? f.getAnswerKey() : AnswerNormalizer.normalize(f.getAnswer());
+        QuizQuestionDTO question = toQuestion(f);
+        int correctOption = question.getOptions() != null
+                ? Arrays.asList(question.getOptions()).indexOf(f.getAnswer()) : -1;
+        return new Card(f.getId(), version, f.getAnswer(), answerKey, correctOption, question);
+    }
+
+    /**
+     * Prefetchable form of the card. The options are shuffled with the card id
+     * as seed, so every instance and every cache reload shows the same order.
+     */
+    static QuizQuestionDTO toQuestion(Flashcard f) {
+        QuizQuestionDTO q = new QuizQuestionDTO();
+        q.setId(f.getId());
+        q.setDescription(f.getDescription());
+        q.setImageUrl(f.getImageUrl());
+        q.setFlashcardCategory(f.getFlashcardCategory());
+        String[] wrong = f.getWrongAnswers();
+        if (wrong != null && wrong.length > 0) {
+            String[] options = Arrays.copyOf(wrong, wrong.length + 1);
+            options[wrong.length] = f.getAnswer();
+            SplittableRandom random = new SplittableRandom(f.getId() != null ? f.getId() : 0L);
+            for (int i = options.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                String tmp = options[i];
+                options[i] = options[j];
+                options[j] = tmp;
+            }
+            q.setOptions(options);
+        }
+        return q;
+    }
+
+    /** Immutable view of one card as the answer path uses it. */
+    public static final class Card {
+
+        private final long            id;
+        private final long            version;
+        private final String          answer;
+        private final String          answerKey;
+        private final int             correctOption;      // index into question.options, -1 without options
+        private final QuizQuestionDTO question;
+
+        Card(long id, long version, String answer, String answerKey, int correctOption,
+             QuizQuestionDTO question) {
+            this.id            = id;
+            this.version       = version;
+            this.answer        = answer;
+            this.answerKey     = answerKey;
+            this.correctOption = correctOption;
+            this.question      = question;
+        }
+
+        public long getId()                  { return id; }
+        public long getVersion()             { return version; }
+        public String getAnswer()            { return answer; }
+        public String getAnswerKey()         { return answerKey; }
+        public int getCorrectOption()        { return correctOption; }
+        public QuizQuestionDTO getQuestion() { return question; }
+    }
+
+    private static final class VersionKey {
+
+        private final long id;
+        private final long version;
+
+        VersionKey(long id, long version) {
+            this.id      = id;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof VersionKey && id == ((VersionKey) o).id && version == ((VersionKey) o).version;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id) * 31 + Long.hashCode(version);
+        }
+    }
+}
@@ -10,6 +10,8 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -18,6 +20,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import javax.transaction.Transactional;
 
@@ -30,16 +33,29 @@ public class FlashcardService {
     private final UserRepository userRepository;
     private final DeckRepository deckRepository;
     private final ChatGptService chatGptService;
+    private final FlashcardCache flashcardCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // createDeck phases: OpenAI round trip, parsing its answer, saving the deck
+    private final Timer aiHttpTimer;
+    private final Timer aiParseTimer;
+    private final Timer deckPersistTimer;
+
     public FlashcardService(FlashcardRepository flashcardRepository,
                             UserRepository userRepository,
                             DeckRepository deckRepository,
-                            ChatGptService chatGptService) {
+                            ChatGptService chatGptService,
+                            FlashcardCache flashcardCache,
+                            MeterRegistry meterRegistry) {
         this.flashcardRepository = flashcardRepository;
         this.userRepository = userRepository;
         this.deckRepository = deckRepository;
         this.chatGptService = chatGptService;
+        this.flashcardCache = flashcardCache;
+
+        this.aiHttpTimer      = meterRegistry.timer("deck.create.duration", "phase", "ai_http");
+        this.aiParseTimer     = meterRegistry.timer("deck.create.duration", "phase", "ai_parse");
+        this.deckPersistTimer = meterRegistry.timer("deck.create.duration", "phase", "persist");
 
         // Register the JavaTimeModule to properly handle Java 8 date/time types.
         objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
@@ -104,11 +120,10 @@ public class FlashcardService {
                     + " with user given instructions - " + deck.getAiPrompt() + " ";
 
             // Call ChatGPT API via ChatGptService
-            String jsonResponse = chatGptService.generateFlashcards(prompt, numberOfCards);
-            // Extract the generated text from the API response
-            String generatedJson = chatGptService.extractGeneratedText(jsonResponse);
-            // Parse the JSON response into Flashcard objects
-            List<Flashcard> flashcards = parseFlashcardsFromJson(generatedJson);
+            String jsonResponse = aiHttpTimer.record(() -> chatGptService.generateFlashcards(prompt, numberOfCards));
+            // Extract the generated text from the API response and parse it into Flashcard objects
+            List<Flashcard> flashcards = aiParseTimer.record(() ->
+                    parseFlashcardsFromJson(chatGptService.extractGeneratedText(jsonResponse)));
 
             // Assign the deck to each flashcard so that deck_id is not null
             for (Flashcard flashcard : flashcards) {
@@ -116,9 +131,14 @@ public class FlashcardService {
             }
             deck.setFlashcards(flashcards);
         }
+        if (deck.getFlashcards() != null) {
+            deck.getFlashcards().forEach(FlashcardService::indexAnswer);
+        }
 
-        deckRepository.save(deck);
-        deckRepository.flush();
+        deckPersistTimer.record(() -> {
+            deckRepository.save(deck);
+            deckRepository.flush();
+        });
 
         return deck;
     }
@@ -134,6 +154,7 @@ public class FlashcardService {
         
         for (Flashcard flashcard : flashcards) {
             flashcard.setFlashcardCategory(existingDeck.getDeckCategory());
+            flashcardCache.evict(flashcard.getId());
         }
 
         flashcardRepository.saveAll(flashcards);
@@ -146,6 +167,12 @@ public class FlashcardService {
         if (!deckRepository.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Deck not found");
         }
+        // question_order has no FK: sessions opened later must not resolve the deleted cards from the cache
+        try (Stream<Long> cardIds = flashcardRepository.streamIdsByDeckId(id)) {
+            cardIds.forEach(flashcardCache::evict);
+        }
+        deckRepository.unlinkFromQuizzes(id);
+        deckRepository.unlinkFromInvitations(id);
         deckRepository.deleteById(id);
         deckRepository.flush();
     }
@@ -166,11 +193,17 @@ public class FlashcardService {
         flashcard.setDeck(deck);
         flashcard.setFlashcardCategory(deck.getDeckCategory());
         checkIfAnswerIsDuplicated(flashcard);
+        indexAnswer(flashcard);
         flashcardRepository.save(flashcard);
         flashcardRepository.flush();;
         return flashcard; 
     }
     
+    /** Precomputes the key typed answers are matched against (see {@link AnswerNormalizer}). */
+    private static void indexAnswer(Flashcard flashcard) {
+        flashcard.setAnswerKey(AnswerNormalizer.normalize(flashcard.getAnswer()));
+    }
+
     private void checkIfAnswerIsDuplicated(Flashcard flashcardToBeChecked) {
         String correctAnswer = flashcardToBeChecked.getAnswer();
         String[] wrongAnswers = flashcardToBeChecked.getWrongAnswers();
@@ -210,9 +243,11 @@ public class FlashcardService {
             }
 
             checkIfAnswerIsDuplicated(existingFlashcard);
+            indexAnswer(existingFlashcard);
 
             flashcardRepository.save(existingFlashcard);
             flashcardRepository.flush();
+            flashcardCache.evict(flashcardId);
         } else {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,"Flashcard not found");
         }
@@ -224,6 +259,7 @@ public class FlashcardService {
 
         flashcardRepository.delete(flashcard);  // Use `delete()` instead of `deleteById()` for consistency with your test
         flashcardRepository.flush();
+        flashcardCache.evict(flashcardId);
     }
 
     public void removeImageFromFlashcard(String imageUrl) {
@@ -232,6 +268,7 @@ public class FlashcardService {
             flashcard.setImageUrl(null);  // Remove the image URL from the flashcard
             flashcardRepository.save(flashcard);  // Save the updated flashcard
             flashcardRepository.flush();
+            flashcardCache.evict(flashcard.getId());
         }
     }
 
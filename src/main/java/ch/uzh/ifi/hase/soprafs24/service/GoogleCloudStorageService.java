@@ -4,6 +4,9 @@ import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 import org.springframework.stereotype.Service;
 
@@ -13,22 +16,50 @@ public class GoogleCloudStorageService {
     private final Storage storage;
     private final String bucketName = "memory-deck-storage"; // Replace with your actual bucket name
 
-    public GoogleCloudStorageService(Storage storage) {
+    private final Timer               uploadTimer;
+    private final Timer               downloadTimer;
+    private final DistributionSummary uploadBytes;
+    private final DistributionSummary downloadBytes;
+
+    public GoogleCloudStorageService(Storage storage, MeterRegistry meterRegistry) {
         this.storage = storage;
+        this.uploadTimer   = meterRegistry.timer("gcs.latency", "operation", "upload");
+        this.downloadTimer = meterRegistry.timer("gcs.latency", "operation", "download");
+        this.uploadBytes   = DistributionSummary.builder("gcs.bytes").tag("operation", "upload")
+                .baseUnit("bytes").register(meterRegistry);
+        this.downloadBytes = DistributionSummary.builder("gcs.bytes").tag("operation", "download")
+                .baseUnit("bytes").register(meterRegistry);
     }
 
     // Method to get file from bucket by filename
     public Blob getFileFromBucket(String filename) {
         String bucketName = "memory-deck-storage";  // Use your bucket name
         BlobId blobId = BlobId.of(bucketName, filename);  // Specify the bucket and file name
-        return storage.get(blobId);  // Return the Blob (which contains the file data)
+        return storage.get(blobId);  // metadata only, the bytes are read with getContent()
+    }
+
+    /**
+     * Reads a whole file; the download timer covers the metadata call and the
+     * content read, gcs.bytes records what was actually read.
+     * @return null if the file does not exist
+     */
+    public StoredFile downloadFile(String filename) {
+        StoredFile file = downloadTimer.record(() -> {
+            Blob blob = getFileFromBucket(filename);
+            return blob == null ? null : new StoredFile(blob.getContent(), blob.getContentType());
+        });
+        if (file != null) {
+            downloadBytes.record(file.getContent().length);
+        }
+        return file;
     }
 
     public String uploadFile(byte[] fileBytes, String fileName) {
         BlobId blobId = BlobId.of(bucketName, fileName);
         BlobInfo blobInfo = BlobInfo.newBuilder(blobId).build();
 
-        storage.create(blobInfo, fileBytes);
+        uploadTimer.record(() -> storage.create(blobInfo, fileBytes));
+        uploadBytes.record(fileBytes.length);
 
         // Optional: Generate a public URL if the file is publicly accessible
         return String.format("https://storage.googleapis.com/%s/%s", bucketName, fileName);
@@ -56,5 +87,20 @@ public class GoogleCloudStorageService {
         return url.substring(url.lastIndexOf("/") + 1);
     }
 
+    /** Content and content type of a downloaded file. */
+    public static final class StoredFile {
+
+        private final byte[] content;
+        private final String contentType;
+
+        public StoredFile(byte[] content, String contentType) {
+            this.content     = content;
+            this.contentType = contentType;
+        }
+
+        public byte[] getContent()     { return content; }
+        public String getContentType() { return contentType; }
+    }
+
 }
 
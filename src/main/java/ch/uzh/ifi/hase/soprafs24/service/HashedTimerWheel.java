@@ -0,0 +1,213 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Hashed timing wheel: O(1) schedule and cancel, however many timeouts are
+ * pending. One worker thread advances one bucket per tick and hands expired
+ * tasks to {@code dispatcher}; a timeout fires at most one tick late.
+ * Timeouts further away than one revolution wait out their remaining rounds
+ * in their bucket. Cancelled timeouts are dropped lazily when their bucket
+ * comes round.
+ */
+public class HashedTimerWheel {
+
+    private final Logger log = LoggerFactory.getLogger(HashedTimerWheel.class);
+
+    // upper bound of newly scheduled timeouts moved into the wheel per tick
+    private static final int MAX_TRANSFER_PER_TICK = 100_000;
+
+    private final long                  tickNanos;
+    private final ArrayList<Timeout>[]  wheel;
+    private final int                   mask;
+    private final Executor              dispatcher;
+    private final Thread                worker;
+
+    // scheduled from any thread, moved into the wheel by the worker only
+    private final Queue<Timeout>  incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger   pending  = new AtomicInteger();
+
+    private volatile boolean running;
+    private volatile long    startNanos;
+    private long             tick;           // worker thread only
+
+    /**
+     * @param tickMillis resolution of the wheel
+     * @param wheelSize  number of buckets, rounded up to a power of two
+     * @param dispatcher runs expired tasks, so a slow task never delays the wheel
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HashedTimerWheel(String name, long tickMillis, int wheelSize, Executor dispatcher) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickNanos  = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel      = new ArrayList[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.mask       = size - 1;
+        this.dispatcher = dispatcher;
+        this.worker     = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        startNanos = System.nanoTime();
+        running = true;
+        worker.start();
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /** Runs {@code task} on the dispatcher once {@code delayMillis} have passed. */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout t = new Timeout(task,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)), pending);
+        pending.incrementAndGet();
+        incoming.add(t);
+        return t;
+    }
+
+    /** Timeouts scheduled and neither fired nor cancelled yet. */
+    public int getPending() {
+        return pending.get();
+    }
+
+    public int getWheelSize() {
+        return wheel.length;
+    }
+
+    /* ───────────── worker thread ───────────── */
+
+    private void run() {
+        while (running) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            transferIncoming();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            Timeout t = incoming.poll();
+            if (t == null) {
+                return;
+            }
+            if (t.state != Timeout.PENDING) {
+                continue;
+            }
+            long calculated = (t.deadlineNanos - startNanos) / tickNanos;
+            t.remainingRounds = Math.max(0, (calculated - tick) / wheel.length);
+            // already overdue: the current bucket, which is expired right after this
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(t);
+        }
+    }
+
+    private void expire(ArrayList<Timeout> bucket) {
+        int i = 0;
+        while (i < bucket.size()) {
+            Timeout t = bucket.get(i);
+            boolean remove;
+            if (t.state != Timeout.PENDING) {
+                remove = true;
+            } else if (t.remainingRounds <= 0) {
+                remove = true;
+                fire(t);
+            } else {
+                t.remainingRounds--;
+                remove = false;
+            }
+            if (remove) {
+                // swap-remove: order inside a bucket does not matter
+                int last = bucket.size() - 1;
+                bucket.set(i, bucket.get(last));
+                bucket.remove(last);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void fire(Timeout t) {
+        if (!Timeout.STATE.compareAndSet(t, Timeout.PENDING, Timeout.EXPIRED)) {
+            return;
+        }
+        pending.decrementAndGet();
+        try {
+            dispatcher.execute(t.task);
+        } catch (RuntimeException e) {
+            log.error("Could not dispatch expired timeout", e);
+        }
+    }
+
+    /* ───────────── handle ───────────── */
+
+    public static final class Timeout {
+
+        static final int PENDING   = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED   = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final Runnable      task;
+        private final long          deadlineNanos;
+        private final AtomicInteger pending;        // the owning wheel's counter
+        private volatile int        state = PENDING;
+        private long                remainingRounds;    // worker thread only
+
+        private Timeout(Runnable task, long deadlineNanos, AtomicInteger pending) {
+            this.task          = task;
+            this.deadlineNanos = deadlineNanos;
+            this.pending       = pending;
+        }
+
+        /** @return true if the task had not fired yet and now never will. */
+        public boolean cancel() {
+            if (STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+}
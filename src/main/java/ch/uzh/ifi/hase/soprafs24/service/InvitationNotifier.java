@@ -0,0 +1,192 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Invitation;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.InvitationEventDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.InvitationEventsDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.mapper.InvitationMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes invitation changes to /user/{userId}/queue/invitations, replacing the
+ * polling of the invitation lists. The last {@code bufferSize} events of each
+ * user are kept for GET /quiz/invitation/events, so a client that reconnects
+ * fetches what it missed instead of reloading its lists.
+ * Events are sent after commit; a rolled back change is never announced.
+ */
+@Component
+public class InvitationNotifier {
+
+    private final Logger log = LoggerFactory.getLogger(InvitationNotifier.class);
+
+    public static final String QUEUE     = "/queue/invitations";
+
+    public static final String CREATED   = "created";
+    public static final String ACCEPTED  = "accepted";
+    public static final String REJECTED  = "rejected";
+    public static final String CANCELLED = "cancelled";
+    public static final String EXPIRED   = "expired";
+
+    private final QuizFanout       fanout;
+    private final InvitationMapper invitationMapper;
+    private final int              bufferSize;
+    private final long             retentionMillis;
+
+    // seeded from the clock, so a client's cursor from before a restart is older than every new event
+    private final AtomicLong sequence;
+    // events up to here may be gone: dropped with an idle mailbox, or issued before this start
+    private volatile long    sweptUpTo;
+
+    private final ConcurrentHashMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public InvitationNotifier(QuizFanout fanout,
+                              InvitationMapper invitationMapper,
+                              @Value("${invitations.events.buffer-size:32}") int bufferSize,
+                              @Value("${invitations.events.retention-ms:600000}") long retentionMillis) {
+        this.fanout           = fanout;
+        this.invitationMapper = invitationMapper;
+        this.bufferSize       = Math.max(1, bufferSize);
+        this.retentionMillis  = retentionMillis;
+        this.sequence         = new AtomicLong(System.currentTimeMillis() * 1000);
+        this.sweptUpTo        = sequence.get();
+    }
+
+    /* ───────────── called from the invitation flow ───────────── */
+
+    public void invitationCreated(Invitation inv) {
+        notify(inv.getToUser().getId(), CREATED, inv);
+    }
+
+    public void invitationAccepted(Invitation inv) {
+        notify(inv.getFromUser().getId(), ACCEPTED, inv);
+    }
+
+    public void invitationRejected(Invitation inv) {
+        notify(inv.getFromUser().getId(), REJECTED, inv);
+    }
+
+    public void invitationCancelled(Invitation inv) {
+        notify(inv.getToUser().getId(), CANCELLED, inv);
+    }
+
+    /** Unanswered for too long; both sides are told. */
+    public void invitationExpired(Invitation inv) {
+        notify(inv.getFromUser().getId(), EXPIRED, inv);
+        notify(inv.getToUser().getId(), EXPIRED, inv);
+    }
+
+    /* ───────────── catch-up ───────────── */
+
+    /**
+     * Buffered events of the user with a sequence above {@code after}.
+     * The returned {@code latestSequence} is the global cursor, so it may be
+     * past the user's own last event.
+     */
+    public InvitationEventsDTO eventsSince(Long userId, long after) {
+        long cursor = sequence.get();               // read first: every event up to it is in its mailbox already
+        Mailbox mailbox = mailboxes.computeIfAbsent(userId, id -> new Mailbox(sweptUpTo));
+        List<InvitationEventDTO> events = new ArrayList<>();
+        long horizon = mailbox.collect(after, events);
+        long latest = cursor;
+        for (InvitationEventDTO e : events) {
+            latest = Math.max(latest, e.getSequence());
+        }
+        InvitationEventsDTO dto = new InvitationEventsDTO();
+        dto.setLatestSequence(latest);
+        dto.setComplete(after >= horizon);
+        dto.setEvents(events);
+        return dto;
+    }
+
+    /** Drops the mailboxes of users without events in the retention period. */
+    @Scheduled(fixedDelayString = "${invitations.events.sweep-interval-ms:60000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        for (Map.Entry<Long, Mailbox> e : mailboxes.entrySet()) {
+            if (e.getValue().lastEventMillis < cutoff) {
+                mailboxes.computeIfPresent(e.getKey(), (id, m) -> {
+                    if (m.lastEventMillis >= cutoff) {
+                        return m;
+                    }
+                    sweptUpTo = Math.max(sweptUpTo, m.lastSequence);
+                    return null;
+                });
+            }
+        }
+    }
+
+    public int getMailboxes() {
+        return mailboxes.size();
+    }
+
+    /* ───────────── internals ───────────── */
+
+    private void notify(Long userId, String type, Invitation inv) {
+        if (userId == null) {
+            return;
+        }
+        // built now: the invitation may be deleted, and its decks unreachable, once the transaction ends
+        InvitationEventDTO event = new InvitationEventDTO();
+        event.setType(type);
+        event.setInvitationId(inv.getId());
+        event.setInvitation(invitationMapper.toDTO(inv));
+        TransactionHooks.afterCommit(() -> {
+            mailboxes.compute(userId, (id, m) -> {
+                Mailbox mailbox = m != null ? m : new Mailbox(sweptUpTo);
+                mailbox.append(event, sequence, bufferSize);
+                return mailbox;
+            });
+            try {
+                fanout.publish("/user/" + userId + QUEUE, event, Map.of());
+            } catch (RuntimeException e) {
+                // the event stays buffered; the client gets it with its next catch-up
+                log.warn("Pushing invitation event {} to user {} failed", event.getSequence(), userId, e);
+            }
+        });
+    }
+
+    /** Ring of the latest events of one user. */
+    private static final class Mailbox {
+
+        private final ArrayDeque<InvitationEventDTO> events = new ArrayDeque<>();
+        private long droppedUpTo;               // highest sequence no longer in the ring
+        private volatile long lastSequence;
+        private volatile long lastEventMillis = System.currentTimeMillis();
+
+        Mailbox(long droppedUpTo) {
+            this.droppedUpTo  = droppedUpTo;
+            this.lastSequence = droppedUpTo;
+        }
+
+        /** Numbers the event under the lock, so the sequence order is the ring order. */
+        synchronized void append(InvitationEventDTO event, AtomicLong sequence, int capacity) {
+            event.setSequence(sequence.incrementAndGet());
+            if (events.size() == capacity) {
+                droppedUpTo = events.removeFirst().getSequence();
+            }
+            events.addLast(event);
+            lastSequence    = event.getSequence();
+            lastEventMillis = System.currentTimeMillis();
+        }
+
+        /** @return the sequence up to which events may be missing from the ring */
+        synchronized long collect(long after, List<InvitationEventDTO> out) {
+            for (InvitationEventDTO e : events) {
+                if (e.getSequence() > after) {
+                    out.add(e);
+                }
+            }
+            return droppedUpTo;
+        }
+    }
+}
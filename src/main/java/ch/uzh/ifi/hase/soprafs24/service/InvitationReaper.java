@@ -0,0 +1,54 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Expires invitations nobody answered within {@code invitations.ttl-ms},
+ * so abandoned ones do not pile up with their waiting quizzes. Each run
+ * removes batches of {@code invitations.reaper.batch-size} until none is left.
+ */
+@Component
+public class InvitationReaper {
+
+    private final Logger log = LoggerFactory.getLogger(InvitationReaper.class);
+
+    private final QuizService quizService;
+    private final long        ttlMillis;
+    private final int         batchSize;
+
+    public InvitationReaper(QuizService quizService,
+                            @Value("${invitations.ttl-ms:600000}") long ttlMillis,
+                            @Value("${invitations.reaper.batch-size:500}") int batchSize) {
+        this.quizService = quizService;
+        this.ttlMillis   = ttlMillis;
+        this.batchSize   = Math.max(1, batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${invitations.reaper.interval-ms:60000}")
+    public void reapExpired() {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        int expired = reap(new Date(System.currentTimeMillis() - ttlMillis));
+        if (expired > 0) {
+            log.debug("Expired {} unanswered invitations", expired);
+        }
+    }
+
+    /** Expires everything created before {@code cutoff}. */
+    int reap(Date cutoff) {
+        int total = 0;
+        int batch;
+        do {
+            batch = quizService.expireInvitations(cutoff, batchSize);
+            total += batch;
+        } while (batch == batchSize);
+        return total;
+    }
+}
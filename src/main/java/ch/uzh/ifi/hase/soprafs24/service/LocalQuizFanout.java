@@ -0,0 +1,25 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Sends through this instance's broker (simple broker: this JVM only,
+ * broker relay: all instances).
+ */
+@Component
+public class LocalQuizFanout implements QuizFanout {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public LocalQuizFanout(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @Override
+    public void publish(String destination, Object payload, Map<String, Object> headers) {
+        messagingTemplate.convertAndSend(destination, payload, headers);
+    }
+}
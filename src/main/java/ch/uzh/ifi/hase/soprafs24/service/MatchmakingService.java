@@ -0,0 +1,352 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.FlashcardCategory;
+import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
+import ch.uzh.ifi.hase.soprafs24.entity.Deck;
+import ch.uzh.ifi.hase.soprafs24.entity.Quiz;
+import ch.uzh.ifi.hase.soprafs24.repository.DeckRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.MatchRequestDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.MatchmakingEventDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Quick matches: a player enqueues with decks or a category and is paired
+ * with the longest waiting player of the same category, then both get the
+ * running quiz on /user/{userId}/queue/matchmaking. No invitation is created.
+ * <p>
+ * One lock-free FIFO queue per {@link FlashcardCategory}. Whoever enqueues
+ * drains the queue, but only one thread at a time per category: the others
+ * count themselves in and leave, and the draining thread goes round again
+ * for them. Tickets are claimed with a CAS, so a cancel racing with a match
+ * is decided exactly once. The quizzes are created after draining, outside
+ * of the queue, each in its own transaction.
+ */
+@Service
+public class MatchmakingService {
+
+    private final Logger log = LoggerFactory.getLogger(MatchmakingService.class);
+
+    public static final String QUEUE   = "/queue/matchmaking";
+
+    public static final String WAITING = "waiting";
+    public static final String MATCHED = "matched";
+    public static final String FAILED  = "failed";
+    public static final String EXPIRED = "expired";
+
+    private final QuizService      quizService;
+    private final UserService      userService;
+    private final DeckRepository   deckRepository;
+    private final PresenceRegistry presence;
+    private final QuizFanout       fanout;
+    private final int              timeLimit;
+    private final int              numberOfQuestions;
+    private final int              maxDecks;
+    private final long             maxWaitMillis;
+
+    private final Map<FlashcardCategory, Bucket> buckets = new EnumMap<>(FlashcardCategory.class);
+    private final ConcurrentHashMap<Long, Ticket> waiting = new ConcurrentHashMap<>();   // user → open ticket
+
+    public MatchmakingService(QuizService quizService,
+                              UserService userService,
+                              DeckRepository deckRepository,
+                              PresenceRegistry presence,
+                              QuizFanout fanout,
+                              @Value("${matchmaking.time-limit:300}") int timeLimit,
+                              @Value("${matchmaking.questions:10}") int numberOfQuestions,
+                              @Value("${matchmaking.max-decks:5}") int maxDecks,
+                              @Value("${matchmaking.max-wait-ms:120000}") long maxWaitMillis) {
+        this.quizService       = quizService;
+        this.userService       = userService;
+        this.deckRepository    = deckRepository;
+        this.presence          = presence;
+        this.fanout            = fanout;
+        this.timeLimit         = timeLimit;
+        this.numberOfQuestions = numberOfQuestions;
+        this.maxDecks          = Math.max(1, maxDecks);
+        this.maxWaitMillis     = maxWaitMillis;
+        for (FlashcardCategory category : FlashcardCategory.values()) {
+            buckets.put(category, new Bucket());      // never changed afterwards, so read without locking
+        }
+    }
+
+    /* ───────────── called from the controller ───────────── */
+
+    /**
+     * Queues the player and matches whoever can be matched in the category.
+     * @return "matched" if this call already paired the player, else "waiting"
+     */
+    public MatchmakingEventDTO enqueue(MatchRequestDTO req) {
+        if (req.getUserId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required fields");
+        }
+        quizService.ensureInvitable(userService.getUserById(req.getUserId()));
+
+        List<Long> deckIds = req.getDeckIds() == null ? List.of()
+                : new ArrayList<>(new LinkedHashSet<>(req.getDeckIds()));
+        FlashcardCategory category = deckIds.isEmpty() ? req.getCategory() : categoryOf(deckIds, req.getCategory());
+        if (category == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A category or at least one deck must be selected.");
+        }
+
+        Ticket ticket = new Ticket(req.getUserId(), category, deckIds);
+        if (waiting.putIfAbsent(ticket.userId, ticket) != null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Already waiting for a match.");
+        }
+        Bucket bucket = buckets.get(category);
+        bucket.queue.offer(ticket);
+
+        MatchmakingEventDTO response = null;
+        for (Ticket[] pair : drain(bucket)) {
+            MatchmakingEventDTO[] events = start(pair);
+            for (int i = 0; i < pair.length; i++) {
+                if (pair[i] == ticket) {
+                    response = events[i];
+                }
+            }
+        }
+        return response != null ? response : event(WAITING, category);
+    }
+
+    public void cancel(Long userId) {
+        Ticket ticket = waiting.get(userId);
+        if (ticket == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Not waiting for a match.");
+        }
+        if (!ticket.cancel()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Already matched.");
+        }
+        waiting.remove(userId, ticket);      // the queue drops the ticket with its next drain
+    }
+
+    public int getWaiting() {
+        return waiting.size();
+    }
+
+    /* ───────────── housekeeping ───────────── */
+
+    /**
+     * Expires tickets older than {@code matchmaking.max-wait-ms} and drains
+     * every category, which also purges cancelled tickets nobody drained.
+     */
+    @Scheduled(fixedDelayString = "${matchmaking.sweep-interval-ms:10000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - maxWaitMillis;
+        for (Ticket ticket : waiting.values()) {
+            if (ticket.enqueuedAt < cutoff && ticket.cancel()) {
+                waiting.remove(ticket.userId, ticket);
+                send(ticket.userId, event(EXPIRED, ticket.category));
+            }
+        }
+        for (Bucket bucket : buckets.values()) {
+            drain(bucket).forEach(this::start);
+        }
+    }
+
+    /* ───────────── internals ───────────── */
+
+    /**
+     * Pairs the waiting tickets of the bucket in FIFO order. Runs on one thread
+     * per bucket at a time; a caller finding another thread at it returns at once.
+     */
+    private List<Ticket[]> drain(Bucket bucket) {
+        List<Ticket[]> pairs = new ArrayList<>();
+        if (bucket.wip.getAndIncrement() != 0) {
+            return pairs;                            // the running drain picks up our ticket
+        }
+        int missed = 1;
+        do {
+            Ticket next;
+            while ((next = bucket.queue.poll()) != null) {
+                if (!isAvailable(next)) {
+                    continue;
+                }
+                Ticket head = bucket.head;
+                if (head == null || !isAvailable(head)) {
+                    bucket.head = next;              // oldest one waiting, kept outside the queue
+                    continue;
+                }
+                if (!head.claim()) {
+                    bucket.head = next;
+                    continue;
+                }
+                if (!next.confirm()) {
+                    head.release();                  // next was cancelled meanwhile, head keeps waiting
+                    continue;
+                }
+                head.matched();
+                bucket.head = null;
+                pairs.add(new Ticket[] { head, next });
+            }
+            missed = bucket.wip.addAndGet(-missed);
+        } while (missed != 0);
+        return pairs;
+    }
+
+    /** Waiting, and neither gone offline nor in another quiz since enqueueing. */
+    private boolean isAvailable(Ticket ticket) {
+        if (ticket.state.get() != State.WAITING) {
+            return false;
+        }
+        UserStatus status = presence.getStatus(ticket.userId, null);
+        if (status == UserStatus.OFFLINE || status == UserStatus.PLAYING) {
+            if (ticket.cancel()) {
+                waiting.remove(ticket.userId, ticket);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /** Creates the quiz of a pair and tells both players. */
+    private MatchmakingEventDTO[] start(Ticket[] pair) {
+        List<Long> userIds = new ArrayList<>(pair.length);
+        LinkedHashSet<Long> deckIds = new LinkedHashSet<>();
+        for (Ticket ticket : pair) {
+            waiting.remove(ticket.userId, ticket);
+            userIds.add(ticket.userId);
+            deckIds.addAll(ticket.deckIds);
+        }
+        FlashcardCategory category = pair[0].category;
+
+        MatchmakingEventDTO[] events = new MatchmakingEventDTO[pair.length];
+        try {
+            Quiz quiz = quizService.createMatchedQuiz(userIds,
+                    deckIds.isEmpty() ? publicDecks(category) : new ArrayList<>(deckIds),
+                    timeLimit, numberOfQuestions);
+            for (int i = 0; i < pair.length; i++) {
+                events[i] = event(MATCHED, category);
+                events[i].setQuizId(quiz.getId());
+                events[i].setOpponentId(pair[(i + 1) % pair.length].userId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Creating the quiz of the match {} in {} failed", userIds, category, e);
+            for (int i = 0; i < pair.length; i++) {
+                presence.setStatus(pair[i].userId, UserStatus.ONLINE);
+                events[i] = event(FAILED, category);
+                events[i].setMessage(e instanceof ResponseStatusException
+                        ? ((ResponseStatusException) e).getReason() : "The quiz could not be created.");
+            }
+        }
+        for (int i = 0; i < pair.length; i++) {
+            send(pair[i].userId, events[i]);
+        }
+        return events;
+    }
+
+    /** Up to {@code matchmaking.max-decks} public decks of the category, picked at random. */
+    private List<Long> publicDecks(FlashcardCategory category) {
+        List<Long> ids = new ArrayList<>(category == FlashcardCategory.MIXED
+                ? deckRepository.findPublicIds()
+                : deckRepository.findPublicIdsByCategory(category));
+        Collections.shuffle(ids);
+        return new ArrayList<>(ids.subList(0, Math.min(ids.size(), maxDecks)));
+    }
+
+    /** The common category of the decks, MIXED if they differ. */
+    private FlashcardCategory categoryOf(List<Long> deckIds, FlashcardCategory requested) {
+        List<Deck> decks = deckRepository.findAllById(deckIds);
+        if (decks.size() != deckIds.size()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Deck not found among: " + deckIds);
+        }
+        FlashcardCategory category = null;
+        for (Deck deck : decks) {
+            category = category == null || category == deck.getDeckCategory()
+                    ? deck.getDeckCategory() : FlashcardCategory.MIXED;
+        }
+        if (requested != null && requested != category) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "The selected decks are " + category + ", not " + requested + ".");
+        }
+        return category;
+    }
+
+    private void send(Long userId, MatchmakingEventDTO event) {
+        try {
+            fanout.publish("/user/" + userId + QUEUE, event, Map.of());
+        } catch (RuntimeException e) {
+            log.warn("Pushing the matchmaking event {} to user {} failed", event.getType(), userId, e);
+        }
+    }
+
+    private static MatchmakingEventDTO event(String type, FlashcardCategory category) {
+        MatchmakingEventDTO event = new MatchmakingEventDTO();
+        event.setType(type);
+        event.setCategory(category);
+        return event;
+    }
+
+    private enum State { WAITING, CLAIMED, MATCHED, CANCELLED }
+
+    /** The waiting tickets of one category. */
+    private static final class Bucket {
+
+        final ConcurrentLinkedQueue<Ticket> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger wip = new AtomicInteger();       // drain requests; > 0 while a thread drains
+        Ticket head;                                         // only touched by the draining thread
+    }
+
+    private static final class Ticket {
+
+        final Long              userId;
+        final FlashcardCategory category;
+        final List<Long>        deckIds;
+        final long              enqueuedAt = System.currentTimeMillis();
+        final AtomicReference<State> state = new AtomicReference<>(State.WAITING);
+
+        Ticket(Long userId, FlashcardCategory category, List<Long> deckIds) {
+            this.userId   = userId;
+            this.category = category;
+            this.deckIds  = deckIds;
+        }
+
+        /** Reserves the older ticket of a pair until the younger one is confirmed. */
+        boolean claim() {
+            return state.compareAndSet(State.WAITING, State.CLAIMED);
+        }
+
+        boolean confirm() {
+            return state.compareAndSet(State.WAITING, State.MATCHED);
+        }
+
+        void matched() {
+            state.set(State.MATCHED);
+        }
+
+        void release() {
+            state.set(State.WAITING);
+        }
+
+        /** False once matched; waits out the short window in which the ticket is reserved. */
+        boolean cancel() {
+            while (true) {
+                State s = state.get();
+                if (s == State.WAITING) {
+                    if (state.compareAndSet(State.WAITING, State.CANCELLED)) {
+                        return true;
+                    }
+                } else if (s == State.CLAIMED) {
+                    Thread.onSpinWait();
+                } else {
+                    return false;
+                }
+            }
+        }
+    }
+}
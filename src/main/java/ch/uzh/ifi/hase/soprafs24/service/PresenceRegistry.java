@@ -0,0 +1,195 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
+import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Who is online and who is playing, kept in memory. Fed by the STOMP session
+ * lifecycle (see PresenceListener) and by login, logout and the quiz flow,
+ * and the source of truth for status checks. The user table follows behind:
+ * changed statuses are written in one bulk update per status and flush
+ * interval. A user whose last STOMP session closed, cleanly or because the
+ * broker missed its heartbeats, goes OFFLINE after a grace period that
+ * covers page reloads.
+ */
+@Component
+public class PresenceRegistry {
+
+    private final Logger log = LoggerFactory.getLogger(PresenceRegistry.class);
+
+    private final ConcurrentHashMap<Long, Presence>     users    = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long>       sessions = new ConcurrentHashMap<>();  // STOMP session → user
+    private final ConcurrentHashMap<Long, UserStatus>   dirty    = new ConcurrentHashMap<>();  // not written yet
+
+    private final UserRepository      userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long                offlineGraceMillis;
+
+    public PresenceRegistry(UserRepository userRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${presence.offline-grace-ms:5000}") long offlineGraceMillis) {
+        this.userRepository      = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.offlineGraceMillis  = offlineGraceMillis;
+    }
+
+    /* ───────────── STOMP session lifecycle ───────────── */
+
+    public void sessionConnected(String sessionId, Long userId) {
+        if (sessions.put(sessionId, userId) != null) {
+            return;
+        }
+        users.compute(userId, (id, p) -> {
+            Presence next = p != null ? p : new Presence(UserStatus.OFFLINE);
+            next.sessions++;
+            next.disconnectedAt = 0L;
+            if (next.status == UserStatus.OFFLINE) {
+                next.status = UserStatus.ONLINE;
+                dirty.put(id, UserStatus.ONLINE);
+            }
+            return next;
+        });
+    }
+
+    public void sessionDisconnected(String sessionId) {
+        Long userId = sessions.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+        users.computeIfPresent(userId, (id, p) -> {
+            p.sessions = Math.max(0, p.sessions - 1);
+            if (p.sessions == 0) {
+                p.disconnectedAt = System.currentTimeMillis();
+            }
+            return p;
+        });
+    }
+
+    /* ───────────── status ───────────── */
+
+    /** @param stored the status from the user table, used for users the registry has not seen yet */
+    public UserStatus getStatus(Long userId, UserStatus stored) {
+        Presence p = userId != null ? users.get(userId) : null;
+        return p != null ? p.status : stored;
+    }
+
+    /** Changes the status now; the user table follows with the next flush. */
+    public void setStatus(Long userId, UserStatus status) {
+        if (userId == null) {
+            return;
+        }
+        users.compute(userId, (id, p) -> {
+            Presence next = p != null ? p : new Presence(status);
+            next.status = status;
+            dirty.put(id, status);
+            return next;
+        });
+    }
+
+    /** For statuses the caller writes itself, together with other columns (login, logout, sign-up). */
+    public void record(Long userId, UserStatus status) {
+        if (userId == null) {
+            return;
+        }
+        users.compute(userId, (id, p) -> {
+            Presence next = p != null ? p : new Presence(status);
+            next.status = status;
+            dirty.remove(id);
+            return next;
+        });
+    }
+
+    public int getConnectedUsers() {
+        int connected = 0;
+        for (Presence p : users.values()) {
+            if (p.sessions > 0) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    public int getPendingWrites() {
+        return dirty.size();
+    }
+
+    /* ───────────── grace period and write-behind ───────────── */
+
+    @Scheduled(fixedDelayString = "${presence.flush-interval-ms:1000}")
+    public void flush() {
+        expireDisconnected(System.currentTimeMillis());
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<UserStatus, List<Long>> byStatus = new EnumMap<>(UserStatus.class);
+        for (Long userId : new ArrayList<>(dirty.keySet())) {
+            UserStatus status = dirty.remove(userId);
+            if (status != null) {
+                byStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(userId);
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx ->
+                    byStatus.forEach((status, ids) -> userRepository.updateStatus(status, ids)));
+        } catch (RuntimeException e) {
+            log.error("Writing {} presence changes failed, retrying with the next flush", byStatus.size(), e);
+            byStatus.forEach((status, ids) -> ids.forEach(id -> dirty.putIfAbsent(id, status)));
+            return;
+        }
+        // offline users without sessions are in the table now and need no memory
+        List<Long> offline = byStatus.getOrDefault(UserStatus.OFFLINE, List.of());
+        for (Long userId : offline) {
+            users.computeIfPresent(userId, (id, p) ->
+                    p.status == UserStatus.OFFLINE && p.sessions == 0 && !dirty.containsKey(id) ? null : p);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void expireDisconnected(long now) {
+        for (Map.Entry<Long, Presence> e : users.entrySet()) {
+            Presence p = e.getValue();
+            if (p.sessions == 0 && p.disconnectedAt > 0 && now - p.disconnectedAt >= offlineGraceMillis) {
+                users.computeIfPresent(e.getKey(), (id, q) -> {
+                    if (q.sessions == 0 && q.disconnectedAt > 0) {
+                        q.disconnectedAt = 0L;
+                        if (q.status != UserStatus.OFFLINE) {
+                            q.status = UserStatus.OFFLINE;
+                            dirty.put(id, UserStatus.OFFLINE);
+                        }
+                    }
+                    return q;
+                });
+            }
+        }
+    }
+
+    /** Mutated only inside compute calls on its map entry. */
+    private static final class Presence {
+
+        volatile UserStatus status;
+        volatile int        sessions;
+        volatile long       disconnectedAt;     // 0 = connected, or never connected over STOMP
+
+        Presence(UserStatus status) {
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.QuestionOrderConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves quizzes created before {@code quiz.question_order} off the
+ * quiz_flashcards join table: packs each quiz's card ids into the column,
+ * then drops the join rows of every quiz that has one. Runs on startup in
+ * batches; a quiz that is opened before it got migrated is packed lazily
+ * by {@link QuizSessionCache#open}.
+ */
+@Component
+public class QuestionOrderMigration {
+
+    private static final String SELECT_LEGACY_QUIZZES =
+            "SELECT DISTINCT qf.quiz_id FROM quiz_flashcards qf JOIN quiz q ON q.id = qf.quiz_id "
+                    + "WHERE q.question_order IS NULL AND qf.quiz_id > ? ORDER BY qf.quiz_id LIMIT ?";
+    private static final String SELECT_CARDS =
+            "SELECT quiz_id, flashcard_id FROM quiz_flashcards WHERE quiz_id BETWEEN ? AND ?";
+    private static final String UPDATE_ORDER =
+            "UPDATE quiz SET question_order = ? WHERE id = ? AND question_order IS NULL";
+    private static final String DELETE_MIGRATED =
+            "DELETE FROM quiz_flashcards WHERE quiz_id IN (SELECT id FROM quiz WHERE question_order IS NOT NULL)";
+
+    private final Logger log = LoggerFactory.getLogger(QuestionOrderMigration.class);
+
+    private final JdbcTemplate        jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean             enabled;
+    private final int                 batchQuizzes;
+
+    public QuestionOrderMigration(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${quiz.question-order.migrate-on-startup:true}") boolean enabled,
+                                  @Value("${quiz.question-order.migration-batch-size:500}") int batchQuizzes) {
+        this.jdbcTemplate        = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled             = enabled;
+        this.batchQuizzes        = Math.max(1, batchQuizzes);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int quizzes = migrate();
+            if (quizzes > 0) {
+                log.info("Packed the question order of {} quizzes", quizzes);
+            }
+        } catch (RuntimeException e) {
+            log.error("Question order migration failed, legacy quizzes are packed when opened", e);
+        }
+    }
+
+    /** @return the number of quizzes packed */
+    public int migrate() {
+        int migrated = 0;
+        long after = 0;
+        while (true) {
+            List<Long> quizIds = jdbcTemplate.queryForList(SELECT_LEGACY_QUIZZES, Long.class, after, batchQuizzes);
+            if (quizIds.isEmpty()) {
+                break;
+            }
+            Map<Long, List<Long>> cards = new LinkedHashMap<>();
+            quizIds.forEach(id -> cards.put(id, new ArrayList<>()));
+            jdbcTemplate.query(SELECT_CARDS, rs -> {
+                List<Long> ids = cards.get(rs.getLong(1));
+                if (ids != null) {                  // the range may include quizzes that are packed already
+                    ids.add(rs.getLong(2));
+                }
+            }, quizIds.get(0), quizIds.get(quizIds.size() - 1));
+
+            List<Object[]> updates = new ArrayList<>(cards.size());
+            for (Map.Entry<Long, List<Long>> e : cards.entrySet()) {
+                long[] order = e.getValue().stream().mapToLong(Long::longValue).toArray();
+                updates.add(new Object[]{ QuestionOrderConverter.encode(order), e.getKey() });
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_ORDER, updates));
+            migrated += updates.size();
+            after = quizIds.get(quizIds.size() - 1);
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(DELETE_MIGRATED));
+        return migrated;
+    }
+}
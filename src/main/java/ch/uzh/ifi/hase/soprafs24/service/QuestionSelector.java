@@ -0,0 +1,160 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.repository.FlashcardRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Picks the questions of a new quiz without loading whole decks.
+ * Card ids are streamed through an id-only query and reservoir-sampled, so
+ * memory is O(questions) instead of O(deck size), and the decks' card
+ * collections are never touched. With several decks the selection is
+ * stratified: every deck contributes in proportion to its size.
+ * The same seed always yields the same order.
+ */
+@Component
+public class QuestionSelector {
+
+    private final FlashcardRepository flashcardRepository;
+    private final int                 maxQuestions;
+
+    public QuestionSelector(FlashcardRepository flashcardRepository,
+                            @Value("${quiz.selection.max-questions:0}") int maxQuestions) {
+        this.flashcardRepository = flashcardRepository;
+        this.maxQuestions        = maxQuestions;
+    }
+
+    /** {@link #selectIds(List, int, long)} with a random seed. */
+    @Transactional(readOnly = true)
+    public long[] selectIds(List<Long> deckIds, int cap) {
+        return selectIds(deckIds, cap, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Question order as card ids, ready for {@code Quiz.questionOrder};
+     * not a single card is loaded.
+     * @param cap number of questions; 0 (or more than there are cards) takes every card
+     */
+    @Transactional(readOnly = true)
+    public long[] selectIds(List<Long> deckIds, int cap, long seed) {
+        long[] sizes = new long[deckIds.size()];
+        Map<Long, Integer> position = new HashMap<>();
+        for (int i = 0; i < deckIds.size(); i++) {
+            position.putIfAbsent(deckIds.get(i), i);
+        }
+        for (Object[] row : flashcardRepository.countByDeckIds(position.keySet())) {
+            Integer at = position.get(((Number) row[0]).longValue());
+            if (at != null) {                       // only decks that were asked for
+                sizes[at] = ((Number) row[1]).longValue();
+            }
+        }
+
+        int limit = cap > 0 ? cap : Integer.MAX_VALUE;
+        if (maxQuestions > 0) {
+            limit = Math.min(limit, maxQuestions);
+        }
+        int[] quotas = quotas(sizes, limit);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int total = 0;
+        for (int q : quotas) {
+            total += q;
+        }
+        long[] selected = new long[total];
+        int filled = 0;
+        for (int i = 0; i < quotas.length; i++) {
+            if (quotas[i] == 0) {
+                continue;
+            }
+            try (Stream<Long> ids = flashcardRepository.streamIdsByDeckId(deckIds.get(i))) {
+                filled += sample(ids.iterator(), quotas[i], random, selected, filled);
+            }
+        }
+        if (filled < selected.length) {             // cards deleted between count and stream
+            selected = Arrays.copyOf(selected, filled);
+        }
+        shuffle(selected, random);
+        return selected;
+    }
+
+    /* ───────────── sampling ───────────── */
+
+    /**
+     * Questions per deck: proportional to the deck sizes (largest remainder),
+     * or every card if {@code limit} is at least the total.
+     */
+    static int[] quotas(long[] sizes, int limit) {
+        long total = 0;
+        for (long s : sizes) {
+            total += s;
+        }
+        int[] quotas = new int[sizes.length];
+        if (total <= limit) {
+            for (int i = 0; i < sizes.length; i++) {
+                quotas[i] = (int) sizes[i];
+            }
+            return quotas;
+        }
+        double[] remainders = new double[sizes.length];
+        int assigned = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            double exact = (double) limit * sizes[i] / total;
+            quotas[i]     = (int) exact;
+            remainders[i] = exact - quotas[i];
+            assigned     += quotas[i];
+        }
+        while (assigned < limit) {
+            int best = -1;
+            for (int i = 0; i < sizes.length; i++) {
+                if (quotas[i] < sizes[i] && (best < 0 || remainders[i] > remainders[best])) {
+                    best = i;
+                }
+            }
+            quotas[best]++;
+            remainders[best] = -1;
+            assigned++;
+        }
+        return quotas;
+    }
+
+    /**
+     * Reservoir sampling (algorithm R) of {@code k} ids into {@code out[offset..]}.
+     * @return the number of ids written, less than k only if the source ran out
+     */
+    static int sample(Iterator<Long> ids, int k, SplittableRandom random, long[] out, int offset) {
+        long seen = 0;
+        while (ids.hasNext()) {
+            long id = ids.next();
+            if (seen < k) {
+                out[offset + (int) seen] = id;
+            } else {
+                long j = random.nextLong(seen + 1);
+                if (j < k) {
+                    out[offset + (int) j] = id;
+                }
+            }
+            seen++;
+        }
+        return (int) Math.min(seen, k);
+    }
+
+    /** Fisher–Yates, so the strata are interleaved. */
+    static void shuffle(long[] ids, SplittableRandom random) {
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+    }
+}
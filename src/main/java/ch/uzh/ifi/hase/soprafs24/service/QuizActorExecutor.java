@@ -0,0 +1,230 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single writer per quiz: every state transition of a quiz is an event in
+ * that quiz's mailbox, and a mailbox is drained by at most one thread of the
+ * shared "quiz-actor" pool at a time. Events of one quiz therefore never
+ * overlap, while different quizzes run in parallel; scheduling is lock-free
+ * (a CAS on the mailbox, no lock shared across quizzes).
+ * <p>
+ * An event must not wait on another quiz's mailbox. Events posted from inside
+ * the same quiz run inline; waiting for another quiz from inside an event is
+ * rejected. Mailboxes are dropped as soon as they are empty.
+ */
+@Component
+public class QuizActorExecutor {
+
+    private final Logger log = LoggerFactory.getLogger(QuizActorExecutor.class);
+
+    private final ExecutorService pool;
+    private final int             throughput;
+
+    private final ConcurrentHashMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    // the mailbox the current thread is draining, for re-entrant events
+    private final ThreadLocal<Mailbox> current = new ThreadLocal<>();
+
+    public QuizActorExecutor(@Value("${quiz.actors.pool-size:0}") int poolSize,
+                             @Value("${quiz.actors.throughput:32}") int throughput) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "quiz-actor-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.throughput = Math.max(1, throughput);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /* ───────────── posting events ───────────── */
+
+    /**
+     * Runs {@code event} as the next event of quiz {@code quizId} and waits
+     * for its result; exceptions of the event are rethrown unchanged.
+     */
+    public <T> T call(Long quizId, Supplier<T> event) {
+        Mailbox owned = current.get();
+        if (owned != null) {
+            if (owned.quizId.equals(quizId)) {
+                return event.get();
+            }
+            throw new IllegalStateException(
+                    "An event of quiz " + owned.quizId + " must not wait for quiz " + quizId);
+        }
+        try {
+            return submit(quizId, event).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Posts {@code event} without waiting. The future completes on the actor
+     * thread, exceptionally with the event's own exception if it fails.
+     */
+    public <T> CompletableFuture<T> submit(Long quizId, Supplier<T> event) {
+        Mailbox owned = current.get();
+        if (owned != null && owned.quizId.equals(quizId)) {
+            try {
+                return CompletableFuture.completedFuture(event.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        post(quizId, () -> {
+            try {
+                result.complete(event.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    public void run(Long quizId, Runnable event) {
+        call(quizId, () -> {
+            event.run();
+            return null;
+        });
+    }
+
+    /** Fire and forget; a failing event is logged. */
+    public void execute(Long quizId, Runnable event) {
+        post(quizId, () -> {
+            try {
+                event.run();
+            } catch (RuntimeException e) {
+                log.error("Event of quiz {} failed", quizId, e);
+            }
+        });
+    }
+
+    public int getMailboxes() {
+        return mailboxes.size();
+    }
+
+    /* ───────────── mailboxes ───────────── */
+
+    private void post(Long quizId, Runnable event) {
+        Mailbox mb = acquire(quizId);
+        mb.queue.add(() -> {
+            try {
+                event.run();
+            } finally {
+                mb.release();
+            }
+        });
+        schedule(mb);
+    }
+
+    /** Mailbox of the quiz with one more event accounted for; replaces a mailbox that was just retired. */
+    private Mailbox acquire(Long quizId) {
+        while (true) {
+            Mailbox mb = mailboxes.get(quizId);
+            if (mb == null) {
+                mb = mailboxes.computeIfAbsent(quizId, Mailbox::new);
+            }
+            if (mb.tryAcquire()) {
+                return mb;
+            }
+            mailboxes.remove(quizId, mb);
+        }
+    }
+
+    private void schedule(Mailbox mb) {
+        if (mb.running.compareAndSet(false, true)) {
+            try {
+                pool.execute(mb);
+            } catch (RejectedExecutionException e) {
+                mb.run();                            // shutting down: drain on the caller
+            }
+        }
+    }
+
+    private final class Mailbox implements Runnable {
+
+        final Long quizId;
+        final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+        // true while one thread is draining the mailbox
+        final AtomicBoolean running = new AtomicBoolean();
+
+        // events posted but not finished yet; -1 once retired, after which nothing can be posted
+        final AtomicInteger outstanding = new AtomicInteger();
+
+        Mailbox(Long quizId) {
+            this.quizId = quizId;
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                int n = outstanding.get();
+                if (n < 0) {
+                    return false;
+                }
+                if (outstanding.compareAndSet(n, n + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (outstanding.decrementAndGet() == 0 && outstanding.compareAndSet(0, -1)) {
+                mailboxes.remove(quizId, this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Mailbox outer = current.get();
+            current.set(this);
+            try {
+                for (int i = 0; i < throughput; i++) {
+                    Runnable event = queue.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    event.run();
+                }
+            } finally {
+                current.set(outer);
+                running.set(false);
+                if (!queue.isEmpty()) {
+                    schedule(this);                  // more events, or ones posted while we were finishing
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizUpdateMessageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizUpdateMessageDTO.PlayerProgressDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.PlayerRankDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the /topic/quizUpdates frames.
+ * Progress changes only mark a quiz dirty; one frame per dirty quiz and tick
+ * is built from the latest progress. The finished frame is sent right away.
+ * Everything happens after commit, on the broadcast thread.
+ * Frames are numbered deltas with a full snapshot every {@code snapshotEvery}
+ * frames, see {@link QuizUpdateMessageDTO}. Each frame can carry the top
+ * {@code leaders} of the {@link QuizLeaderboard}, read in O(log n + leaders)
+ * instead of sorting the players.
+ */
+@Component
+public class QuizBroadcastScheduler {
+
+    private final Logger log = LoggerFactory.getLogger(QuizBroadcastScheduler.class);
+
+    // deltas may be dropped for a slow client, snapshots never
+    private static final Map<String, Object> DELTA_HEADERS    = Map.of(QuizFanout.DROPPABLE_HEADER, "true");
+    private static final Map<String, Object> SNAPSHOT_HEADERS = Map.of();
+
+    private final QuizFanout            fanout;
+    private final QuizProgressStore     progressStore;
+    private final long                  tickMillis;
+    private final int                   snapshotEvery;
+    private final int                   leaders;
+
+    // quizId -> total questions, for quizzes with an unsent progress change
+    private final ConcurrentHashMap<Long, Integer> dirty = new ConcurrentHashMap<>();
+    // quizzes whose finished frame is out; later progress is dropped
+    private final Set<Long> finished = ConcurrentHashMap.newKeySet();
+    // frame numbering and last sent state per quiz
+    private final ConcurrentHashMap<Long, QuizStream> streams = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "quiz-broadcast");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Timer   broadcastTimer;
+    private final Counter progressRequests;
+
+    public QuizBroadcastScheduler(QuizFanout fanout,
+                                  QuizProgressStore progressStore,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${quiz.broadcast.tick-ms:50}") long tickMillis,
+                                  @Value("${quiz.broadcast.snapshot-every:20}") int snapshotEvery,
+                                  @Value("${quiz.broadcast.leaders:10}") int leaders) {
+        this.fanout            = fanout;
+        this.progressStore     = progressStore;
+        this.tickMillis        = tickMillis;
+        this.snapshotEvery     = Math.max(1, snapshotEvery);
+        this.leaders           = Math.max(0, leaders);
+        this.broadcastTimer    = Timer.builder("quiz.broadcast.duration")
+                .description("Conversion and fan-out of one quiz update frame")
+                .register(meterRegistry);
+        this.progressRequests  = meterRegistry.counter("quiz.broadcast.requests");
+
+        progressStore.addEvictionListener(quizId -> {
+            dirty.remove(quizId);
+            finished.remove(quizId);
+            streams.remove(quizId);
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /* ───────────── called from the answer path ───────────── */
+
+    /** Schedules a progress frame for the next tick; repeated calls within a tick collapse into one. */
+    public void progressChanged(Long quizId, int totalQuestions) {
+        progressRequests.increment();
+        TransactionHooks.afterCommit(() -> {
+            if (!finished.contains(quizId)) {
+                dirty.put(quizId, totalQuestions);
+            }
+        });
+    }
+
+    /** Sends the finished frame without waiting for the tick. */
+    public void quizFinished(Long quizId, int totalQuestions) {
+        TransactionHooks.afterCommit(() -> {
+            if (finished.add(quizId)) {
+                dirty.remove(quizId);
+                executor.execute(() -> send(quizId, totalQuestions, true));
+            }
+        });
+    }
+
+    /* ───────────── broadcast thread ───────────── */
+
+    private void tick() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Progress broadcast tick failed", e);
+        }
+    }
+
+    /**
+     * Sends at most one frame per dirty quiz.
+     * @return the number of frames published; a quiz where nothing changed sends none
+     */
+    int flush() {
+        int sent = 0;
+        for (Long quizId : new ArrayList<>(dirty.keySet())) {
+            Integer total = dirty.remove(quizId);
+            // a finished frame may already be queued – never send progress after it
+            if (total != null && !finished.contains(quizId) && send(quizId, total, false)) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /** Full state for a client that missed a frame; numbered like the last frame sent. */
+    public QuizUpdateMessageDTO snapshot(Long quizId) {
+        List<QuizProgressStore.UserProgressEntry> entries = progressStore.getProgressForQuiz(quizId);
+        List<QuizLeaderboard.Entry> top = progressStore.getLeaders(quizId, leaders);
+        QuizStream stream = streams.get(quizId);
+        if (stream != null) {
+            return stream.snapshot(quizId, entries, top);
+        }
+        QuizUpdateMessageDTO msg = buildProgressMessage(entries, quizId, null, false);   // nothing sent yet: sequence 0
+        msg.setLeaders(toRankDTOs(top));
+        return msg;
+    }
+
+    /** @return whether a frame was published */
+    private boolean send(Long quizId, int total, boolean isFinished) {
+        QuizStream stream = streams.computeIfAbsent(quizId, id -> new QuizStream());
+        QuizUpdateMessageDTO msg = stream.nextFrame(quizId, total, progressStore.getProgressForQuiz(quizId),
+                progressStore.getLeaders(quizId, leaders), isFinished, snapshotEvery);
+        if (msg == null) {
+            return false;
+        }
+        Map<String, Object> headers = msg.isSnapshot() ? SNAPSHOT_HEADERS : DELTA_HEADERS;
+        broadcastTimer.record(() -> fanout.publish("/topic/quizUpdates/" + quizId, msg, headers));
+        return true;
+    }
+
+    /** Full snapshot frame (sequence 0) of the given players. */
+    static QuizUpdateMessageDTO buildProgressMessage(List<QuizProgressStore.UserProgressEntry> entries,
+                                                     Long quizId, Integer total, boolean finished) {
+        List<PlayerProgressDTO> board = new ArrayList<>(entries.size());
+        for (QuizProgressStore.UserProgressEntry e : entries) {
+            board.add(toDTO(e));
+        }
+        return frame(quizId, 0L, true, finished, total, board);
+    }
+
+    private static QuizUpdateMessageDTO frame(Long quizId, long sequence, boolean snapshot, boolean finished,
+                                              Integer total, List<PlayerProgressDTO> players) {
+        QuizUpdateMessageDTO msg = new QuizUpdateMessageDTO();
+        msg.setQuizId(quizId);
+        msg.setUpdateType(finished ? "finished" : "progress");
+        msg.setSequence(sequence);
+        msg.setSnapshot(snapshot);
+        msg.setTotalQuestions(snapshot && total != null ? Long.valueOf(total) : null);
+        msg.setPlayerProgress(players);
+        return msg;
+    }
+
+    private static List<PlayerRankDTO> toRankDTOs(List<QuizLeaderboard.Entry> top) {
+        List<PlayerRankDTO> out = new ArrayList<>(top.size());
+        for (QuizLeaderboard.Entry e : top) {
+            out.add(e.toDTO());
+        }
+        return out;
+    }
+
+    private static PlayerProgressDTO toDTO(QuizProgressStore.UserProgressEntry e) {
+        PlayerProgressDTO d = new PlayerProgressDTO();
+        d.setUserId(e.getUserId());
+        d.setScore(e.getProgress().getTotalCorrect());
+        d.setAnsweredQuestions(e.getProgress().getCurrentIndex());
+        return d;
+    }
+
+    /**
+     * Frame numbering of one quiz and the player state its last frame left
+     * the clients with. Deltas carry absolute values, so a client may apply
+     * one on top of a newer snapshot without harm.
+     */
+    private static final class QuizStream {
+
+        private long    sequence;
+        private int     framesSinceSnapshot;
+        private Integer total;
+        private boolean finished;
+        private final Map<Long, Long> lastSent = new HashMap<>();   // userId -> score << 32 | index
+        private List<QuizLeaderboard.Entry> lastLeaders = List.of();
+
+        /** @return the next frame, or null if no player changed since the last one */
+        synchronized QuizUpdateMessageDTO nextFrame(Long quizId, int total,
+                                                    List<QuizProgressStore.UserProgressEntry> entries,
+                                                    List<QuizLeaderboard.Entry> top,
+                                                    boolean isFinished, int snapshotEvery) {
+            boolean full = isFinished || sequence == 0 || framesSinceSnapshot + 1 >= snapshotEvery;
+            List<PlayerProgressDTO> players = new ArrayList<>();
+            for (QuizProgressStore.UserProgressEntry e : entries) {
+                PlayerProgressDTO d = toDTO(e);
+                long state = ((long) d.getScore() << 32) | (d.getAnsweredQuestions() & 0xFFFFFFFFL);
+                Long previous = lastSent.put(d.getUserId(), state);
+                if (full || previous == null || previous != state) {
+                    players.add(d);
+                }
+            }
+            boolean leadersChanged = !top.equals(lastLeaders);
+            if (!full && players.isEmpty() && !leadersChanged) {
+                return null;
+            }
+            this.total       = total;
+            this.finished    = isFinished;
+            this.lastLeaders = top;
+            framesSinceSnapshot = full ? 0 : framesSinceSnapshot + 1;
+            QuizUpdateMessageDTO msg = frame(quizId, ++sequence, full, isFinished, total, players);
+            if (full || leadersChanged) {
+                msg.setLeaders(toRankDTOs(top));
+            }
+            return msg;
+        }
+
+        synchronized QuizUpdateMessageDTO snapshot(Long quizId, List<QuizProgressStore.UserProgressEntry> entries,
+                                                   List<QuizLeaderboard.Entry> top) {
+            List<PlayerProgressDTO> players = new ArrayList<>(entries.size());
+            for (QuizProgressStore.UserProgressEntry e : entries) {
+                players.add(toDTO(e));
+            }
+            QuizUpdateMessageDTO msg = frame(quizId, sequence, true, finished, total, players);
+            msg.setLeaders(toRankDTOs(top));
+            return msg;
+        }
+    }
+}
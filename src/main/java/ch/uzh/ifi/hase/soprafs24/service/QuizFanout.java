@@ -0,0 +1,19 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import java.util.Map;
+
+/**
+ * Delivers a quiz frame to the subscribers of a destination on every
+ * server instance.
+ * The default {@link LocalQuizFanout} hands frames to the STOMP broker,
+ * which already spans all instances in relay mode. With the simple broker,
+ * another implementation has to carry the frames between instances.
+ */
+public interface QuizFanout {
+
+    /** Native header marking frames a slow client may miss (it resyncs via a snapshot). */
+    String DROPPABLE_HEADER = "droppable";
+
+    /** @param headers sent as STOMP native headers */
+    void publish(String destination, Object payload, Map<String, Object> headers);
+}
@@ -0,0 +1,266 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.rest.dto.PlayerRankDTO;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Live ranking of the players of one quiz: more correct answers first, then
+ * who finished earlier, then the lower user id. An order-statistic treap
+ * (every node knows the size of its subtree), so a score change, the rank of
+ * a player and the top K all cost O(log n), or O(log n + K), in a lobby of n
+ * players; nothing is re-sorted per answer. Written from the quiz's mailbox,
+ * read by the broadcast thread, hence synchronized.
+ */
+public final class QuizLeaderboard {
+
+    /** One player's place; {@code finishedAtMillis} is 0 while still playing. */
+    public static final class Entry {
+
+        private final long userId;
+        private final int  score;
+        private final long finishedAtMillis;
+        private final int  rank;
+
+        Entry(long userId, int score, long finishedAtMillis, int rank) {
+            this.userId           = userId;
+            this.score            = score;
+            this.finishedAtMillis = finishedAtMillis;
+            this.rank             = rank;
+        }
+
+        public long getUserId()           { return userId; }
+        public int getScore()             { return score; }
+        public long getFinishedAtMillis() { return finishedAtMillis; }
+        public boolean isFinished()       { return finishedAtMillis > 0; }
+        public int getRank()              { return rank; }
+
+        public PlayerRankDTO toDTO() {
+            PlayerRankDTO dto = new PlayerRankDTO();
+            dto.setUserId(userId);
+            dto.setRank(rank);
+            dto.setScore(score);
+            dto.setFinished(isFinished());
+            return dto;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry e = (Entry) o;
+            return userId == e.userId && score == e.score && finishedAtMillis == e.finishedAtMillis && rank == e.rank;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(userId) * 31 + rank;
+        }
+    }
+
+    private Node root;
+    private final Map<Long, Node> nodes = new HashMap<>();     // userId → its node in the tree
+    private int finished;
+
+    /**
+     * Places the player by its current score and finish time; a player seen
+     * for the first time is added.
+     * @param finishedAtMillis 0 while the player is still playing
+     * @return the player's rank, from 1
+     */
+    public synchronized int update(long userId, int score, long finishedAtMillis) {
+        Node old = nodes.get(userId);
+        if (old != null) {
+            if (old.score == score && old.finishedAt == finishedAtMillis) {
+                return rank(old);
+            }
+            root = remove(root, old);
+            if (old.finishedAt > 0) {
+                finished--;
+            }
+        }
+        Node node = new Node(userId, score, finishedAtMillis);
+        root = insert(root, node);
+        nodes.put(userId, node);
+        if (finishedAtMillis > 0) {
+            finished++;
+        }
+        return rank(node);
+    }
+
+    /** Adds a player with no answers yet, unless it is already ranked. */
+    public synchronized void join(long userId) {
+        if (!nodes.containsKey(userId)) {
+            Node node = new Node(userId, 0, 0L);
+            root = insert(root, node);
+            nodes.put(userId, node);
+        }
+    }
+
+    /** @return the player's place, or null if it is not ranked */
+    public synchronized Entry get(long userId) {
+        Node node = nodes.get(userId);
+        return node == null ? null : node.entry(rank(node));
+    }
+
+    /** The best {@code k} players, best first. */
+    public synchronized List<Entry> top(int k) {
+        List<Entry> out = new ArrayList<>(Math.max(0, Math.min(k, nodes.size())));
+        ArrayDeque<Node> path = new ArrayDeque<>();
+        Node n = root;
+        while (out.size() < k && (n != null || !path.isEmpty())) {
+            while (n != null) {
+                path.push(n);
+                n = n.left;
+            }
+            n = path.pop();
+            out.add(n.entry(out.size() + 1));
+            n = n.right;
+        }
+        return out;
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    public synchronized int getFinished() {
+        return finished;
+    }
+
+    /* ───────────── treap ───────────── */
+
+    private static final class Node {
+
+        final long userId;
+        final int  score;
+        final long finishedAt;
+        final long order;           // finish time, unfinished players sort last
+        final int  priority = ThreadLocalRandom.current().nextInt();
+        Node left, right;
+        int  size = 1;
+
+        Node(long userId, int score, long finishedAt) {
+            this.userId     = userId;
+            this.score      = score;
+            this.finishedAt = finishedAt;
+            this.order      = finishedAt > 0 ? finishedAt : Long.MAX_VALUE;
+        }
+
+        /** Negative if this node ranks before {@code o}. */
+        int compareTo(Node o) {
+            if (score != o.score) {
+                return score > o.score ? -1 : 1;
+            }
+            if (order != o.order) {
+                return order < o.order ? -1 : 1;
+            }
+            return Long.compare(userId, o.userId);
+        }
+
+        Node fix() {
+            size = 1 + sizeOf(left) + sizeOf(right);
+            return this;
+        }
+
+        Entry entry(int rank) {
+            return new Entry(userId, score, finishedAt, rank);
+        }
+    }
+
+    private static int sizeOf(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    /** 1 + the number of nodes ranking before {@code node}. */
+    private int rank(Node node) {
+        int before = 0;
+        Node n = root;
+        while (n != null) {
+            int c = node.compareTo(n);
+            if (c == 0) {
+                return before + sizeOf(n.left) + 1;
+            }
+            if (c < 0) {
+                n = n.left;
+            } else {
+                before += sizeOf(n.left) + 1;
+                n = n.right;
+            }
+        }
+        throw new IllegalStateException("Player " + node.userId + " is not in the leaderboard");
+    }
+
+    private static Node insert(Node t, Node node) {
+        if (t == null) {
+            return node;
+        }
+        if (node.priority > t.priority) {
+            Node[] parts = split(t, node);
+            node.left  = parts[0];
+            node.right = parts[1];
+            return node.fix();
+        }
+        if (node.compareTo(t) < 0) {
+            t.left = insert(t.left, node);
+        } else {
+            t.right = insert(t.right, node);
+        }
+        return t.fix();
+    }
+
+    private static Node remove(Node t, Node node) {
+        if (t == null) {
+            return null;
+        }
+        int c = node.compareTo(t);
+        if (c == 0) {
+            return merge(t.left, t.right);
+        }
+        if (c < 0) {
+            t.left = remove(t.left, node);
+        } else {
+            t.right = remove(t.right, node);
+        }
+        return t.fix();
+    }
+
+    /** [nodes ranking before {@code key}, the rest] */
+    private static Node[] split(Node t, Node key) {
+        if (t == null) {
+            return new Node[2];
+        }
+        if (t.compareTo(key) < 0) {
+            Node[] parts = split(t.right, key);
+            t.right = parts[0];
+            parts[0] = t.fix();
+            return parts;
+        }
+        Node[] parts = split(t.left, key);
+        t.left = parts[1];
+        parts[1] = t.fix();
+        return parts;
+    }
+
+    /** Every node of {@code a} ranks before every node of {@code b}. */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return a.fix();
+        }
+        b.left = merge(a, b.left);
+        return b.fix();
+    }
+}
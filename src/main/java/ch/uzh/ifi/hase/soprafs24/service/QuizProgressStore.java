@@ -1,40 +1,256 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
-import java.util.HashMap;
-import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+/**
+ * In-memory progress of every running quiz.
+ * Two levels: quizId → small per-quiz player table (primitive long user ids),
+ * so a per-quiz snapshot only touches the players of that quiz. Each quiz
+ * also keeps its {@link QuizLeaderboard}.
+ * A background reaper drops completed and abandoned quizzes after a TTL.
+ */
+@Component
 public class QuizProgressStore {
 
-    // Key format: "quizId:userId"
-    private static final Map<String, ProgressState> progressMap = new HashMap<>();
+    private final Logger log = LoggerFactory.getLogger(QuizProgressStore.class);
+
+    private final ConcurrentHashMap<Long, QuizProgress> quizzes = new ConcurrentHashMap<>();
+
+    private final long ttlMillis;
+    private final long maxIdleMillis;
+
+    private final AtomicInteger liveEntries     = new AtomicInteger();
+    private final AtomicLong    evictedQuizzes  = new AtomicLong();
+    private final AtomicLong    evictedEntries  = new AtomicLong();
+
+    // notified with the quiz id whenever the reaper drops a quiz
+    private final List<Consumer<Long>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    public QuizProgressStore(@Value("${quiz.progress.ttl-seconds:300}") long ttlSeconds,
+                             @Value("${quiz.progress.max-idle-seconds:21600}") long maxIdleSeconds) {
+        this.ttlMillis     = ttlSeconds * 1000L;
+        this.maxIdleMillis = maxIdleSeconds * 1000L;
+    }
+
+    public ProgressState getProgress(Long quizId, Long userId) {
+        QuizProgress table = quizzes.computeIfAbsent(quizId, id -> new QuizProgress());
+        table.touch();
+        return table.getOrCreate(userId, liveEntries);
+    }
+
+    /**
+     * Called when a quiz goes IN_PROGRESS.
+     * @param deadlineMillis epoch millis of the time limit, 0 if the quiz has none
+     */
+    public void registerQuiz(Long quizId, long deadlineMillis) {
+        QuizProgress table = quizzes.computeIfAbsent(quizId, id -> new QuizProgress());
+        table.deadlineMillis = deadlineMillis;
+        table.touch();
+    }
+
+    /** Called from endOfQuiz – the entries stay readable until the TTL runs out. */
+    public void markCompleted(Long quizId) {
+        QuizProgress table = quizzes.get(quizId);
+        if (table != null) {
+            table.completedAtMillis = System.currentTimeMillis();
+        }
+    }
+
+    /** Snapshot of all players of one quiz – O(players), not O(all sessions). */
+    public List<UserProgressEntry> getProgressForQuiz(Long quizId) {
+        QuizProgress table = quizzes.get(quizId);
+        return table == null ? new ArrayList<>() : table.snapshot();
+    }
 
-    public static ProgressState getProgress(Long quizId, Long userId) {
-        String key = quizId + ":" + userId;
-        return progressMap.computeIfAbsent(key, k -> new ProgressState());
+    /** Ranking of the players of one quiz, updated by the answer path. */
+    public QuizLeaderboard getLeaderboard(Long quizId) {
+        return quizzes.computeIfAbsent(quizId, id -> new QuizProgress()).leaderboard;
     }
 
-    // New helper: retrieve progress for all users in a given quiz.
-    public static List<UserProgressEntry> getProgressForQuiz(Long quizId) {
-        String quizPrefix = quizId + ":";
-        return progressMap.entrySet().stream()
-                .filter(e -> e.getKey().startsWith(quizPrefix))
-                .map(e -> {
-                    String[] parts = e.getKey().split(":");
-                    Long userId = Long.valueOf(parts[1]);
-                    return new UserProgressEntry(userId, e.getValue());
-                })
-                .collect(Collectors.toList());
+    /** @return the quiz's ranking, or null if the quiz is not (or no longer) live */
+    public QuizLeaderboard findLeaderboard(Long quizId) {
+        QuizProgress table = quizzes.get(quizId);
+        return table == null ? null : table.leaderboard;
     }
 
+    /** The best {@code k} players of a quiz; unknown quizzes get no state created. */
+    public List<QuizLeaderboard.Entry> getLeaders(Long quizId, int k) {
+        QuizProgress table = quizzes.get(quizId);
+        return table == null ? new ArrayList<>() : table.leaderboard.top(k);
+    }
+
+    public int getPlayerCount(Long quizId) {
+        QuizProgress table = quizzes.get(quizId);
+        return table == null ? 0 : table.size();
+    }
+
+    /* ───────────── eviction ───────────── */
+
+    public void addEvictionListener(Consumer<Long> listener) {
+        evictionListeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${quiz.progress.reaper-interval-ms:60000}")
+    public void reapExpired() {
+        int evicted = reap(System.currentTimeMillis());
+        if (evicted > 0) {
+            log.debug("Evicted progress of {} quizzes, {} quizzes still live", evicted, quizzes.size());
+        }
+    }
+
+    /** Drops every quiz that is completed or abandoned as of {@code now}. */
+    int reap(long now) {
+        int evicted = 0;
+        for (Map.Entry<Long, QuizProgress> e : quizzes.entrySet()) {
+            if (e.getValue().isExpired(now, ttlMillis, maxIdleMillis)
+                    && quizzes.remove(e.getKey(), e.getValue())) {
+                int players = e.getValue().size();
+                liveEntries.addAndGet(-players);
+                evictedEntries.addAndGet(players);
+                evictedQuizzes.incrementAndGet();
+                evictionListeners.forEach(l -> l.accept(e.getKey()));
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int getLiveQuizzes() { return quizzes.size(); }
+    public int getLiveEntries() { return liveEntries.get(); }
+    public long getEvictedQuizzes() { return evictedQuizzes.get(); }
+    public long getEvictedEntries() { return evictedEntries.get(); }
+
+    /* ───────────── per-quiz player table ───────────── */
+
+    /**
+     * Copy-on-write table: lookups are lock-free reads of one immutable
+     * {@link Table}, inserts (once per player and quiz) are synchronized.
+     */
+    static final class QuizProgress {
+
+        private volatile Table table = Table.EMPTY;
+
+        final QuizLeaderboard leaderboard = new QuizLeaderboard();
+
+        private volatile long lastActivityMillis = System.currentTimeMillis();
+        private volatile long deadlineMillis     = 0L;    // 0 = no time limit
+        private volatile long completedAtMillis  = 0L;    // 0 = still running
+
+        void touch() {
+            lastActivityMillis = System.currentTimeMillis();
+        }
+
+        boolean isExpired(long now, long ttlMillis, long maxIdleMillis) {
+            long idle = now - lastActivityMillis;
+            if (completedAtMillis > 0) {
+                return now - completedAtMillis >= ttlMillis;
+            }
+            if (deadlineMillis > 0 && now >= deadlineMillis) {
+                return idle >= ttlMillis;
+            }
+            return idle >= maxIdleMillis;
+        }
+
+        ProgressState getOrCreate(long userId, AtomicInteger liveEntries) {
+            ProgressState existing = table.find(userId);
+            if (existing != null) {
+                return existing;
+            }
+            synchronized (this) {
+                Table current = table;
+                existing = current.find(userId);
+                if (existing != null) {
+                    return existing;
+                }
+                ProgressState created = new ProgressState();
+                table = current.with(userId, created);
+                liveEntries.incrementAndGet();
+                return created;
+            }
+        }
+
+        List<UserProgressEntry> snapshot() {
+            Table current = table;
+            List<UserProgressEntry> entries = new ArrayList<>(current.userIds.length);
+            for (int i = 0; i < current.userIds.length; i++) {
+                entries.add(new UserProgressEntry(current.userIds[i], current.states[i]));
+            }
+            return entries;
+        }
+
+        int size() {
+            return table.userIds.length;
+        }
+    }
+
+    private static final class Table {
+
+        static final Table EMPTY = new Table(new long[0], new ProgressState[0]);
+
+        final long[] userIds;
+        final ProgressState[] states;
+
+        Table(long[] userIds, ProgressState[] states) {
+            this.userIds = userIds;
+            this.states  = states;
+        }
+
+        ProgressState find(long userId) {
+            for (int i = 0; i < userIds.length; i++) {
+                if (userIds[i] == userId) {
+                    return states[i];
+                }
+            }
+            return null;
+        }
+
+        Table with(long userId, ProgressState state) {
+            int n = userIds.length;
+            long[] ids = Arrays.copyOf(userIds, n + 1);
+            ProgressState[] st = Arrays.copyOf(states, n + 1);
+            ids[n] = userId;
+            st[n]  = state;
+            return new Table(ids, st);
+        }
+    }
+
+    /* ───────────── per-player state ───────────── */
+
     public static class ProgressState {
-        private int currentIndex = 0;      // index of the current question
-        private int totalCorrect = 0;      // number of correct answers
-        private int totalAttempts = 0;     // number of attempts
-        private boolean isFinished = false;
+
+        private static final AtomicIntegerFieldUpdater<ProgressState> INDEX =
+                AtomicIntegerFieldUpdater.newUpdater(ProgressState.class, "currentIndex");
+        private static final AtomicIntegerFieldUpdater<ProgressState> CORRECT =
+                AtomicIntegerFieldUpdater.newUpdater(ProgressState.class, "totalCorrect");
+        private static final AtomicIntegerFieldUpdater<ProgressState> ATTEMPTS =
+                AtomicIntegerFieldUpdater.newUpdater(ProgressState.class, "totalAttempts");
+        private static final AtomicIntegerFieldUpdater<ProgressState> FINISHED =
+                AtomicIntegerFieldUpdater.newUpdater(ProgressState.class, "finished");
+
+        private volatile int currentIndex = 0;      // index of the current question
+        private volatile int totalCorrect = 0;      // number of correct answers
+        private volatile int totalAttempts = 0;     // number of attempts
+        private volatile int finished = 0;          // 0 = playing, 1 = finished
+        private volatile long finishedAtMillis = 0L;  // ranks earlier finishers first among equal scores
         // Record the start time (in millis) when the progress object is first created
-        private long startTimeMillis = System.currentTimeMillis();
+        private volatile long startTimeMillis = System.currentTimeMillis();
+        // client time of the last answer applied from a batch; older batched answers are duplicates
+        private volatile long lastClientTimestamp = Long.MIN_VALUE;
 
         // Getters and Setters
         public int getCurrentIndex() { return currentIndex; }
@@ -46,11 +262,37 @@ public class QuizProgressStore {
         public int getTotalAttempts() { return totalAttempts; }
         public void setTotalAttempts(int totalAttempts) { this.totalAttempts = totalAttempts; }
 
-        public boolean isFinished() { return isFinished; }
-        public void setFinished(boolean finished) { isFinished = finished; }
+        public boolean isFinished() { return finished != 0; }
+        public void setFinished(boolean finished) {
+            this.finishedAtMillis = finished ? System.currentTimeMillis() : 0L;
+            this.finished = finished ? 1 : 0;
+        }
+
+        public long getFinishedAtMillis() { return finishedAtMillis; }
 
         public long getStartTimeMillis() { return startTimeMillis; }
         public void setStartTimeMillis(long startTimeMillis) { this.startTimeMillis = startTimeMillis; }
+
+        public long getLastClientTimestamp() { return lastClientTimestamp; }
+        public void setLastClientTimestamp(long lastClientTimestamp) { this.lastClientTimestamp = lastClientTimestamp; }
+
+        // Atomic updates (safe under concurrent answers)
+        public int incrementCorrect() { return CORRECT.incrementAndGet(this); }
+        public int incrementAttempts() { return ATTEMPTS.incrementAndGet(this); }
+
+        /** Moves the pointer only if it still points at {@code expected}. */
+        public boolean advance(int expected, int next) {
+            return INDEX.compareAndSet(this, expected, next);
+        }
+
+        /** @return true for exactly one caller – the one that finished the player. */
+        public boolean markFinished() {
+            if (!FINISHED.compareAndSet(this, 0, 1)) {
+                return false;
+            }
+            finishedAtMillis = System.currentTimeMillis();
+            return true;
+        }
     }
 
     // Represents a user's progress, pairing userId with their progress state.
@@ -5,56 +5,119 @@ import ch.uzh.ifi.hase.soprafs24.constant.QuizStatus;
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.*;
 import ch.uzh.ifi.hase.soprafs24.repository.*;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.BatchedAnswerDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.InvitationDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.InvitationEventsDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LeaderboardDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuestionWindowDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizAnswerBatchResponseDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizAnswerResponseDTO;
-import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizUpdateMessageDTO;
-import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizUpdateMessageDTO.PlayerProgressDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.mapper.FlashcardMapper;
 import ch.uzh.ifi.hase.soprafs24.rest.mapper.QuizMapper;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class QuizService {
 
+    /* ──────────────── Answer batches ──────────────── */
+    private static final int  MAX_ANSWER_BATCH = 1000;
+    private static final byte ANSWER_CORRECT   = 1;
+    private static final byte ANSWER_WRONG     = 2;
+    private static final byte ANSWER_SKIPPED   = 3;
+
+    /* ──────────────── Lobbies ──────────────── */
+    private static final int  MAX_LOBBY_SIZE   = 500;
+    private static final int  MAX_LEADERS      = 100;
+
     /* ──────────────── Dependencies ──────────────── */
-    private final UserService           userService;
-    private final QuizRepository        quizRepository;
-    private final UserRepository        userRepository;
-    private final InvitationRepository  invitationRepository;
-    private final DeckRepository        deckRepository;
-    private final QuizMapper            quizMapper;
-    private final FlashcardMapper       flashcardMapper;
-    private final SimpMessagingTemplate messagingTemplate;
-    private final StatisticsService     statisticsService;
-    private final ScoreRepository       scoreRepository;
+    private final UserService            userService;
+    private final QuizRepository         quizRepository;
+    private final UserRepository         userRepository;
+    private final InvitationRepository   invitationRepository;
+    private final DeckRepository         deckRepository;
+    private final ScoreRepository        scoreRepository;
+    private final QuizMapper             quizMapper;
+    private final FlashcardMapper        flashcardMapper;
+    private final QuestionSelector       questionSelector;
+    private final AnswerMatcher          answerMatcher;
+    private final PresenceRegistry       presence;
+    private final InvitationNotifier     invitationNotifier;
+    private final QuizProgressStore      progressStore;
+    private final QuizSessionCache       sessionCache;
+    private final QuizWriteBehindBuffer  writeBehind;
+    private final QuizBroadcastScheduler broadcaster;
+    private final QuizTimeouts           timeouts;
+    private final QuizActorExecutor      actors;
+    private final TransactionTemplate    transactionTemplate;
+
+    /* ──────────────── Metrics ──────────────── */
+    private final Timer   answerTimer;
+    private final Counter correctAnswers;
+    private final Counter wrongAnswers;
+    private final Counter skippedAnswers;
 
     public QuizService(UserService            userService,
                        QuizRepository         quizRepository,
                        UserRepository         userRepository,
                        InvitationRepository   invitationRepository,
                        DeckRepository         deckRepository,
+                       ScoreRepository        scoreRepository,
                        QuizMapper             quizMapper,
                        FlashcardMapper        flashcardMapper,
-                       SimpMessagingTemplate  messagingTemplate,
-                       StatisticsService      statisticsService,
-                       ScoreRepository        scoreRepository) {
+                       QuestionSelector       questionSelector,
+                       AnswerMatcher          answerMatcher,
+                       PresenceRegistry       presence,
+                       InvitationNotifier     invitationNotifier,
+                       QuizProgressStore      progressStore,
+                       QuizSessionCache       sessionCache,
+                       QuizWriteBehindBuffer  writeBehind,
+                       QuizBroadcastScheduler broadcaster,
+                       QuizTimeouts           timeouts,
+                       QuizActorExecutor      actors,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry          meterRegistry) {
         this.userService          = userService;
         this.quizRepository       = quizRepository;
         this.userRepository       = userRepository;
         this.invitationRepository = invitationRepository;
         this.deckRepository       = deckRepository;
+        this.scoreRepository      = scoreRepository;
         this.quizMapper           = quizMapper;
         this.flashcardMapper      = flashcardMapper;
-        this.messagingTemplate    = messagingTemplate;
-        this.statisticsService    = statisticsService;
-        this.scoreRepository      = scoreRepository;
+        this.questionSelector     = questionSelector;
+        this.answerMatcher        = answerMatcher;
+        this.presence             = presence;
+        this.invitationNotifier   = invitationNotifier;
+        this.progressStore        = progressStore;
+        this.sessionCache         = sessionCache;
+        this.writeBehind          = writeBehind;
+        this.broadcaster          = broadcaster;
+        this.timeouts             = timeouts;
+        this.actors               = actors;
+        this.transactionTemplate  = new TransactionTemplate(transactionManager);
+
+        this.answerTimer    = Timer.builder("quiz.answer.latency")
+                .description("processAnswerWithFeedback, including mailbox wait and end-of-quiz handling")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.correctAnswers = meterRegistry.counter("quiz.answers", "result", "correct");
+        this.wrongAnswers   = meterRegistry.counter("quiz.answers", "result", "wrong");
+        this.skippedAnswers = meterRegistry.counter("quiz.answers", "result", "skipped");
     }
 
     /* ╔═════════════════ Invitation section ═══════════════╗ */
@@ -72,6 +135,11 @@ public class QuizService {
         return invitationRepository.findByToUser(userService.getUserById(uid));
     }
 
+    /** Catch-up for /user/queue/invitations after a reconnect, see {@link InvitationNotifier}. */
+    public InvitationEventsDTO getInvitationEvents(Long userId, long after) {
+        return invitationNotifier.eventsSince(userId, after);
+    }
+
     @Transactional
     public void deleteInvitationById(Long invitationId) {
         Invitation inv = getInvitationById(invitationId);
@@ -88,7 +156,8 @@ public class QuizService {
 
 
     public void ensureInvitable(User u) {
-        if (u.getStatus() == UserStatus.OFFLINE || u.getStatus() == UserStatus.PLAYING) {
+        UserStatus status = presence.getStatus(u.getId(), u.getStatus());
+        if (status == UserStatus.OFFLINE || status == UserStatus.PLAYING) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "User cannot be invited while OFFLINE or PLAYING.");
         }
@@ -105,16 +174,22 @@ public class QuizService {
         inv.setToUser(to);
         inv.setTimeLimit(dto.getTimeLimit());
         inv.setIsAccepted(false);
+        inv.setCreatedDate(new Date());
 
-        /* attach decks */
-        List<Deck> decks = dto.getDeckIds().stream()
-                .map(id -> deckRepository.findById(id)
-                        .orElseThrow(() -> new ResponseStatusException(
-                                HttpStatus.NOT_FOUND, "Deck not found: " + id)))
-                .collect(Collectors.toList());
-        if (decks.isEmpty()) {
+        /* attach decks, loaded in one query, in the requested order */
+        if (dto.getDeckIds() == null || dto.getDeckIds().isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one deck must be selected.");
         }
+        Map<Long, Deck> found = deckRepository.findAllById(dto.getDeckIds()).stream()
+                .collect(Collectors.toMap(Deck::getId, d -> d));
+        List<Deck> decks = new ArrayList<>(dto.getDeckIds().size());
+        for (Long id : dto.getDeckIds()) {
+            Deck deck = found.get(id);
+            if (deck == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Deck not found: " + id);
+            }
+            decks.add(deck);
+        }
         inv.setDecks(decks);
         invitationRepository.saveAndFlush(inv);
         return inv;
@@ -130,34 +205,42 @@ public class QuizService {
         invitationRepository.saveAndFlush(inv);   // save owning side
 //        quizRepository.flush();
         quizRepository.saveAndFlush(quiz);
+        invitationNotifier.invitationCreated(inv);   // now complete with its quiz
         return quiz;  // already managed & saved
     }
 
     @Transactional
     public void cancelInvitationBySender(Long invitationId) {
         Invitation inv = getInvitationById(invitationId);
+        invitationNotifier.invitationCancelled(inv);  // sent after commit
 
         if (inv.getQuiz() != null) {
             quizRepository.delete(inv.getQuiz());
             quizRepository.flush();
         }
         User from = inv.getFromUser();
-        User to = inv.getFromUser();
+        User to = inv.getToUser();
 
         invitationRepository.delete(inv);
         invitationRepository.flush();
 
-        from.setStatus(UserStatus.ONLINE);
-        to.setStatus(UserStatus.ONLINE);
-        userRepository.save(from);
-        userRepository.save(to);
-        userRepository.flush();
+        setPresenceAfterCommit(from.getId(), UserStatus.ONLINE);
+        setPresenceAfterCommit(to.getId(), UserStatus.ONLINE);
     }
 
-    @Transactional
     public void confirmedInvitation(Long invitationId) {
-        Invitation inv = getInvitationById(invitationId);
-        Quiz quiz      = inv.getQuiz();
+        Quiz quiz = getInvitationById(invitationId).getQuiz();
+        if (quiz == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Invitation has no quiz.");
+        }
+        inQuiz(quiz.getId(), () -> {
+            confirm(getInvitationById(invitationId));
+            return null;
+        });
+    }
+
+    private void confirm(Invitation inv) {
+        Quiz quiz = inv.getQuiz();
 
         quiz.setQuizStatus(QuizStatus.IN_PROGRESS);
         quiz.setStartTime(new Date());
@@ -165,18 +248,19 @@ public class QuizService {
         inv.setIsAccepted(true);
         inv.setIsAcceptedDate(new Date());
 
-        inv.getFromUser().setStatus(UserStatus.PLAYING);
-        inv.getToUser().setStatus(UserStatus.PLAYING);
+        setPresenceAfterCommit(inv.getFromUser().getId(), UserStatus.PLAYING);
+        setPresenceAfterCommit(inv.getToUser().getId(), UserStatus.PLAYING);
 
-        userRepository.save(inv.getFromUser());
-        userRepository.save(inv.getToUser());
-        userRepository.flush();
         quizRepository.saveAndFlush(quiz);
         invitationRepository.saveAndFlush(inv);
+        trackRunningQuiz(quiz);
+        invitationNotifier.invitationAccepted(inv);
     }
 
+    @Transactional
     public void rejectedInvitation(Long id) {
         Invitation inv = getInvitationById(id);
+        invitationNotifier.invitationRejected(inv);   // sent after commit
         if (inv.getQuiz() != null) {
             quizRepository.delete(inv.getQuiz());
             quizRepository.flush();
@@ -185,51 +269,128 @@ public class QuizService {
         invitationRepository.flush();
     }
 
-    /** Return earliest accepted invite from sender and clean the rest. */
+    /**
+     * Return earliest accepted invite from sender and clean the rest.
+     * Both are found by the sender's index; the late ones are removed in bulk.
+     */
+    @Transactional
     public Invitation findInvitationByFromUserIdAndIsAcceptedTrue(Long fromUserId) {
-        // Fetch all invitations sent by this user
-        List<Invitation> invitations = getInvitationByFromUserId(fromUserId);
-
-        // Filter to include only accepted invitations
-        List<Invitation> acceptedInvitations = invitations.stream()
-                .filter(Invitation::getIsAccepted)
-                .sorted(Comparator.comparing(Invitation::getIsAcceptedDate)) // sort by accepted date ascending
-                .collect(Collectors.toList());
-
-        // If no accepted invitations found, return null
-        if (acceptedInvitations.isEmpty()) {
+        Invitation earliestAccepted = invitationRepository
+                .findFirstByFromUser_IdAndIsAcceptedTrueOrderByIsAcceptedDateAscIdAsc(fromUserId)
+                .orElse(null);
+        if (earliestAccepted == null) {
             return null;
         }
 
-        // The first one is the earliest accepted invitation
-        Invitation earliestAccepted = acceptedInvitations.get(0);
-
         // All others are late accepted invitations – considered as rejected
-        List<Invitation> lateAcceptedInvitations = acceptedInvitations.subList(1, acceptedInvitations.size());
-
+        List<Invitation> lateAcceptedInvitations = invitationRepository
+                .findByFromUser_IdAndIsAcceptedTrueAndIdNot(fromUserId, earliestAccepted.getId());
         for (Invitation lateInvitation : lateAcceptedInvitations) {
-            // Delete the corresponding quiz if it exists
-            if (lateInvitation.getQuiz() != null) {
-                quizRepository.delete(lateInvitation.getQuiz());
-                quizRepository.flush();
-            }
-            User toUser = lateInvitation.getToUser();
-            toUser.setStatus(UserStatus.ONLINE);
-            userRepository.saveAndFlush(toUser);
-
-            // Delete the late invitation
-            invitationRepository.delete(lateInvitation);
-            invitationRepository.flush();
+            invitationNotifier.invitationCancelled(lateInvitation);
+            setPresenceAfterCommit(lateInvitation.getToUser().getId(), UserStatus.ONLINE);
         }
-        // Return the only accepted and kept invitation
+        deleteInvitations(lateAcceptedInvitations);
         return earliestAccepted;
     }
 
+    /**
+     * Deletes up to {@code limit} invitations that were not answered before
+     * {@code cutoff}, together with their waiting quizzes; both users are told.
+     * @return the number of expired invitations
+     */
+    public int expireInvitations(Date cutoff, int limit) {
+        Integer expired = transactionTemplate.execute(tx -> {
+            List<Invitation> stale = invitationRepository
+                    .findByIsAcceptedFalseAndCreatedDateBefore(cutoff, PageRequest.of(0, limit));
+            stale.forEach(invitationNotifier::invitationExpired);
+            deleteInvitations(stale);
+            return stale.size();
+        });
+        return expired != null ? expired : 0;
+    }
+
+    /** Removes the invitations and their quizzes with one statement per table. */
+    private void deleteInvitations(List<Invitation> invitations) {
+        if (invitations.isEmpty()) {
+            return;
+        }
+        List<Long> invitationIds = new ArrayList<>(invitations.size());
+        List<Long> quizIds       = new ArrayList<>(invitations.size());
+        for (Invitation inv : invitations) {
+            invitationIds.add(inv.getId());
+            if (inv.getQuiz() != null && inv.getQuiz().getId() != null) {
+                quizIds.add(inv.getQuiz().getId());
+            }
+        }
+        invitationRepository.unlinkDecks(invitationIds);
+        invitationRepository.deleteByIds(invitationIds);       // before the quizzes they point to
+        if (!quizIds.isEmpty()) {
+            quizRepository.unlinkDecks(quizIds);
+            quizRepository.unlinkFlashcards(quizIds);
+            quizRepository.deleteScores(quizIds);
+            quizRepository.unlinkStatistics(quizIds);
+            quizRepository.deleteByIds(quizIds);
+            for (Long quizId : quizIds) {                       // a late acceptance may already run
+                progressStore.markCompleted(quizId);
+                sessionCache.evict(quizId);
+                timeouts.cancelQuizDeadline(quizId);
+            }
+        }
+    }
+
 
     /* ╚═════════════════ Invitation section ═══════════════╝ */
+    /* ╔═════════════════ Matchmaking section ══════════════╗ */
+
+    /**
+     * Starts the quiz of a quick match in one transaction, without the
+     * invitation round trip: the players were already checked by the
+     * {@link MatchmakingService}, so the quiz goes IN_PROGRESS right away.
+     */
+    @Transactional
+    public Quiz createMatchedQuiz(List<Long> userIds, List<Long> deckIds, int timeLimit, int numberOfQuestions) {
+        List<User> players = userRepository.findAllById(userIds);
+        if (players.size() != new HashSet<>(userIds).size()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found among: " + userIds);
+        }
+        List<Deck> decks = deckRepository.findAllById(deckIds);
+        if (decks.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "No decks to play.");
+        }
+        long[] questionOrder = questionSelector.selectIds(
+                decks.stream().map(Deck::getId).collect(Collectors.toList()), numberOfQuestions);
+        if (questionOrder.length == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "The matched decks contain no flashcards.");
+        }
+
+        Quiz quiz = new Quiz();
+        quiz.setTimeLimit(timeLimit);
+        quiz.setStartTime(new Date());
+        quiz.setIsMultiple(true);
+        quiz.setQuizStatus(QuizStatus.IN_PROGRESS);
+        quiz.setDecks(new ArrayList<>(decks));
+        quiz.setQuestionOrder(questionOrder);
+        for (User player : players) {
+            Score score = new Score();
+            score.setUser(player);
+            score.setQuiz(quiz);
+            score.setTotalQuestions(questionOrder.length);
+            quiz.getScores().add(score);
+        }
+
+        Quiz saved = quizRepository.saveAndFlush(quiz);      // scores cascade
+        for (User player : players) {
+            setPresenceAfterCommit(player.getId(), UserStatus.PLAYING);
+        }
+        trackRunningQuiz(saved);
+        return saved;
+    }
+
+    /* ╚═════════════════ Matchmaking section ══════════════╝ */
     /* ╔═════════════════ Quiz-runtime section ══════════════╗ */
 
     /** Create a quiz directly from a single deck (solo or host). */
+    @Transactional
     public Quiz startQuiz(Long deckId,
                           Integer numberOfQuestions,
                           Integer timeLimit,
@@ -238,18 +399,10 @@ public class QuizService {
         Deck deck = deckRepository.findById(deckId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Deck not found"));
 
-        List<Flashcard> all = deck.getFlashcards();
-        int n = numberOfQuestions == null || numberOfQuestions <= 0
-                ? all.size() : numberOfQuestions;
-
-        if (all.size() < n) {
-            n= all.size();
-            // throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-            //         "Not enough flashcards in the deck for " + n + " questions");
-        }
-
-        Collections.shuffle(all);
-        List<Flashcard> selected = new ArrayList<>(all.subList(0, n));
+        /* sampled by id – the deck's cards are neither loaded nor reordered;
+           fewer cards than requested simply makes a shorter quiz */
+        int n = numberOfQuestions == null || numberOfQuestions <= 0 ? 0 : numberOfQuestions;
+        long[] questionOrder = questionSelector.selectIds(List.of(deck.getId()), n);
 
         Quiz quiz = new Quiz();
         quiz.setTimeLimit(timeLimit == null ? 0 : timeLimit);
@@ -257,160 +410,456 @@ public class QuizService {
         quiz.setIsMultiple(Boolean.TRUE.equals(isMultiple));
         quiz.setQuizStatus(quiz.getIsMultiple() ? QuizStatus.WAITING : QuizStatus.IN_PROGRESS);
         quiz.getDecks().add(deck);
-        quiz.setSelectedFlashcards(selected);
+        quiz.setQuestionOrder(questionOrder);
 
-        deck.setQuiz(quiz);
-        return quizRepository.saveAndFlush(quiz);
+        // only a quiz_decks row is inserted – the deck row is neither written nor locked
+        Quiz saved = quizRepository.saveAndFlush(quiz);
+        if (saved.getQuizStatus() == QuizStatus.IN_PROGRESS) {
+            trackRunningQuiz(saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Adds a player to a WAITING multiplayer quiz, a lobby of up to
+     * {@value #MAX_LOBBY_SIZE} players. Joins go through the quiz's mailbox, so
+     * they are counted one at a time; joining twice is a no-op.
+     */
+    public Quiz joinLobby(Long quizId, Long userId) {
+        return inQuiz(quizId, () -> {
+            Quiz q = findQuiz(quizId);
+            if (!Boolean.TRUE.equals(q.getIsMultiple()) || q.getQuizStatus() != QuizStatus.WAITING) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Quiz is not an open lobby.");
+            }
+            if (scoreRepository.existsByQuiz_IdAndUser_Id(quizId, userId)) {
+                return q;
+            }
+            if (scoreRepository.countByQuiz_Id(quizId) >= MAX_LOBBY_SIZE) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "The lobby is full.");
+            }
+            User user = findUser(userId);
+            ensureInvitable(user);
+
+            // one insert; the quiz's score collection is not loaded
+            Score score = new Score();
+            score.setUser(user);
+            score.setQuiz(q);
+            score.setTotalQuestions(q.getQuestionCount());
+            scoreRepository.save(score);
+            return q;
+        });
     }
 
-    /** For multi-player: flip WAITING → IN_PROGRESS when second player joins. */
+    /** For multi-player: flip WAITING → IN_PROGRESS once a second player joined. */
     public Quiz startMultiplayerIfReady(Long quizId) {
+        return inQuiz(quizId, () -> startIfReady(quizId));
+    }
+
+    private Quiz startIfReady(Long quizId) {
         Quiz q = quizRepository.findById(quizId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
 
         if (q.getIsMultiple()
                 && QuizStatus.WAITING.equals(q.getQuizStatus())
-                && q.getDecks().size() >= 2) {
+                && (q.getDecks().size() >= 2 || scoreRepository.countByQuiz_Id(quizId) >= 2)) {
             q.setQuizStatus(QuizStatus.IN_PROGRESS);
             q.setStartTime(new Date());
             quizRepository.saveAndFlush(q);
+            trackRunningQuiz(q);
         }
         return q;
     }
 
-    public Flashcard getCurrentQuestion(Long quizId, Long userId) {
-        Quiz q = quizRepository.findById(quizId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
-
-        if (q.getQuizStatus() != QuizStatus.IN_PROGRESS) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quiz not in progress.");
-        }
+    /**
+     * The current question as JSON, without the answer. The bytes are
+     * serialized once per card version and shared by every session asking it.
+     */
+    public byte[] getCurrentQuestionJson(Long quizId, Long userId) {
+        QuizSession session = getRunningSession(quizId);
+        return sessionCache.questionJson(session, currentIndex(session, userId));
+    }
 
-        QuizProgressStore.ProgressState prog = QuizProgressStore.getProgress(quizId, userId);
+    private int currentIndex(QuizSession session, Long userId) {
+        QuizProgressStore.ProgressState prog = progressStore.getProgress(session.getQuizId(), userId);
         if (prog.isFinished()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You already finished this quiz.");
         }
 
-        List<Flashcard> cards = q.getSelectedFlashcards();
-        if (cards.isEmpty()) {
+        if (session.size() == 0) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No questions in this quiz.");
         }
 
         int idx = prog.getCurrentIndex();
-        if (idx >= cards.size()) {
+        if (idx >= session.size()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No more questions.");
         }
-        return cards.get(idx);
+        startQuestionClock(session, userId, idx);
+        return idx;
+    }
+
+    /**
+     * The first questions of a quiz that just started, sent with the start
+     * response; null if the quiz is not running yet or prefetching is off.
+     */
+    public QuestionWindowDTO getStartWindow(Long quizId) {
+        QuizSession session = sessionCache.get(quizId);
+        return session == null ? null : session.window(0, sessionCache.getPrefetchWindow());
     }
 
     //    TODO Should handle the null answer case seprately but i'll just let it be counted as an extra incorrect attempt
-    @Transactional
     public QuizAnswerResponseDTO processAnswerWithFeedback(
             Long quizId, Long flashcardId, String answer, Long userId) {
+        return processAnswerWithFeedback(quizId, flashcardId, answer, null, userId);
+    }
 
-        /* ───── validation ───── */
-        User u = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        if (u.getStatus() != UserStatus.PLAYING) {
-            u.setStatus(UserStatus.PLAYING);
-            userRepository.saveAndFlush(u);
-        }
+    /** @param selectedOption index into the question's options; when set, {@code answer} is ignored */
+    public QuizAnswerResponseDTO processAnswerWithFeedback(
+            Long quizId, Long flashcardId, String answer, Integer selectedOption, Long userId) {
+        return answerTimer.record(() -> inQuiz(quizId,
+                () -> processAnswer(quizId, flashcardId, answer, selectedOption, userId)));
+    }
 
-        Quiz q = quizRepository.findById(quizId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
-        if (q.getQuizStatus() != QuizStatus.IN_PROGRESS) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quiz not in progress.");
-        }
+    /**
+     * {@link #processAnswerWithFeedback} without blocking the caller: the
+     * answer is queued in the quiz's mailbox and the future completes on the
+     * actor thread (used by the STOMP answer handler).
+     */
+    public CompletableFuture<QuizAnswerResponseDTO> submitAnswer(
+            Long quizId, Long flashcardId, String answer, Integer selectedOption, Long userId) {
+        Timer.Sample sample = Timer.start(Clock.SYSTEM);
+        CompletableFuture<QuizAnswerResponseDTO> result = actors.submit(quizId, () -> transactionTemplate.execute(
+                status -> processAnswer(quizId, flashcardId, answer, selectedOption, userId)));
+        result.whenComplete((dto, e) -> sample.stop(answerTimer));
+        return result;
+    }
+
+    private QuizAnswerResponseDTO processAnswer(Long quizId, Long flashcardId, String answer,
+                                                Integer selectedOption, Long userId) {
 
-        QuizProgressStore.ProgressState prog = QuizProgressStore.getProgress(quizId, userId);
+        /* ───── validation (served from the session cache) ───── */
+        QuizSession session = getRunningSession(quizId);
+
+        markPlaying(session, userId);
+
+        QuizProgressStore.ProgressState prog = progressStore.getProgress(quizId, userId);
         if (prog.isFinished()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You already finished this quiz.");
         }
 
-        List<Flashcard> cards = q.getSelectedFlashcards();
+        int total = session.size();
         int idx = prog.getCurrentIndex();
-        if (idx >= cards.size()) {
+        if (idx >= total) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No more questions.");
         }
 
-        Flashcard cur = cards.get(idx);
-        if (!cur.getId().equals(flashcardId)) {
+        if (session.getCardId(idx) != flashcardId) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Wrong flashcard ID for current question.");
         }
+        startQuestionClock(session, userId, idx);
 
         /* ───── evaluate answer (may be null) ───── */
-        boolean answered = answer != null && !answer.isBlank();
+        boolean answered = selectedOption != null || (answer != null && !answer.isBlank());
         boolean correct  = false;
 
         if (answered) {
-            prog.setTotalAttempts(prog.getTotalAttempts() + 1);
-            correct = cur.getAnswer().equalsIgnoreCase(answer.trim());
+            correct = answerMatcher.matches(session.getCard(idx), answer, selectedOption);
 
+            /* advance pointer or finish user first, so a duplicate submit cannot count twice */
             if (correct) {
-                prog.setTotalCorrect(prog.getTotalCorrect() + 1);
-
-                /* update persistent Score row */
-                Score s = scoreRepository.findByQuizIdAndUserId(quizId, userId);
-                if (s == null) {
-                    s = new Score();
-                    s.setQuiz(q);
-                    s.setUser(findUser(userId));
-                    s.setTotalQuestions(cards.size());
+                boolean claimed = idx + 1 < total
+                        ? prog.advance(idx, idx + 1)
+                        : prog.markFinished();
+                if (!claimed) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Answer already recorded.");
+                }
+                if (idx + 1 < total) {
+                    timeouts.scheduleQuestionTimeout(quizId, userId, idx + 1);
                 }
-                s.setCorrectQuestions(s.getCorrectQuestions() + 1);
-                scoreRepository.saveAndFlush(s);
+            }
+            prog.incrementAttempts();
+
+            if (correct) {
+                prog.incrementCorrect();
+                /* Score row is written behind, merged with the other answers of this player */
+                writeBehind.recordCorrectAnswer(quizId, userId, total);
             }
         }
 
-        /* advance pointer or finish user */
-        if (answered && correct && idx + 1 < cards.size()) {
-            prog.setCurrentIndex(idx + 1);
-        } else if ((answered && correct && idx + 1 == cards.size())
-                || (!answered && idx + 1 == cards.size())) {
-            // finished either by answering last card or timing-out on it
-            prog.setFinished(true);
+        (correct ? correctAnswers : answered ? wrongAnswers : skippedAnswers).increment();
+
+        /* timing-out on the last card also finishes the user */
+        if (!answered && idx + 1 == total) {
+            prog.markFinished();
         }
 
         /* per-answer statistics (only when user answered) */
         if (answered) {
             long elapsed = System.currentTimeMillis() - prog.getStartTimeMillis();
-            statisticsService.recordQuizStats(findUser(userId), q,
+            writeBehind.recordStats(quizId, userId,
                     prog.getTotalCorrect(), prog.getTotalAttempts(), elapsed);
         }
+        QuizLeaderboard leaderboard = progressStore.getLeaderboard(quizId);
+        int rank = rank(leaderboard, userId, prog);
 
         /* ───── end-of-quiz detection ───── */
-        boolean allFinished = checkAllFinished(q);
-        boolean timeExpired = q.getTimeLimit() > 0 &&
-                (System.currentTimeMillis() - q.getStartTime().getTime() >= q.getTimeLimit() * 1000L);
+        boolean allFinished = checkAllFinished(session);
+        boolean timeExpired = session.isExpired(System.currentTimeMillis());
 
         if (allFinished || timeExpired) {
-            endOfQuiz(q);
+            endOfQuiz(findQuiz(quizId));     // checkpoint: the only Quiz load on this path
         }
 
         /* ───── broadcast & response ───── */
-        broadcastProgress(quizId, cards.size(), allFinished || timeExpired);
+        broadcastProgress(quizId, total, allFinished || timeExpired);
 
         QuizAnswerResponseDTO dto = new QuizAnswerResponseDTO();
         dto.setWasCorrect(correct);
         dto.setFinished(prog.isFinished());
+        dto.setRank(rank);
+        dto.setPlayers(leaderboard.size());
         dto.setNextQuestion(
                 prog.isFinished() ? null
-                        : flashcardMapper.toDTO(cards.get(prog.getCurrentIndex()))
+                        : session.getQuestion(prog.getCurrentIndex())
         );
+        if (!prog.isFinished()) {
+            dto.setPrefetch(session.window(prog.getCurrentIndex(), sessionCache.getPrefetchWindow()));
+        }
+        return dto;
+    }
+
+    /**
+     * Answers a solo player gave while offline, applied in one mailbox turn
+     * and one transaction. The whole batch is validated against the question
+     * order first, so a batch is applied completely or not at all. Answers
+     * not newer than the last applied client timestamp came with an earlier
+     * batch the client retried and are ignored, as are answers given after
+     * the time limit. Score and statistics rows are written once, at the end.
+     */
+    public QuizAnswerBatchResponseDTO processAnswerBatch(Long quizId, Long userId, List<BatchedAnswerDTO> answers) {
+        return inQuiz(quizId, () -> applyAnswerBatch(quizId, userId, answers));
+    }
+
+    private QuizAnswerBatchResponseDTO applyAnswerBatch(Long quizId, Long userId, List<BatchedAnswerDTO> answers) {
+        QuizSession session = getRunningSession(quizId);
+        if (session.isMultiple()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Answer batches are only accepted in solo quizzes.");
+        }
+        if (answers.size() > MAX_ANSWER_BATCH) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + MAX_ANSWER_BATCH + " answers per batch.");
+        }
+        QuizProgressStore.ProgressState prog = progressStore.getProgress(quizId, userId);
+
+        /* ───── validation pass: replay the batch on a copy of the pointer ───── */
+        int     total    = session.size();
+        int     idx      = prog.getCurrentIndex();
+        boolean finished = prog.isFinished();
+        long    applied  = prog.getLastClientTimestamp();
+        long    deadline = session.getDeadlineMillis();
+        byte[]  outcome  = new byte[answers.size()];       // 0 = ignored, else ANSWER_*
+        long    previous = Long.MIN_VALUE;
+        long    lastTs   = applied;
+        long    lastAnsweredTs = 0L;
+
+        for (int i = 0; i < answers.size(); i++) {
+            BatchedAnswerDTO a = answers.get(i);
+            if (a == null || a.getFlashcardId() == null || a.getClientTimestamp() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required fields in answer " + i + ".");
+            }
+            long ts = a.getClientTimestamp();
+            if (ts <= previous) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Answers must be in increasing clientTimestamp order.");
+            }
+            previous = ts;
+            if (ts <= applied || finished || (deadline > 0 && ts >= deadline)) {
+                continue;
+            }
+            if (session.getCardId(idx) != a.getFlashcardId()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Answer " + i + " is not for question " + idx + ".");
+            }
+            boolean answered = a.getSelectedOption() != null
+                    || (a.getSelectedAnswer() != null && !a.getSelectedAnswer().isBlank());
+            boolean correct  = answered
+                    && answerMatcher.matches(session.getCard(idx), a.getSelectedAnswer(), a.getSelectedOption());
+
+            outcome[i] = correct ? ANSWER_CORRECT : answered ? ANSWER_WRONG : ANSWER_SKIPPED;
+            if (correct && idx + 1 < total) {
+                idx++;
+            } else if (correct || (!answered && idx + 1 == total)) {
+                finished = true;
+            }
+            if (answered) {
+                lastAnsweredTs = ts;
+            }
+            lastTs = ts;
+        }
+
+        /* ───── apply ───── */
+        markPlaying(session, userId);
+        int appliedCount = 0;
+        for (byte o : outcome) {
+            if (o == 0) {
+                continue;
+            }
+            appliedCount++;
+            if (o != ANSWER_SKIPPED) {
+                prog.incrementAttempts();
+            }
+            if (o == ANSWER_CORRECT) {
+                prog.incrementCorrect();
+                writeBehind.recordCorrectAnswer(quizId, userId, total);
+            }
+            (o == ANSWER_CORRECT ? correctAnswers : o == ANSWER_WRONG ? wrongAnswers : skippedAnswers).increment();
+        }
+        boolean moved = idx != prog.getCurrentIndex();
+        prog.setCurrentIndex(idx);
+        prog.setLastClientTimestamp(lastTs);
+        if (finished) {
+            prog.markFinished();
+        } else if (moved) {
+            timeouts.scheduleQuestionTimeout(quizId, userId, idx);
+        } else {
+            startQuestionClock(session, userId, idx);
+        }
+        if (lastAnsweredTs != 0L) {
+            long elapsed = Math.max(0L, Math.min(lastAnsweredTs, System.currentTimeMillis()) - prog.getStartTimeMillis());
+            writeBehind.recordStats(quizId, userId, prog.getTotalCorrect(), prog.getTotalAttempts(), elapsed);
+        }
+        rank(progressStore.getLeaderboard(quizId), userId, prog);
+
+        /* ───── end-of-quiz detection, otherwise one batched flush ───── */
+        boolean ended = checkAllFinished(session) || session.isExpired(System.currentTimeMillis());
+        if (ended) {
+            endOfQuiz(findQuiz(quizId));
+        } else {
+            writeBehind.flushQuiz(quizId);
+        }
+        broadcastProgress(quizId, total, ended);
+
+        QuizAnswerBatchResponseDTO dto = new QuizAnswerBatchResponseDTO();
+        dto.setApplied(appliedCount);
+        dto.setIgnored(answers.size() - appliedCount);
+        dto.setCurrentIndex(prog.getCurrentIndex());
+        dto.setTotalQuestions(total);
+        dto.setTotalCorrect(prog.getTotalCorrect());
+        dto.setTotalAttempts(prog.getTotalAttempts());
+        dto.setFinished(prog.isFinished());
+        if (!prog.isFinished()) {
+            dto.setPrefetch(session.window(prog.getCurrentIndex(), sessionCache.getPrefetchWindow()));
+        }
         return dto;
     }
 
-    @Transactional
     public void cancelQuiz(Long quizId) {
-        Quiz q = quizRepository.findById(quizId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
+        inQuiz(quizId, () -> {
+            endOfQuiz(findQuiz(quizId));
+            return null;
+        });
+    }
+
+    /* ───── server-side timeouts (called from QuizTimeouts, see QuizTimeoutHandler) ───── */
+
+    /** Time limit reached: ends the quiz and pushes the finished frame, unless it already ended. */
+    public void expireQuiz(Long quizId) {
+        inQuiz(quizId, () -> {
+            Quiz q = quizRepository.findById(quizId).orElse(null);
+            if (q != null && q.getQuizStatus() == QuizStatus.IN_PROGRESS) {
+                int total = q.getQuestionCount();
+                endOfQuiz(q);
+                broadcaster.quizFinished(quizId, total);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * The progress reaper dropped a quiz: one still IN_PROGRESS was abandoned,
+     * so it is completed and its players are released. Nobody listens any more,
+     * so no frame is sent.
+     */
+    public void closeAbandonedQuiz(Long quizId) {
+        inQuiz(quizId, () -> {
+            Quiz q = quizRepository.findById(quizId).orElse(null);
+            if (q != null && q.getQuizStatus() == QuizStatus.IN_PROGRESS) {
+                endOfQuiz(q);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * A player did not answer question {@code index} in time: the question
+     * counts as skipped and the player moves on, or finishes on the last card.
+     * A no-op if the player answered it in the meantime.
+     */
+    public void expireQuestion(Long quizId, Long userId, int index) {
+        inQuiz(quizId, () -> {
+            skipQuestion(quizId, userId, index);
+            return null;
+        });
+    }
+
+    private void skipQuestion(Long quizId, Long userId, int index) {
+        QuizSession session = sessionCache.get(quizId);
+        if (session == null) {
+            return;                                  // quiz already ended
+        }
+        QuizProgressStore.ProgressState prog = progressStore.getProgress(quizId, userId);
+        int total = session.size();
+        if (prog.isFinished() || prog.getCurrentIndex() != index) {
+            return;
+        }
+        boolean moved = index + 1 < total
+                ? prog.advance(index, index + 1)
+                : prog.markFinished();
+        if (!moved) {
+            return;                                  // lost the race against an answer
+        }
+        skippedAnswers.increment();
+
+        if (prog.isFinished()) {
+            long elapsed = System.currentTimeMillis() - prog.getStartTimeMillis();
+            writeBehind.recordStats(quizId, userId,
+                    prog.getTotalCorrect(), prog.getTotalAttempts(), elapsed);
+        } else {
+            timeouts.scheduleQuestionTimeout(quizId, userId, index + 1);
+        }
+        rank(progressStore.getLeaderboard(quizId), userId, prog);
 
-        endOfQuiz(q);
+        boolean allFinished = checkAllFinished(session);
+        if (allFinished) {
+            endOfQuiz(findQuiz(quizId));
+        }
+        broadcastProgress(quizId, total, allFinished);
+    }
+
+    /** Deadlines of quizzes that were running before a restart. */
+    @Transactional(readOnly = true)
+    public int scheduleRunningDeadlines() {
+        int scheduled = 0;
+        for (Quiz q : quizRepository.findByQuizStatus(QuizStatus.IN_PROGRESS)) {
+            if (q.getTimeLimit() > 0 && q.getStartTime() != null) {
+                timeouts.scheduleQuizDeadline(q.getId(), q.getStartTime().getTime() + q.getTimeLimit() * 1000L);
+                scheduled++;
+            }
+        }
+        return scheduled;
     }
 
 
     /* helpers ------------------------------------------------------------ */
 
+    /**
+     * Runs {@code work} as the next event of the quiz's mailbox, in its own
+     * transaction (or the caller's). All state transitions of a running quiz
+     * go through here, so they never interleave; see {@link QuizActorExecutor}.
+     */
+    private <T> T inQuiz(Long quizId, Supplier<T> work) {
+        return actors.call(quizId, () -> transactionTemplate.execute(status -> work.get()));
+    }
+
     /* ───── end-of-quiz detection ───── */
     private void endOfQuiz(Quiz q){
         q.setQuizStatus(QuizStatus.COMPLETED);
@@ -418,31 +867,34 @@ public class QuizService {
             q.setEndTime(new Date());
 
             /* record stats only for players who were still active */
-            QuizProgressStore.getProgressForQuiz(q.getId()).forEach(entry -> {
+            QuizLeaderboard leaderboard = progressStore.getLeaderboard(q.getId());
+            progressStore.getProgressForQuiz(q.getId()).forEach(entry -> {
                 QuizProgressStore.ProgressState p = entry.getProgress();
-                if (!p.isFinished()) {
+                if (p.markFinished()) {
                     long el = System.currentTimeMillis() - p.getStartTimeMillis();
-                    statisticsService.recordQuizStats(findUser(entry.getUserId()), q,
+                    writeBehind.recordStats(q.getId(), entry.getUserId(),
                             p.getTotalCorrect(), p.getTotalAttempts(), el);
-                    p.setFinished(true);
+                    rank(leaderboard, entry.getUserId(), p);
                 }
             });
-
-            /* reset player statuses (multi-player case) */
-            if (q.getScores().size() == 2){
-                List<Score> scores = q.getScores();
-                User u1 = scores.get(0).getUser();
-                User u2 = scores.get(1).getUser();
-                u1.setStatus(UserStatus.ONLINE);
-                u2.setStatus(UserStatus.ONLINE);
-                userRepository.saveAll(List.of(u1, u2));
-                userRepository.flush();
+            if (Boolean.TRUE.equals(q.getIsMultiple())) {
+                leaderboard.top(1).forEach(e -> q.setWinner(e.getUserId()));
             }
-            if (q.getScores().size() == 1){
-                List<Score> scores = q.getScores();
-                User u1 = scores.get(0).getUser();
-                u1.setStatus(UserStatus.ONLINE);
-                userRepository.saveAndFlush(u1);
+
+            /* guaranteed final flush of everything buffered for this quiz */
+            writeBehind.flushQuiz(q.getId());
+
+            /* reset player statuses once the quiz end is committed; the presence registry writes
+               them with its next flush. Only players still marked as playing, someone who went
+               offline keeps that status. */
+            for (Score score : q.getScores()) {
+                User player = score.getUser();
+                UserStatus stored = player.getStatus();
+                TransactionHooks.afterCommit(() -> {
+                    if (presence.getStatus(player.getId(), stored) == UserStatus.PLAYING) {
+                        presence.setStatus(player.getId(), UserStatus.ONLINE);
+                    }
+                });
             }
             // if (q.getInvitation() != null) {
             //     User u1 = q.getInvitation().getFromUser();
@@ -453,33 +905,104 @@ public class QuizService {
             //     userRepository.flush();
             // }
             quizRepository.saveAndFlush(q);
+            progressStore.markCompleted(q.getId());
+            sessionCache.evict(q.getId());
+            timeouts.cancelQuizDeadline(q.getId());
     }
 
+    /**
+     * Called whenever a quiz goes IN_PROGRESS: opens the session snapshot,
+     * lets the progress reaper know when the quiz can be considered abandoned
+     * and arms the server-side deadline.
+     */
+    private void trackRunningQuiz(Quiz q) {
+        if (q.getId() == null) {
+            return;
+        }
+        QuizSession session = sessionCache.open(q);
+        progressStore.registerQuiz(q.getId(), session.getDeadlineMillis());
+        QuizLeaderboard leaderboard = progressStore.getLeaderboard(q.getId());
+        session.getParticipantIds().forEach(leaderboard::join);
+        timeouts.scheduleQuizDeadline(q.getId(), session.getDeadlineMillis());
+    }
 
-    private boolean checkAllFinished(Quiz q) {
-        List<QuizProgressStore.UserProgressEntry> ps = QuizProgressStore.getProgressForQuiz(q.getId());
-        return q.getIsMultiple()
-                ? ps.size() >= 2 && ps.stream().allMatch(e -> e.getProgress().isFinished())
-                : !ps.isEmpty() && ps.get(0).getProgress().isFinished();
+    /** Sets the PLAYING status once per player and session. */
+    private void markPlaying(QuizSession session, Long userId) {
+        if (!session.isMarkedPlaying(userId)) {
+            User u = findUser(userId);
+            if (presence.getStatus(userId, u.getStatus()) != UserStatus.PLAYING) {
+                setPresenceAfterCommit(userId, UserStatus.PLAYING);
+            }
+            session.markPlaying(userId);
+        }
     }
 
-    private void broadcastProgress(Long quizId, int total, boolean finished) {
-        List<PlayerProgressDTO> board = QuizProgressStore.getProgressForQuiz(quizId).stream()
-                .map(e -> {
-                    PlayerProgressDTO d = new PlayerProgressDTO();
-                    d.setUserId(e.getUserId());
-                    d.setScore(e.getProgress().getTotalCorrect());
-                    d.setAnsweredQuestions(e.getProgress().getCurrentIndex());
-                    return d;
-                }).collect(Collectors.toList());
+    /** Presence lives in memory; a change of a rolled back transaction must never reach it. */
+    private void setPresenceAfterCommit(Long userId, UserStatus status) {
+        TransactionHooks.afterCommit(() -> presence.setStatus(userId, status));
+    }
+
+    /** Arms the per-question timeout the first time a player sees a question of this session. */
+    private void startQuestionClock(QuizSession session, Long userId, int idx) {
+        if (timeouts.isQuestionTimeoutEnabled() && session.startClock(userId)) {
+            timeouts.scheduleQuestionTimeout(session.getQuizId(), userId, idx);
+        }
+    }
+
+    /** Session of a running quiz; rebuilt from the DB once on a cache miss (e.g. after a restart). */
+    private QuizSession getRunningSession(Long quizId) {
+        QuizSession session = sessionCache.get(quizId);
+        if (session != null) {
+            return session;
+        }
+        Quiz q = findQuiz(quizId);
+        if (q.getQuizStatus() != QuizStatus.IN_PROGRESS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quiz not in progress.");
+        }
+        return sessionCache.open(q);
+    }
+
+    /** Counted by the leaderboard, so a lobby of n players is not walked on every answer. */
+    private boolean checkAllFinished(QuizSession session) {
+        int expected = Math.max(session.isMultiple() ? 2 : 1, session.getParticipantIds().size());
+        return progressStore.getLeaderboard(session.getQuizId()).getFinished() >= expected;
+    }
+
+    /** Re-ranks the player after its progress changed; returns its rank. */
+    private int rank(QuizLeaderboard leaderboard, Long userId, QuizProgressStore.ProgressState prog) {
+        return leaderboard.update(userId, prog.getTotalCorrect(), prog.getFinishedAtMillis());
+    }
 
-        QuizUpdateMessageDTO msg = new QuizUpdateMessageDTO();
-        msg.setQuizId(quizId);
-        msg.setUpdateType(finished ? "finished" : "progress");
-        msg.setTotalQuestions((long) total);
-        msg.setPlayerProgress(board);
+    /** Coalesced per tick by the broadcaster; the finished frame goes out immediately. */
+    private void broadcastProgress(Long quizId, int total, boolean finished) {
+        if (finished) {
+            broadcaster.quizFinished(quizId, total);
+        } else {
+            broadcaster.progressChanged(quizId, total);
+        }
+    }
 
-        messagingTemplate.convertAndSend("/topic/quizUpdates/" + quizId, msg);
+    /**
+     * The best {@code limit} players of a live quiz (at most {@value #MAX_LEADERS})
+     * and, if {@code userId} is given, that player's own place. Served from
+     * memory; a quiz stays readable until its progress is reaped.
+     */
+    public LeaderboardDTO getLeaderboard(Long quizId, Long userId, int limit) {
+        QuizLeaderboard leaderboard = progressStore.findLeaderboard(quizId);
+        if (leaderboard == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No live leaderboard for this quiz.");
+        }
+        LeaderboardDTO dto = new LeaderboardDTO();
+        dto.setQuizId(quizId);
+        dto.setPlayers(leaderboard.size());
+        dto.setLeaders(leaderboard.top(Math.max(0, Math.min(limit, MAX_LEADERS))).stream()
+                .map(QuizLeaderboard.Entry::toDTO)
+                .collect(Collectors.toList()));
+        if (userId != null) {
+            QuizLeaderboard.Entry own = leaderboard.get(userId);
+            dto.setOwn(own == null ? null : own.toDTO());
+        }
+        return dto;
     }
 
     public Quiz getQuizStatus(Long id) {
@@ -487,6 +1010,11 @@ public class QuizService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
     }
 
+    private Quiz findQuiz(Long id) {
+        return quizRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Quiz not found"));
+    }
+
     private User findUser(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
@@ -0,0 +1,144 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Quiz;
+import ch.uzh.ifi.hase.soprafs24.entity.Score;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuestionWindowDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizQuestionDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of a running quiz: question order, answers, question views
+ * and participants. Built once when the quiz goes IN_PROGRESS so the answer
+ * path can validate and advance without touching the database.
+ */
+public final class QuizSession {
+
+    private final Long    quizId;
+    private final boolean multiple;
+    private final int     timeLimit;
+    private final long    startTimeMillis;
+    private final long    deadlineMillis;          // 0 = no time limit
+
+    private final List<FlashcardCache.Card> cards;
+    private final long[]             cardIds;
+    private final String[]           answers;
+    private final List<QuizQuestionDTO> questions;    // what players see, without the answer
+    private final Set<Long>          participantIds;
+
+    // the only mutable parts: users whose PLAYING status was already written,
+    // and users whose per-question timeout is already running
+    private final Set<Long> playingUsers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> clockedUsers = ConcurrentHashMap.newKeySet();
+
+    private QuizSession(Quiz quiz, List<FlashcardCache.Card> cards) {
+        this.quizId          = quiz.getId();
+        this.multiple        = Boolean.TRUE.equals(quiz.getIsMultiple());
+        this.timeLimit       = quiz.getTimeLimit();
+        this.startTimeMillis = quiz.getStartTime() != null
+                ? quiz.getStartTime().getTime() : System.currentTimeMillis();
+        this.deadlineMillis  = timeLimit > 0 ? startTimeMillis + timeLimit * 1000L : 0L;
+
+        this.cards   = List.copyOf(cards);
+        this.cardIds = new long[cards.size()];
+        this.answers = new String[cards.size()];
+        List<QuizQuestionDTO> prefetchable = new ArrayList<>(cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            FlashcardCache.Card card = cards.get(i);
+            cardIds[i] = card.getId();
+            answers[i] = card.getAnswer();
+            prefetchable.add(card.getQuestion());
+        }
+        this.questions = Collections.unmodifiableList(prefetchable);
+
+        Set<Long> participants = new LinkedHashSet<>();
+        for (Score score : quiz.getScores()) {
+            if (score.getUser() != null) {
+                participants.add(score.getUser().getId());
+            }
+        }
+        if (quiz.getInvitation() != null) {
+            participants.add(quiz.getInvitation().getFromUser().getId());
+            participants.add(quiz.getInvitation().getToUser().getId());
+        }
+        this.participantIds = Collections.unmodifiableSet(participants);
+    }
+
+    /** @param cards the questions in order, resolved from {@link Quiz#getQuestionOrder()} */
+    static QuizSession of(Quiz quiz, List<FlashcardCache.Card> cards) {
+        return new QuizSession(quiz, cards);
+    }
+
+    public Long getQuizId()            { return quizId; }
+    public boolean isMultiple()        { return multiple; }
+    public int getTimeLimit()          { return timeLimit; }
+    public long getStartTimeMillis()   { return startTimeMillis; }
+    public long getDeadlineMillis()    { return deadlineMillis; }
+    public Set<Long> getParticipantIds() { return participantIds; }
+
+    public int size() {
+        return cardIds.length;
+    }
+
+    public long getCardId(int index) {
+        return cardIds[index];
+    }
+
+    public String getAnswer(int index) {
+        return answers[index];
+    }
+
+    public FlashcardCache.Card getCard(int index) {
+        return cards.get(index);
+    }
+
+    /** The question at {@code index} as players see it, without the answer. */
+    public QuizQuestionDTO getQuestion(int index) {
+        return questions.get(index);
+    }
+
+    /**
+     * Up to {@code size} questions starting at {@code fromIndex}, without answers.
+     * @return null if prefetching is off or there is nothing left to ask
+     */
+    public QuestionWindowDTO window(int fromIndex, int size) {
+        if (size <= 0 || fromIndex < 0 || fromIndex >= questions.size()) {
+            return null;
+        }
+        List<QuizQuestionDTO> upcoming = questions.subList(fromIndex, Math.min(questions.size(), fromIndex + size));
+        List<String> imageUrls = new ArrayList<>(upcoming.size());
+        for (QuizQuestionDTO q : upcoming) {
+            if (q.getImageUrl() != null && !imageUrls.contains(q.getImageUrl())) {
+                imageUrls.add(q.getImageUrl());
+            }
+        }
+        QuestionWindowDTO window = new QuestionWindowDTO();
+        window.setFromIndex(fromIndex);
+        window.setTotalQuestions(questions.size());
+        window.setQuestions(upcoming);
+        window.setImageUrls(imageUrls);
+        return window;
+    }
+
+    public boolean isExpired(long now) {
+        return deadlineMillis > 0 && now >= deadlineMillis;
+    }
+
+    boolean isMarkedPlaying(Long userId) {
+        return playingUsers.contains(userId);
+    }
+
+    void markPlaying(Long userId) {
+        playingUsers.add(userId);
+    }
+
+    /** @return true only the first time, when the player's question clock has to be started. */
+    boolean startClock(Long userId) {
+        return clockedUsers.add(userId);
+    }
+}
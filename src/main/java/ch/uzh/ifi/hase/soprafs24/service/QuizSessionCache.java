@@ -0,0 +1,72 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Flashcard;
+import ch.uzh.ifi.hase.soprafs24.entity.Quiz;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active quiz sessions, keyed by quiz id.
+ * Opened when a quiz goes IN_PROGRESS, dropped by endOfQuiz or when the
+ * progress reaper evicts the quiz.
+ */
+@Component
+public class QuizSessionCache {
+
+    private final ConcurrentHashMap<Long, QuizSession> sessions = new ConcurrentHashMap<>();
+
+    private final FlashcardCache flashcardCache;
+    private final int            prefetchWindow;
+
+    public QuizSessionCache(FlashcardCache flashcardCache,
+                            QuizProgressStore progressStore,
+                            @Value("${quiz.prefetch.window:3}") int prefetchWindow) {
+        this.flashcardCache = flashcardCache;
+        this.prefetchWindow = prefetchWindow;
+        progressStore.addEvictionListener(this::evict);
+    }
+
+    /**
+     * Builds (or rebuilds) the snapshot of a quiz that is IN_PROGRESS.
+     * A quiz from before question_order gets its order from the legacy join
+     * table here; on a managed entity it is written back with the transaction.
+     */
+    public QuizSession open(Quiz quiz) {
+        long[] order = quiz.getQuestionOrder();
+        if (order == null) {
+            List<Flashcard> legacy = quiz.getSelectedFlashcards();
+            order = legacy.stream().mapToLong(Flashcard::getId).toArray();
+            flashcardCache.putAll(legacy);
+            quiz.setQuestionOrder(order);
+        }
+        QuizSession session = QuizSession.of(quiz, flashcardCache.resolve(order));
+        sessions.put(quiz.getId(), session);
+        return session;
+    }
+
+    /** @return the cached session or null if the quiz has none (yet). */
+    public QuizSession get(Long quizId) {
+        return sessions.get(quizId);
+    }
+
+    public void evict(Long quizId) {
+        sessions.remove(quizId);
+    }
+
+    /** The serialized question view at {@code index} of the session, see {@link FlashcardCache#questionJson}. */
+    public byte[] questionJson(QuizSession session, int index) {
+        return flashcardCache.questionJson(session.getCard(index));
+    }
+
+    /** Questions sent ahead with the start and answer responses; 0 turns prefetching off. */
+    public int getPrefetchWindow() {
+        return prefetchWindow;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,57 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Connects {@link QuizTimeouts} and the progress reaper to the transactional
+ * {@link QuizService} methods. Lives in its own bean so the calls go through
+ * the service proxy, and so QuizService does not depend on itself. Expiries
+ * are posted to the quiz's mailbox, so the timer and reaper threads never
+ * wait for a quiz that is busy.
+ */
+@Component
+public class QuizTimeoutHandler {
+
+    private final Logger log = LoggerFactory.getLogger(QuizTimeoutHandler.class);
+
+    private final QuizService quizService;
+
+    private final QuizActorExecutor actors;
+
+    public QuizTimeoutHandler(QuizService quizService,
+                              QuizTimeouts timeouts,
+                              QuizProgressStore progressStore,
+                              QuizActorExecutor actors) {
+        this.quizService = quizService;
+        this.actors      = actors;
+
+        timeouts.addQuizDeadlineListener(
+                quizId -> actors.execute(quizId, () -> quizService.expireQuiz(quizId)));
+        timeouts.addQuestionTimeoutListener(
+                (quizId, userId, index) -> actors.execute(quizId, () -> quizService.expireQuestion(quizId, userId, index)));
+        progressStore.addEvictionListener(this::closeAbandoned);
+    }
+
+    /** Deadlines are only held in memory; re-arm those of quizzes that survived a restart. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescheduleRunningQuizzes() {
+        int scheduled = quizService.scheduleRunningDeadlines();
+        if (scheduled > 0) {
+            log.info("Re-armed the deadlines of {} running quizzes", scheduled);
+        }
+    }
+
+    private void closeAbandoned(Long quizId) {
+        actors.execute(quizId, () -> {
+            try {
+                quizService.closeAbandonedQuiz(quizId);
+            } catch (RuntimeException e) {
+                log.error("Could not close abandoned quiz {}", quizId, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Server-side deadlines of running quizzes: the quiz time limit and, if
+ * {@code quiz.question-timeout-seconds} is set, a per-question timeout.
+ * All timeouts live on one {@link HashedTimerWheel}; listeners run on the
+ * "quiz-timeout" pool, never on the wheel thread.
+ */
+@Component
+public class QuizTimeouts {
+
+    private final Logger log = LoggerFactory.getLogger(QuizTimeouts.class);
+
+    /** Called when a player has not answered question {@code index} in time. */
+    @FunctionalInterface
+    public interface QuestionTimeoutListener {
+        void onQuestionTimeout(Long quizId, Long userId, int index);
+    }
+
+    private final HashedTimerWheel wheel;
+    private final ExecutorService  dispatcher;
+    private final long             questionTimeoutMillis;
+
+    // one deadline per quiz, so a re-opened session replaces instead of duplicating it
+    private final ConcurrentHashMap<Long, HashedTimerWheel.Timeout> quizDeadlines = new ConcurrentHashMap<>();
+
+    private final List<Consumer<Long>>            deadlineListeners = new CopyOnWriteArrayList<>();
+    private final List<QuestionTimeoutListener>   questionListeners = new CopyOnWriteArrayList<>();
+
+    public QuizTimeouts(QuizProgressStore progressStore,
+                        @Value("${quiz.timeouts.tick-ms:100}") long tickMillis,
+                        @Value("${quiz.timeouts.wheel-size:512}") int wheelSize,
+                        @Value("${quiz.timeouts.pool-size:2}") int poolSize,
+                        @Value("${quiz.question-timeout-seconds:0}") long questionTimeoutSeconds) {
+        AtomicInteger threads = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, poolSize), r -> {
+            Thread t = new Thread(r, "quiz-timeout-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.wheel                 = new HashedTimerWheel("quiz-timer-wheel", tickMillis, wheelSize, dispatcher);
+        this.questionTimeoutMillis = questionTimeoutSeconds * 1000L;
+
+        progressStore.addEvictionListener(this::cancelQuizDeadline);
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+        dispatcher.shutdown();
+    }
+
+    public void addQuizDeadlineListener(Consumer<Long> listener) {
+        deadlineListeners.add(listener);
+    }
+
+    public void addQuestionTimeoutListener(QuestionTimeoutListener listener) {
+        questionListeners.add(listener);
+    }
+
+    /* ───────────── quiz time limit ───────────── */
+
+    /** @param deadlineMillis epoch millis of the time limit; 0 means the quiz has none */
+    public void scheduleQuizDeadline(Long quizId, long deadlineMillis) {
+        if (deadlineMillis <= 0) {
+            return;
+        }
+        long delay = deadlineMillis - System.currentTimeMillis();
+        HashedTimerWheel.Timeout[] self = new HashedTimerWheel.Timeout[1];
+        self[0] = wheel.schedule(() -> {
+            quizDeadlines.remove(quizId, self[0]);
+            deadlineListeners.forEach(l -> notify(() -> l.accept(quizId), quizId));
+        }, delay);
+        HashedTimerWheel.Timeout previous = quizDeadlines.put(quizId, self[0]);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    public void cancelQuizDeadline(Long quizId) {
+        HashedTimerWheel.Timeout t = quizDeadlines.remove(quizId);
+        if (t != null) {
+            t.cancel();
+        }
+    }
+
+    /* ───────────── per-question timeout ───────────── */
+
+    public boolean isQuestionTimeoutEnabled() {
+        return questionTimeoutMillis > 0;
+    }
+
+    /**
+     * Starts the clock of question {@code index} for one player. Not cancelled
+     * on answer: the listener checks whether the player is still on that question.
+     */
+    public void scheduleQuestionTimeout(Long quizId, Long userId, int index) {
+        if (!isQuestionTimeoutEnabled()) {
+            return;
+        }
+        wheel.schedule(() -> questionListeners.forEach(
+                l -> notify(() -> l.onQuestionTimeout(quizId, userId, index), quizId)), questionTimeoutMillis);
+    }
+
+    public int getPending() {
+        return wheel.getPending();
+    }
+
+    private void notify(Runnable call, Long quizId) {
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            log.error("Timeout handling of quiz {} failed", quizId, e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for Score and Statistics rows of running quizzes.
+ * Answers only merge deltas in memory; rows are written in JDBC batches on a
+ * timer, when a quiz ends (joined to the caller's transaction) and on shutdown.
+ * A flush holds the lock of its quiz until its transaction completed, so the
+ * next flush of that quiz sees the rows it inserted; flushes of other quizzes
+ * do not wait. Deltas of a rolled back flush are put back.
+ */
+@Component
+public class QuizWriteBehindBuffer {
+
+    private static final String UPDATE_SCORE =
+            "UPDATE score SET correct_questions = correct_questions + ? WHERE quiz_id = ? AND user_id = ?";
+    private static final String INSERT_SCORE =
+            "INSERT INTO score (quiz_id, user_id, correct_questions, total_questions) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_STATS =
+            "UPDATE statistics SET score = ?, number_of_attempts = ?, time_taken = ?, quiz_date = ? "
+                    + "WHERE quiz_id = ? AND user_id = ?";
+    private static final String INSERT_STATS =
+            "INSERT INTO statistics (quiz_id, user_id, score, number_of_attempts, time_taken, quiz_date) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final Logger log = LoggerFactory.getLogger(QuizWriteBehindBuffer.class);
+
+    // quizId -> userId -> merged deltas; the inner map is only touched inside compute/remove on the outer one
+    private final ConcurrentHashMap<Long, Map<Long, PendingWrite>> pending = new ConcurrentHashMap<>();
+
+    // one flush per quiz at a time, held until its transaction completed: a flush that
+    // cannot see an uncommitted insert would insert the same (quiz, user) row again
+    private final ConcurrentHashMap<Long, FlushLock> flushLocks = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate        jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public QuizWriteBehindBuffer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate        = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /* ───────────── recording (hot path, memory only) ───────────── */
+
+    public void recordCorrectAnswer(Long quizId, Long userId, int totalQuestions) {
+        pending.compute(quizId, (id, users) -> {
+            Map<Long, PendingWrite> map = users != null ? users : new HashMap<>();
+            PendingWrite w = map.computeIfAbsent(userId, u -> new PendingWrite());
+            w.correctDelta++;
+            w.totalQuestions = totalQuestions;
+            return map;
+        });
+    }
+
+    public void recordStats(Long quizId, Long userId, int score, int attempts, long timeTakenMillis) {
+        pending.compute(quizId, (id, users) -> {
+            Map<Long, PendingWrite> map = users != null ? users : new HashMap<>();
+            PendingWrite w = map.computeIfAbsent(userId, u -> new PendingWrite());
+            w.statsDirty      = true;
+            w.score           = score;
+            w.attempts        = attempts;
+            w.timeTakenMillis = timeTakenMillis;
+            w.quizDateMillis  = System.currentTimeMillis();
+            return map;
+        });
+    }
+
+    public int getPendingQuizzes() {
+        return pending.size();
+    }
+
+    /* ───────────── flushing ───────────── */
+
+    /** Flushes one quiz; joins the caller's transaction if there is one, otherwise opens its own. */
+    public void flushQuiz(Long quizId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            flushLocked(quizId);
+        } else {
+            transactionTemplate.executeWithoutResult(status -> flushLocked(quizId));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${quiz.write-behind.flush-interval-ms:1000}")
+    public void flushAll() {
+        for (Long quizId : new ArrayList<>(pending.keySet())) {
+            try {
+                flushQuiz(quizId);
+            } catch (RuntimeException e) {
+                log.error("Write-behind flush of quiz {} failed, its deltas are kept for the next one", quizId, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAll();
+    }
+
+    private void flushLocked(Long quizId) {
+        lock(quizId);
+        Map<Long, PendingWrite> users = pending.remove(quizId);
+        if (users == null || users.isEmpty()) {
+            unlock(quizId);
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // nothing to wait for: the statements are visible once they ran
+            try {
+                write(quizId, users);
+            } catch (RuntimeException e) {
+                restore(quizId, users);
+                throw e;
+            } finally {
+                unlock(quizId);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_ROLLED_BACK) {
+                        restore(quizId, users);
+                    }
+                } finally {
+                    unlock(quizId);
+                }
+            }
+        });
+        write(quizId, users);
+    }
+
+    /** Takes the flush lock of the quiz, creating it for the first holder. */
+    private void lock(Long quizId) {
+        flushLocks.compute(quizId, (id, l) -> {
+            FlushLock lock = l != null ? l : new FlushLock();
+            lock.holders++;
+            return lock;
+        }).lock();
+    }
+
+    /** Releases the flush lock of the quiz and drops it once nobody holds or waits for it. */
+    private void unlock(Long quizId) {
+        flushLocks.computeIfPresent(quizId, (id, lock) -> {
+            lock.unlock();
+            return --lock.holders == 0 ? null : lock;
+        });
+    }
+
+    /** Puts the deltas of a failed flush back, under whatever was recorded meanwhile. */
+    private void restore(Long quizId, Map<Long, PendingWrite> failed) {
+        pending.compute(quizId, (id, users) -> {
+            Map<Long, PendingWrite> map = users != null ? users : new HashMap<>();
+            failed.forEach((userId, older) -> map.merge(userId, older, PendingWrite::absorbOlder));
+            return map;
+        });
+    }
+
+    private void write(Long quizId, Map<Long, PendingWrite> users) {
+        List<Object[]> scoreUpdates = new ArrayList<>();
+        List<Object[]> scoreInserts = new ArrayList<>();
+        List<Object[]> statsUpdates = new ArrayList<>();
+        List<Object[]> statsInserts = new ArrayList<>();
+
+        for (Map.Entry<Long, PendingWrite> e : users.entrySet()) {
+            Long userId = e.getKey();
+            PendingWrite w = e.getValue();
+            if (w.correctDelta > 0) {
+                scoreUpdates.add(new Object[]{w.correctDelta, quizId, userId});
+                scoreInserts.add(new Object[]{quizId, userId, w.correctDelta, w.totalQuestions});
+            }
+            if (w.statsDirty) {
+                Timestamp date = new Timestamp(w.quizDateMillis);
+                long seconds = w.timeTakenMillis / 1000;
+                statsUpdates.add(new Object[]{w.score, w.attempts, seconds, date, quizId, userId});
+                statsInserts.add(new Object[]{quizId, userId, w.score, w.attempts, seconds, date});
+            }
+        }
+        upsert(UPDATE_SCORE, scoreUpdates, INSERT_SCORE, scoreInserts);
+        upsert(UPDATE_STATS, statsUpdates, INSERT_STATS, statsInserts);
+    }
+
+    /** Batch UPDATE first, then batch INSERT the rows that did not exist yet. */
+    private void upsert(String updateSql, List<Object[]> updates, String insertSql, List<Object[]> inserts) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(updateSql, updates);
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                missing.add(inserts.get(i));
+            }
+            // Statement.SUCCESS_NO_INFO (-2) means the driver did update something
+            else if (counts[i] != Statement.SUCCESS_NO_INFO && counts[i] < 0) {
+                log.warn("Unexpected batch update count {} for {}", counts[i], updateSql);
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertSql, missing);
+        }
+    }
+
+    /** Per-quiz flush lock; {@code holders} counts holders and waiters and is only touched inside compute. */
+    private static final class FlushLock extends ReentrantLock {
+        int holders;
+    }
+
+    /** Merged, not yet persisted changes of one player in one quiz. */
+    private static final class PendingWrite {
+        int     correctDelta;
+        int     totalQuestions;
+        boolean statsDirty;
+        int     score;
+        int     attempts;
+        long    timeTakenMillis;
+        long    quizDateMillis;
+
+        /** Merges the deltas of an earlier, failed flush into this newer write. */
+        PendingWrite absorbOlder(PendingWrite older) {
+            correctDelta += older.correctDelta;
+            if (totalQuestions == 0) {
+                totalQuestions = older.totalQuestions;
+            }
+            if (!statsDirty && older.statsDirty) {
+                statsDirty      = true;
+                score           = older.score;
+                attempts        = older.attempts;
+                timeTakenMillis = older.timeTakenMillis;
+                quizDateMillis  = older.quizDateMillis;
+            }
+            return this;
+        }
+    }
+}
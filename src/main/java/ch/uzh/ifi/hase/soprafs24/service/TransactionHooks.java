@@ -0,0 +1,28 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Deferral of in-memory side effects (broadcasts, invitation events, presence
+ * changes) to the commit of the surrounding transaction, so a rolled back
+ * change never becomes visible outside the database.
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {}
+
+    /** Runs the action once the surrounding transaction committed, or right away without one. */
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -33,16 +33,22 @@ public class UserService {
   private final Logger log = LoggerFactory.getLogger(UserService.class);
 
   private final UserRepository userRepository;
+  private final PresenceRegistry presence;
 
   private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
   // @Autowired
-  public UserService(@Qualifier("userRepository") UserRepository userRepository) {
+  public UserService(@Qualifier("userRepository") UserRepository userRepository, PresenceRegistry presence) {
     this.userRepository = userRepository;
+    this.presence = presence;
   }
 
+  // read-only: the live status is shown, but writing it stays with the presence registry
+  @Transactional(readOnly = true)
   public List<User> getUsers() {
-    return this.userRepository.findAll();
+    List<User> users = this.userRepository.findAll();
+    users.forEach(this::showPresence);
+    return users;
   }
 
   public User createUser(User newUser) {
@@ -60,6 +66,7 @@ public class UserService {
     // flush() is called
     newUser = userRepository.save(newUser);
     userRepository.flush();
+    presence.record(newUser.getId(), UserStatus.ONLINE);
 
     log.debug("Created Information for User: {}", newUser);
     return newUser;
@@ -141,9 +148,12 @@ public class UserService {
 }
 
   // implement function to get user by their ID
+  @Transactional(readOnly = true)
   public User getUserById(Long id) {
-    return userRepository.findById(id)
+    User user = userRepository.findById(id)
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User with ID " + id + " not found"));
+    showPresence(user);
+    return user;
   } 
 
   // login function
@@ -167,6 +177,7 @@ public class UserService {
     user.setStatus(UserStatus.ONLINE); // set status to online
     userRepository.save(user); // save
     userRepository.flush();  // since data is only persisted in the database once, call flush
+    presence.record(user.getId(), UserStatus.ONLINE);
 
     return user;
   }
@@ -178,9 +189,15 @@ public class UserService {
     user.setStatus(UserStatus.OFFLINE); // set status offline
     userRepository.save(user); // save
     userRepository.flush(); // flush
+    presence.record(user.getId(), UserStatus.OFFLINE);
     return user;
   }
 
+  // the stored status can lag behind the presence registry by one flush interval
+  private void showPresence(User user) {
+    user.setStatus(presence.getStatus(user.getId(), user.getStatus()));
+  }
+
 
 
 }
@@ -0,0 +1,50 @@
+package ch.uzh.ifi.hase.soprafs24.config;
+
+import ch.uzh.ifi.hase.soprafs24.service.PresenceRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PresenceListenerTest {
+
+    private final PresenceRegistry presence = mock(PresenceRegistry.class);
+    private final PresenceListener listener = new PresenceListener(presence);
+
+    @Test
+    void authenticatedConnect_isRecorded() {
+        StompAuthInterceptor.UserPrincipal user = new StompAuthInterceptor.UserPrincipal(42L);
+
+        listener.onConnected(new SessionConnectedEvent(this, frame(StompCommand.CONNECTED), user));
+
+        verify(presence).sessionConnected("s1", 42L);
+    }
+
+    @Test
+    void anonymousConnect_isIgnored() {
+        listener.onConnected(new SessionConnectedEvent(this, frame(StompCommand.CONNECTED), null));
+
+        verify(presence, never()).sessionConnected(any(), any());
+    }
+
+    @Test
+    void disconnect_isRecorded() {
+        listener.onDisconnected(new SessionDisconnectEvent(this, frame(StompCommand.DISCONNECT), "s1",
+                CloseStatus.SESSION_NOT_RELIABLE));
+
+        verify(presence).sessionDisconnected("s1");
+    }
+
+    private static Message<byte[]> frame(StompCommand command) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("s1");
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
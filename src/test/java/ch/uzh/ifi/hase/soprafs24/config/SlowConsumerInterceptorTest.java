@@ -0,0 +1,56 @@
+package ch.uzh.ifi.hase.soprafs24.config;
+
+import ch.uzh.ifi.hase.soprafs24.service.QuizFanout;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowConsumerInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SlowConsumerInterceptor interceptor = new SlowConsumerInterceptor(registry, 2);
+
+    private static Message<byte[]> frame(String sessionId, boolean droppable) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/quizUpdates/1");
+        if (droppable) {
+            accessor.setNativeHeader(QuizFanout.DROPPABLE_HEADER, "true");
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    void droppableFrames_areDiscardedOnceSessionIsBehind() {
+        assertNotNull(interceptor.preSend(frame("s1", true), null));
+        assertNotNull(interceptor.preSend(frame("s1", true), null));
+        assertNull(interceptor.preSend(frame("s1", true), null));       // 2 pending → dropped
+        assertNotNull(interceptor.preSend(frame("s1", false), null));   // snapshots always go out
+        assertNotNull(interceptor.preSend(frame("s2", true), null));    // other sessions unaffected
+
+        assertEquals(3, interceptor.getPending("s1"));
+        assertEquals(1, interceptor.getSlowSessions());
+        assertEquals(1.0, registry.get("stomp.outbound.dropped").counter().count());
+    }
+
+    @Test
+    void afterMessageHandled_releasesTheSession() {
+        Message<byte[]> m = frame("s1", true);
+        interceptor.preSend(m, null);
+        interceptor.preSend(m, null);
+        interceptor.afterMessageHandled(m, null, null, null);
+
+        assertEquals(1, interceptor.getPending("s1"));
+        assertNotNull(interceptor.preSend(frame("s1", true), null));
+
+        interceptor.afterMessageHandled(m, null, null, null);
+        interceptor.afterMessageHandled(m, null, null, null);
+        assertEquals(0, interceptor.getPending("s1"));
+    }
+}
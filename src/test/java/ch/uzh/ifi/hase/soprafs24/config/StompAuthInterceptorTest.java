@@ -0,0 +1,66 @@
+package ch.uzh.ifi.hase.soprafs24.config;
+
+import ch.uzh.ifi.hase.soprafs24.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StompAuthInterceptorTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final StompAuthInterceptor interceptor = new StompAuthInterceptor(userService);
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @Test
+    void connectWithToken_bindsUserPrincipal() {
+        when(userService.getUserIdFromToken("abc")).thenReturn(42L);
+        Message<byte[]> connect = frame(StompCommand.CONNECT, "abc");
+
+        interceptor.preSend(connect, channel);
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(connect);
+        assertEquals(new StompAuthInterceptor.UserPrincipal(42L), accessor.getUser());
+        assertEquals("42", accessor.getUser().getName());
+    }
+
+    @Test
+    void connectWithoutToken_staysAnonymous() {
+        Message<byte[]> connect = frame(StompCommand.CONNECT, null);
+
+        interceptor.preSend(connect, channel);
+
+        assertNull(StompHeaderAccessor.wrap(connect).getUser());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void connectWithUnknownToken_isRefused() {
+        when(userService.getUserIdFromToken("nope")).thenReturn(null);
+
+        assertThrows(MessagingException.class, () -> interceptor.preSend(frame(StompCommand.CONNECT, "nope"), channel));
+    }
+
+    @Test
+    void otherFrames_areNotLookedAt() {
+        interceptor.preSend(frame(StompCommand.SEND, "abc"), channel);
+
+        verifyNoInteractions(userService);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String token) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        if (token != null) {
+            accessor.addNativeHeader(StompAuthInterceptor.TOKEN_HEADER, token);
+        }
+        accessor.setSessionId("s1");
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
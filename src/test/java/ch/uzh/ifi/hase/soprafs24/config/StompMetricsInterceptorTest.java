@@ -0,0 +1,39 @@
+package ch.uzh.ifi.hase.soprafs24.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StompMetricsInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StompMetricsInterceptor interceptor = new StompMetricsInterceptor(registry);
+
+    private static Message<byte[]> frame(SimpMessageType type, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    void topicOf_foldsIds() {
+        assertEquals("/topic/quizUpdates/{id}", StompMetricsInterceptor.topicOf("/topic/quizUpdates/42"));
+        assertEquals("/topic/invitation/{id}/status", StompMetricsInterceptor.topicOf("/topic/invitation/7/status"));
+        assertEquals("/topic/v2", StompMetricsInterceptor.topicOf("/topic/v2"));
+    }
+
+    @Test
+    void afterSendCompletion_countsSentMessagesPerTopic() {
+        interceptor.afterSendCompletion(frame(SimpMessageType.MESSAGE, "/topic/quizUpdates/1"), null, true, null);
+        interceptor.afterSendCompletion(frame(SimpMessageType.MESSAGE, "/topic/quizUpdates/2"), null, true, null);
+        interceptor.afterSendCompletion(frame(SimpMessageType.MESSAGE, "/topic/quizUpdates/3"), null, false, null);
+        interceptor.afterSendCompletion(frame(SimpMessageType.HEARTBEAT, "/topic/quizUpdates/4"), null, true, null);
+
+        assertEquals(2.0, registry.get("stomp.messages.out").tag("topic", "/topic/quizUpdates/{id}").counter().count());
+    }
+}
@@ -10,7 +10,6 @@ import ch.uzh.ifi.hase.soprafs24.rest.mapper.FlashcardMapper;
 import ch.uzh.ifi.hase.soprafs24.service.FlashcardService;
 import ch.uzh.ifi.hase.soprafs24.service.GoogleCloudStorageService;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.cloud.storage.Blob;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -371,7 +370,7 @@ class FlashcardControllerTest {
 
         @Test
         void getFlashcardImage_notFound() throws Exception {
-            when(googleCloudStorageService.getFileFromBucket("fileX"))
+            when(googleCloudStorageService.downloadFile("fileX"))
                     .thenReturn(null);
 
             mockMvc.perform(get("/flashcards/image")
@@ -381,11 +380,8 @@ class FlashcardControllerTest {
 
         @Test
         void getFlashcardImage_success_streamsBytesAndContentType() throws Exception {
-            Blob blob = mock(Blob.class);
-            when(blob.getContent()).thenReturn("abc".getBytes());
-            when(blob.getContentType()).thenReturn("image/jpg");
-            when(googleCloudStorageService.getFileFromBucket("fileY"))
-                    .thenReturn(blob);
+            when(googleCloudStorageService.downloadFile("fileY"))
+                    .thenReturn(new GoogleCloudStorageService.StoredFile("abc".getBytes(), "image/jpg"));
 
             mockMvc.perform(get("/flashcards/image")
                             .param("imageUrl","https://foo/bar/fileY"))
@@ -0,0 +1,72 @@
+package ch.uzh.ifi.hase.soprafs24.controller;
+
+import ch.uzh.ifi.hase.soprafs24.constant.FlashcardCategory;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.MatchRequestDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.MatchmakingEventDTO;
+import ch.uzh.ifi.hase.soprafs24.service.MatchmakingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(MatchmakingController.class)
+class MatchmakingControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper mapper;
+
+    @MockBean private MatchmakingService matchmakingService;
+
+    @Test
+    void enqueue_returnsTheTicketState() throws Exception {
+        MatchRequestDTO req = new MatchRequestDTO();
+        req.setUserId(1L);
+        req.setCategory(FlashcardCategory.SCIENCE);
+        MatchmakingEventDTO out = new MatchmakingEventDTO();
+        out.setType(MatchmakingService.MATCHED);
+        out.setCategory(FlashcardCategory.SCIENCE);
+        out.setQuizId(9L);
+        out.setOpponentId(2L);
+        when(matchmakingService.enqueue(any())).thenReturn(out);
+
+        mockMvc.perform(post("/quiz/match")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.type").value("matched"))
+                .andExpect(jsonPath("$.quizId").value(9))
+                .andExpect(jsonPath("$.opponentId").value(2));
+
+        verify(matchmakingService).enqueue(argThat(r ->
+                r.getUserId() == 1L && r.getCategory() == FlashcardCategory.SCIENCE));
+    }
+
+    @Test
+    void enqueueTwice_conflict() throws Exception {
+        when(matchmakingService.enqueue(any()))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Already waiting for a match."));
+
+        mockMvc.perform(post("/quiz/match")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":1,\"category\":\"SCIENCE\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void cancel_delegates() throws Exception {
+        mockMvc.perform(delete("/quiz/match").param("userId", "1"))
+                .andExpect(status().isOk());
+
+        verify(matchmakingService).cancel(1L);
+    }
+}
@@ -123,6 +123,36 @@ class QuizControllerTest {
                     .andExpect(jsonPath("$[0].id").value(77));
         }
 
+        @Test
+        void invitationEvents_returnsEventsAfterCursor() throws Exception {
+            InvitationEventDTO event = new InvitationEventDTO();
+            event.setSequence(42L);
+            event.setType("created");
+            event.setInvitationId(77L);
+            InvitationEventsDTO out = new InvitationEventsDTO();
+            out.setLatestSequence(42L);
+            out.setComplete(true);
+            out.setEvents(List.of(event));
+            when(quizService.getInvitationEvents(6L, 40L)).thenReturn(out);
+
+            mockMvc.perform(get("/quiz/invitation/events")
+                            .param("userId", "6")
+                            .param("after", "40"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.complete").value(true))
+                    .andExpect(jsonPath("$.events[0].type").value("created"))
+                    .andExpect(jsonPath("$.events[0].invitationId").value(77));
+        }
+
+        @Test
+        void invitationEvents_withoutCursor_startsAtZero() throws Exception {
+            when(quizService.getInvitationEvents(6L, 0L)).thenReturn(new InvitationEventsDTO());
+
+            mockMvc.perform(get("/quiz/invitation/events").param("userId", "6"))
+                    .andExpect(status().isOk());
+            verify(quizService).getInvitationEvents(6L, 0L);
+        }
+
         @Test
         void confirmInvite_callsService() throws Exception {
             mockMvc.perform(get("/quiz/response/confirmation")
@@ -214,6 +244,36 @@ class QuizControllerTest {
                     .andExpect(jsonPath("$.id").value(9));
         }
 
+        @Test
+        void startQuiz_runningQuiz_includesPrefetchWindow() throws Exception {
+            QuizStartRequestDTO req = new QuizStartRequestDTO();
+            req.setDeckId(5L);
+            req.setNumberOfQuestions(2);
+            req.setIsMultiple(false);
+
+            Quiz quiz = new Quiz(); quiz.setId(9L);
+            QuizQuestionDTO first = new QuizQuestionDTO();
+            first.setId(100L);
+            first.setOptions(new String[]{"A", "B"});
+            QuestionWindowDTO window = new QuestionWindowDTO();
+            window.setFromIndex(0);
+            window.setTotalQuestions(2);
+            window.setQuestions(List.of(first));
+            window.setImageUrls(List.of("https://img/1.png"));
+
+            when(quizService.startQuiz(5L, 2, 0, false)).thenReturn(quiz);
+            when(quizMapper.convertEntityToDTO(quiz)).thenReturn(new QuizDTO());
+            when(quizService.getStartWindow(9L)).thenReturn(window);
+
+            mockMvc.perform(post("/quiz/start")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(req)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.prefetch.questions[0].id").value(100))
+                    .andExpect(jsonPath("$.prefetch.questions[0].answer").doesNotExist())
+                    .andExpect(jsonPath("$.prefetch.imageUrls[0]").value("https://img/1.png"));
+        }
+
         @Test
         void answer_missingFields_throwsBadRequest() throws Exception {
             QuizAnswerRequestDTO req = new QuizAnswerRequestDTO();
@@ -243,7 +303,7 @@ class QuizControllerTest {
             out.setWasCorrect(true);
             out.setFinished(false);
 
-            when(quizService.processAnswerWithFeedback(1L,2L,"X",3L))
+            when(quizService.processAnswerWithFeedback(1L,2L,"X",null,3L))
                     .thenReturn(out);
 
             mockMvc.perform(post("/quiz/answer")
@@ -255,17 +315,52 @@ class QuizControllerTest {
         }
 
         @Test
-        void currentQuestion_returnsFlashcardDTO() throws Exception {
-            Flashcard fc = new Flashcard(); fc.setId(15L);
-            FlashcardDTO dto = new FlashcardDTO(); dto.setId(15L);
+        void answerBatch_returnsProgress() throws Exception {
+            BatchedAnswerDTO a = new BatchedAnswerDTO();
+            a.setFlashcardId(2L);
+            a.setSelectedAnswer("X");
+            a.setClientTimestamp(1_000L);
+            QuizAnswerBatchRequestDTO req = new QuizAnswerBatchRequestDTO();
+            req.setUserId(3L);
+            req.setAnswers(List.of(a));
+
+            QuizAnswerBatchResponseDTO out = new QuizAnswerBatchResponseDTO();
+            out.setApplied(1);
+            out.setCurrentIndex(1);
+            when(quizService.processAnswerBatch(eq(1L), eq(3L), anyList())).thenReturn(out);
+
+            mockMvc.perform(post("/quiz/{quizId}/answers", 1L)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(req)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.applied").value(1))
+                    .andExpect(jsonPath("$.currentIndex").value(1));
+        }
+
+        @Test
+        void answerBatch_withoutAnswers_badRequest() throws Exception {
+            QuizAnswerBatchRequestDTO req = new QuizAnswerBatchRequestDTO();
+            req.setUserId(3L);
+
+            mockMvc.perform(post("/quiz/{quizId}/answers", 1L)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(req)))
+                    .andExpect(status().isBadRequest());
+            verify(quizService, never()).processAnswerBatch(any(), any(), any());
+        }
 
-            when(quizService.getCurrentQuestion(7L,8L)).thenReturn(fc);
-            when(flashcardMapper.toDTO(fc)).thenReturn(dto);
+        @Test
+        void currentQuestion_writesTheCachedJson() throws Exception {
+            byte[] json = "{\"id\":15,\"options\":[\"A\",\"B\"]}".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+
+            when(quizService.getCurrentQuestionJson(7L,8L)).thenReturn(json);
 
             mockMvc.perform(get("/quiz/{quizId}/currentQuestion",7L)
                             .param("userId","8"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$.id").value(15));
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.id").value(15))
+                    .andExpect(jsonPath("$.options[1]").value("B"));
         }
 
         @Test
@@ -281,6 +376,56 @@ class QuizControllerTest {
                     .andExpect(jsonPath("$.id").value(20));
         }
 
+        @Test
+        void joinLobby_callsService() throws Exception {
+            mockMvc.perform(post("/quiz/{quizId}/lobby/join", 4L).param("userId", "9"))
+                    .andExpect(status().isOk());
+            verify(quizService).joinLobby(4L, 9L);
+        }
+
+        @Test
+        void startLobby_returnsQuizDTO() throws Exception {
+            Quiz quiz = new Quiz(); quiz.setId(4L);
+            QuizDTO dto = new QuizDTO(); dto.setId(4L);
+
+            when(quizService.startMultiplayerIfReady(4L)).thenReturn(quiz);
+            when(quizMapper.convertEntityToDTO(quiz)).thenReturn(dto);
+
+            mockMvc.perform(post("/quiz/{quizId}/lobby/start", 4L))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(4));
+        }
+
+        @Test
+        void leaderboard_returnsLeadersAndOwnPlace() throws Exception {
+            PlayerRankDTO own = new PlayerRankDTO();
+            own.setUserId(9L);
+            own.setRank(12);
+            LeaderboardDTO dto = new LeaderboardDTO();
+            dto.setQuizId(4L);
+            dto.setPlayers(40);
+            dto.setLeaders(List.of(new PlayerRankDTO()));
+            dto.setOwn(own);
+
+            when(quizService.getLeaderboard(4L, 9L, 5)).thenReturn(dto);
+
+            mockMvc.perform(get("/quiz/{quizId}/leaderboard", 4L)
+                            .param("userId", "9")
+                            .param("limit", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.players").value(40))
+                    .andExpect(jsonPath("$.own.rank").value(12));
+        }
+
+        @Test
+        void leaderboard_defaultsToTenWithoutOwnPlace() throws Exception {
+            when(quizService.getLeaderboard(4L, null, 10)).thenReturn(new LeaderboardDTO());
+
+            mockMvc.perform(get("/quiz/{quizId}/leaderboard", 4L))
+                    .andExpect(status().isOk());
+            verify(quizService).getLeaderboard(4L, null, 10);
+        }
+
         @Test
         void quitGame_callsService() throws Exception {
             mockMvc.perform(delete("/quiz/quit/{quizId}",77L))
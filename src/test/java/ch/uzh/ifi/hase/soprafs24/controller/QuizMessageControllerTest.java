@@ -0,0 +1,85 @@
+package ch.uzh.ifi.hase.soprafs24.controller;
+
+import ch.uzh.ifi.hase.soprafs24.config.StompAuthInterceptor;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizAnswerRequestDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizAnswerResponseDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizUpdateMessageDTO;
+import ch.uzh.ifi.hase.soprafs24.service.QuizBroadcastScheduler;
+import ch.uzh.ifi.hase.soprafs24.service.QuizService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class QuizMessageControllerTest {
+
+    private final QuizBroadcastScheduler broadcaster = mock(QuizBroadcastScheduler.class);
+    private final QuizService quizService = mock(QuizService.class);
+    private final QuizMessageController controller = new QuizMessageController(broadcaster, quizService);
+
+    @Test
+    void snapshot_returnsBroadcasterSnapshot() {
+        QuizUpdateMessageDTO snapshot = new QuizUpdateMessageDTO();
+        snapshot.setSequence(7L);
+        snapshot.setSnapshot(true);
+        when(broadcaster.snapshot(3L)).thenReturn(snapshot);
+
+        assertSame(snapshot, controller.snapshot(3L));
+        verify(broadcaster).snapshot(3L);
+    }
+
+    @Test
+    void answer_usesTheSessionUser() {
+        CompletableFuture<QuizAnswerResponseDTO> reply = CompletableFuture.completedFuture(new QuizAnswerResponseDTO());
+        when(quizService.submitAnswer(3L, 10L, "Bern", null, 42L)).thenReturn(reply);
+
+        assertSame(reply, controller.answer(3L, request(10L, "Bern", null),
+                new StompAuthInterceptor.UserPrincipal(42L)));
+    }
+
+    @Test
+    void answer_forAnotherUser_forbidden() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> controller.answer(3L, request(10L, "Bern", 7L), new StompAuthInterceptor.UserPrincipal(42L)));
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatus());
+        verifyNoInteractions(quizService);
+    }
+
+    @Test
+    void answer_anonymousSession_takesUserFromPayload() {
+        controller.answer(3L, request(10L, "Bern", 7L), null);
+
+        verify(quizService).submitAnswer(3L, 10L, "Bern", null, 7L);
+    }
+
+    @Test
+    void answer_missingFields_badRequest() {
+        assertThrows(ResponseStatusException.class, () -> controller.answer(3L, request(null, "Bern", 7L), null));
+        assertThrows(ResponseStatusException.class, () -> controller.answer(3L, request(10L, "Bern", null), null));
+        verify(quizService, never()).submitAnswer(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void exceptionHandler_mirrorsHttpErrorBody() {
+        Map<String, Object> body = controller.handleResponseStatusException(
+                new ResponseStatusException(HttpStatus.BAD_REQUEST, "No more questions."));
+
+        assertEquals(400, body.get("status"));
+        assertEquals("Bad Request", body.get("error"));
+        assertEquals("No more questions.", body.get("message"));
+    }
+
+    private static QuizAnswerRequestDTO request(Long flashcardId, String answer, Long userId) {
+        QuizAnswerRequestDTO req = new QuizAnswerRequestDTO();
+        req.setFlashcardId(flashcardId);
+        req.setSelectedAnswer(answer);
+        req.setUserId(userId);
+        return req;
+    }
+}
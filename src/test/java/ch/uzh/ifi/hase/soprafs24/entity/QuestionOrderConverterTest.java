@@ -0,0 +1,47 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionOrderConverterTest {
+
+    private final QuestionOrderConverter converter = new QuestionOrderConverter();
+
+    @Test
+    void roundTrip_keepsOrder() {
+        long[] ids = { 42L, 7L, 1_000_000_000_000L, 43L, 0L, Long.MAX_VALUE, 1L };
+
+        assertArrayEquals(ids, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(ids)));
+    }
+
+    @Test
+    void roundTrip_emptyAndNull() {
+        assertArrayEquals(new long[0], converter.convertToEntityAttribute(converter.convertToDatabaseColumn(new long[0])));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void encode_idsOfOneDeck_takeAFewBytesEach() {
+        // 1000 shuffled ids out of a 5000-id range, like a sampled deck
+        Random random = new Random(1);
+        long[] ids = new long[1000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 100_000 + random.nextInt(5000);
+        }
+
+        byte[] packed = QuestionOrderConverter.encode(ids);
+
+        assertTrue(packed.length < ids.length * 3, "packed size " + packed.length);
+        assertArrayEquals(ids, QuestionOrderConverter.decode(packed));
+    }
+
+    @Test
+    void decode_rejectsUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> QuestionOrderConverter.decode(new byte[]{ 9, 1, 2 }));
+        assertThrows(IllegalArgumentException.class, () -> QuestionOrderConverter.decode(new byte[]{ 1, 3, 2 }));
+    }
+}
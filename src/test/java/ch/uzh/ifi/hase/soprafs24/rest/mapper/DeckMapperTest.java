@@ -41,14 +41,6 @@ class DeckMapperTest {
         flashcard.setDescription("Who was the first president?");
         deck.setFlashcards(List.of(flashcard));
 
-        Quiz quiz = new Quiz();
-        quiz.setId(10L);
-        deck.setQuiz(quiz);
-
-        Invitation invitation = new Invitation();
-        invitation.setId(20L);
-        deck.setInvitation(invitation);
-
         // Act
         DeckDTO dto = deckMapper.toDTO(deck);
 
@@ -62,7 +54,6 @@ class DeckMapperTest {
         assertEquals(deck.getNumberOfAICards(), dto.getNumberOfAICards());
         assertEquals(deck.getUser(), dto.getUser());
         assertEquals(deck.getFlashcards(), dto.getFlashcards());
-        assertEquals(deck.getQuiz(), dto.getQuiz());
     }
 
     @Test
@@ -85,10 +76,6 @@ class DeckMapperTest {
         flashcard.setDescription("What is gravity?");
         dto.setFlashcards(List.of(flashcard));
 
-        Quiz quiz = new Quiz();
-        quiz.setId(11L);
-        dto.setQuiz(quiz);
-
         // Act
         Deck deck = deckMapper.toEntity(dto);
 
@@ -102,7 +89,6 @@ class DeckMapperTest {
         assertEquals(dto.getNumberOfAICards(), deck.getNumberOfAICards());
         assertEquals(dto.getUser(), deck.getUser());
         assertEquals(dto.getFlashcards(), deck.getFlashcards());
-        assertEquals(dto.getQuiz(), deck.getQuiz());
     }
 
     @Test
@@ -6,6 +6,7 @@ import ch.uzh.ifi.hase.soprafs24.repository.DeckRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.QuizRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.ScoreRepository;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizDTO;
+import ch.uzh.ifi.hase.soprafs24.service.QuestionSelector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -22,6 +23,7 @@ public class QuizMapperTest {
     private DeckRepository deckRepository;
     private QuizMapper quizMapper;
     private ScoreMapper  scoreMapper;
+    private QuestionSelector questionSelector;
 
     @BeforeEach
     public void setup() {
@@ -29,7 +31,8 @@ public class QuizMapperTest {
         quizRepository = mock(QuizRepository.class);
         deckRepository = mock(DeckRepository.class);
         scoreMapper = mock(ScoreMapper.class);
-        quizMapper = new QuizMapper(scoreRepository, quizRepository, deckRepository,scoreMapper);
+        questionSelector = mock(QuestionSelector.class);
+        quizMapper = new QuizMapper(scoreRepository, quizRepository, deckRepository,scoreMapper, questionSelector);
     }
 
     @Test
@@ -137,7 +140,8 @@ public class QuizMapperTest {
         invitation.setFromUser(fromUser);
         invitation.setToUser(toUser);
 
-        when(deckRepository.findById(deck.getId())).thenReturn(Optional.of(deck));
+        when(deckRepository.findAllById(List.of(deck.getId()))).thenReturn(List.of(deck));
+        when(questionSelector.selectIds(List.of(deck.getId()), 0)).thenReturn(new long[]{ flashcard.getId() });
         when(quizRepository.save(any(Quiz.class))).thenAnswer(inv -> inv.getArgument(0));
         when(scoreRepository.save(any(Score.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -150,6 +154,9 @@ public class QuizMapperTest {
         assertEquals(1, quiz.getDecks().size());
         assertEquals(deck.getId(), quiz.getDecks().get(0).getId());
         assertEquals(2, quiz.getScores().size());
+        assertArrayEquals(new long[]{ 1L }, quiz.getQuestionOrder());
+        assertTrue(quiz.getSelectedFlashcards().isEmpty());     // no join rows any more
+        assertEquals(1, deck.getFlashcards().size());      // the deck itself is left alone
         verify(scoreRepository, times(2)).save(any(Score.class));
         verify(quizRepository, atLeastOnce()).save(any(Quiz.class));
     }
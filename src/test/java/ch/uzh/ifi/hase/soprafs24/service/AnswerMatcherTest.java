@@ -0,0 +1,59 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizQuestionDTO;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerMatcherTest {
+
+    private static FlashcardCache.Card card(String answer, int correctOption) {
+        return new FlashcardCache.Card(1L, 0L, answer, AnswerNormalizer.normalize(answer), correctOption, new QuizQuestionDTO());
+    }
+
+    @Test
+    void exactMatcher_acceptsOnlyTheNormalizedAnswer() {
+        AnswerMatcher matcher = new AnswerMatcher(0);
+        FlashcardCache.Card card = card("Photosynthesis", -1);
+
+        assertTrue(matcher.matches(card, " photosynthesis. ", null));
+        assertFalse(matcher.matches(card, "fotosynthesis", null));
+        assertFalse(matcher.matches(card, null, null));
+    }
+
+    @Test
+    void typoTolerance_growsWithTheAnswerLength() {
+        AnswerMatcher matcher = new AnswerMatcher(2);
+
+        assertTrue(matcher.matches(card("Photosynthesis", -1), "fotosynthesis", null));
+        assertFalse(matcher.matches(card("Bern", -1), "Born", null));   // too short to forgive anything
+    }
+
+    @Test
+    void symbolsOfTheAnswer_mustBeTyped() {
+        AnswerMatcher matcher = new AnswerMatcher(2);
+
+        assertTrue(matcher.matches(card("C++", -1), " c++ ", null));
+        assertFalse(matcher.matches(card("C++", -1), "C", null));
+        assertFalse(matcher.matches(card("C#", -1), "C", null));
+        assertFalse(matcher.matches(card("-5", -1), "5", null));
+    }
+
+    @Test
+    void selectedOption_isComparedByIndex() {
+        AnswerMatcher matcher = new AnswerMatcher(0);
+        FlashcardCache.Card card = card("Paris", 2);
+
+        assertTrue(matcher.matches(card, "ignored", 2));
+        assertFalse(matcher.matches(card, "Paris", 0));
+        assertFalse(matcher.matches(card("Paris", -1), null, 0));
+    }
+
+    @Test
+    void answerWithoutLetters_mustBeTypedAsIs() {
+        AnswerMatcher matcher = new AnswerMatcher(0);
+
+        assertTrue(matcher.matches(card("?!", -1), " ?! ", null));
+        assertFalse(matcher.matches(card("?!", -1), "!", null));
+    }
+}
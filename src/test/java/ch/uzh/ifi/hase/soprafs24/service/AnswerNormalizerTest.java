@@ -0,0 +1,51 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerNormalizerTest {
+
+    @Test
+    void normalize_foldsCaseAccentsAndPunctuation() {
+        assertEquals("zurich", AnswerNormalizer.normalize("Zürich"));
+        assertEquals("zurich", AnswerNormalizer.normalize("  ZURICH!"));
+        assertEquals("creme brulee", AnswerNormalizer.normalize("Crème-brûlée"));
+        assertEquals("new york city", AnswerNormalizer.normalize("New   York,\tCity."));
+    }
+
+    @Test
+    void normalize_appliesCompatibilityForms() {
+        assertEquals("final strasse", AnswerNormalizer.normalize("ﬁnal Straße"));
+        assertEquals("abc123", AnswerNormalizer.normalize("ＡＢＣ１２３"));
+    }
+
+    @Test
+    void normalize_keepsSymbolsThatChangeTheAnswer() {
+        assertEquals("c++", AnswerNormalizer.normalize("C++"));
+        assertEquals("c#", AnswerNormalizer.normalize("C#."));
+        assertEquals("c", AnswerNormalizer.normalize("C!"));
+        assertEquals("-5", AnswerNormalizer.normalize(" -5 "));
+        assertEquals("x = -5", AnswerNormalizer.normalize("x = -5"));
+        assertEquals("$100", AnswerNormalizer.normalize("$100"));
+        assertEquals("50%", AnswerNormalizer.normalize("50%"));
+        assertEquals("well known", AnswerNormalizer.normalize("well-known"));
+        assertEquals("5", AnswerNormalizer.normalize("- 5"));
+    }
+
+    @Test
+    void normalize_withoutLettersOrDigits_isEmpty() {
+        assertEquals("", AnswerNormalizer.normalize("?!"));
+        assertEquals("", AnswerNormalizer.normalize(null));
+    }
+
+    @Test
+    void withinDistance_countsInsertionsDeletionsAndSubstitutions() {
+        assertTrue(AnswerNormalizer.withinDistance("photosynthesis", "photosynthesis", 0));
+        assertTrue(AnswerNormalizer.withinDistance("photosynthesis", "fotosynthesis", 2));
+        assertTrue(AnswerNormalizer.withinDistance("mitochondria", "mitochondira", 2));
+        assertFalse(AnswerNormalizer.withinDistance("mitochondria", "mitochondira", 1));
+        assertFalse(AnswerNormalizer.withinDistance("bern", "berlin", 1));
+        assertTrue(AnswerNormalizer.withinDistance("", "ab", 2));
+    }
+}
@@ -0,0 +1,144 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Flashcard;
+import ch.uzh.ifi.hase.soprafs24.repository.FlashcardRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizQuestionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+class FlashcardCacheTest {
+
+    @Mock private FlashcardRepository flashcardRepository;
+
+    private FlashcardCache cache;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        cache = new FlashcardCache(flashcardRepository, new ObjectMapper(), 3);
+    }
+
+    private static Flashcard card(long id) {
+        Flashcard f = new Flashcard();
+        f.setId(id);
+        f.setAnswer("A" + id);
+        f.setDescription("Q" + id);
+        return f;
+    }
+
+    @Test
+    void resolve_loadsMissesOnceAndKeepsRequestedOrder() {
+        when(flashcardRepository.findAllById(anyIterable())).thenReturn(List.of(card(1), card(2), card(3)));
+
+        List<FlashcardCache.Card> first = cache.resolve(new long[]{ 3, 1, 2 });
+        List<FlashcardCache.Card> second = cache.resolve(new long[]{ 2, 3 });
+
+        assertEquals(List.of(3L, 1L, 2L), first.stream().map(FlashcardCache.Card::getId).collect(Collectors.toList()));
+        assertEquals("A3", first.get(0).getAnswer());
+        assertEquals("Q3", first.get(0).getQuestion().getDescription());
+        assertEquals(2, second.size());
+        verify(flashcardRepository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void toQuestion_shufflesOptionsStablyAndHidesTheAnswer() {
+        Flashcard f = card(7);
+        f.setWrongAnswers(new String[]{ "W1", "W2", "W3" });
+
+        QuizQuestionDTO first  = FlashcardCache.toQuestion(f);
+        QuizQuestionDTO second = FlashcardCache.toQuestion(f);
+
+        assertEquals(7L, first.getId());
+        assertEquals(4, first.getOptions().length);
+        assertTrue(Arrays.asList(first.getOptions()).contains("A7"));
+        assertArrayEquals(first.getOptions(), second.getOptions());
+    }
+
+    @Test
+    void resolve_knowsTheAnswerKeyAndCorrectOption() {
+        Flashcard f = card(7);
+        f.setAnswer("Zürich");
+        f.setWrongAnswers(new String[]{ "Bern", "Basel" });
+        cache.putAll(List.of(f));
+
+        FlashcardCache.Card card = cache.resolve(new long[]{ 7 }).get(0);
+
+        assertEquals("zurich", card.getAnswerKey());
+        assertEquals("Zürich", card.getQuestion().getOptions()[card.getCorrectOption()]);
+    }
+
+    @Test
+    void toQuestion_withoutWrongAnswers_hasNoOptions() {
+        assertNull(FlashcardCache.toQuestion(card(1)).getOptions());
+    }
+
+    @Test
+    void questionJson_isCachedPerVersion() {
+        Flashcard f = card(1);
+        f.setVersion(0L);
+        cache.putAll(List.of(f));
+        FlashcardCache.Card v0 = cache.resolve(new long[]{ 1 }).get(0);
+
+        byte[] json = cache.questionJson(v0);
+        assertSame(json, cache.questionJson(v0));
+        assertFalse(new String(json).contains("A1"));
+
+        f.setDescription("Q1 edited");
+        f.setVersion(1L);
+        cache.evict(1L);
+        cache.putAll(List.of(f));
+        FlashcardCache.Card v1 = cache.resolve(new long[]{ 1 }).get(0);
+
+        assertTrue(new String(cache.questionJson(v1)).contains("Q1 edited"));
+        assertSame(json, cache.questionJson(v0));     // a session holding the old version keeps its snapshot
+    }
+
+    @Test
+    void resolve_skipsDeletedCards() {
+        when(flashcardRepository.findAllById(anyIterable())).thenReturn(List.of(card(1)));
+
+        List<FlashcardCache.Card> cards = cache.resolve(new long[]{ 1, 99 });
+
+        assertEquals(1, cards.size());
+    }
+
+    @Test
+    void putAll_isServedWithoutQuery_andEvictForcesReload() {
+        cache.putAll(List.of(card(1), card(2)));
+
+        assertEquals(2, cache.resolve(new long[]{ 1, 2 }).size());
+        verify(flashcardRepository, never()).findAllById(anyIterable());
+
+        Flashcard changed = card(1);
+        changed.setAnswer("new");
+        when(flashcardRepository.findAllById(anyIterable())).thenReturn(List.of(changed));
+        cache.evict(1L);
+
+        assertEquals("new", cache.resolve(new long[]{ 1 }).get(0).getAnswer());
+    }
+
+    @Test
+    void leastRecentlyUsed_isDroppedAboveMaxEntries() {
+        cache.putAll(List.of(card(1), card(2), card(3)));
+        cache.resolve(new long[]{ 1 });                 // 2 is now the eldest
+        cache.putAll(List.of(card(4)));
+
+        assertEquals(3, cache.size());
+        when(flashcardRepository.findAllById(List.of(2L))).thenReturn(List.of(card(2)));
+        cache.resolve(new long[]{ 1, 3, 4 });
+        verify(flashcardRepository, never()).findAllById(anyIterable());
+        cache.resolve(new long[]{ 2 });
+        verify(flashcardRepository).findAllById(List.of(2L));
+    }
+}
@@ -7,17 +7,22 @@ import ch.uzh.ifi.hase.soprafs24.entity.User;
 import ch.uzh.ifi.hase.soprafs24.repository.DeckRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.FlashcardRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -39,10 +44,17 @@ class FlashcardServiceTest {
     @Mock
     private ChatGptService chatGptService;
 
+    @Mock
+    private FlashcardCache flashcardCache;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        flashcardService = new FlashcardService(flashcardRepository, userRepository, deckRepository, chatGptService);
+        flashcardService = new FlashcardService(flashcardRepository, userRepository, deckRepository, chatGptService,
+                flashcardCache, meterRegistry);
     }
 
 
@@ -270,9 +282,24 @@ class FlashcardServiceTest {
     void deleteDeck_success() {
         when(deckRepository.existsById(1L)).thenReturn(true);
         flashcardService.deleteDeck(1L);
+        verify(deckRepository).unlinkFromQuizzes(1L);
+        verify(deckRepository).unlinkFromInvitations(1L);
         verify(deckRepository).deleteById(1L);
     }
 
+    @Test
+    void deleteDeck_evictsItsCardsBeforeTheDelete() {
+        when(deckRepository.existsById(1L)).thenReturn(true);
+        when(flashcardRepository.streamIdsByDeckId(1L)).thenReturn(Stream.of(10L, 11L));
+
+        flashcardService.deleteDeck(1L);
+
+        InOrder order = inOrder(flashcardCache, deckRepository);
+        order.verify(flashcardCache).evict(10L);
+        order.verify(flashcardCache).evict(11L);
+        order.verify(deckRepository).deleteById(1L);
+    }
+
     @Test
     void deleteDeck_notFound_throws() {
         when(deckRepository.existsById(1L)).thenReturn(false);
@@ -313,6 +340,7 @@ class FlashcardServiceTest {
         when(flashcardRepository.save(any())).thenReturn(card);
         Flashcard result = flashcardService.createFlashcard(1L, card);
         assertEquals(card, result);
+        assertEquals("right", card.getAnswerKey());
     }
 
     @Test
@@ -342,6 +370,8 @@ class FlashcardServiceTest {
         when(flashcardRepository.findById(1L)).thenReturn(Optional.of(original));
         flashcardService.updateFlashcard(1L, updated);
         verify(flashcardRepository).save(original);
+        assertEquals("newanswer", original.getAnswerKey());
+        verify(flashcardCache).evict(1L);      // sessions opened later see the new answer
     }
 
     @Test
@@ -356,6 +386,7 @@ class FlashcardServiceTest {
         when(flashcardRepository.findById(1L)).thenReturn(Optional.of(card));
         flashcardService.deleteFlashcard(1L);
         verify(flashcardRepository).delete(card);
+        verify(flashcardCache).evict(1L);
     }
 
     @Test
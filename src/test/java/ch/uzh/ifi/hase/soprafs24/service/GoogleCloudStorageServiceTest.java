@@ -1,6 +1,8 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
 import com.google.cloud.storage.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -16,6 +18,9 @@ class GoogleCloudStorageServiceTest {
     @Mock
     private Storage storage;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private GoogleCloudStorageService gcsService;
 
@@ -41,6 +46,28 @@ class GoogleCloudStorageServiceTest {
         verify(storage, times(1)).get(blobId);
     }
 
+    @Test
+    void testDownloadFile_timesTheContentReadAndRecordsItsSize() {
+        BlobId blobId = BlobId.of("memory-deck-storage", "image.png");
+        Blob blob = mock(Blob.class);
+        when(storage.get(blobId)).thenReturn(blob);
+        when(blob.getContent()).thenReturn(new byte[1234]);
+        when(blob.getContentType()).thenReturn("image/png");
+
+        GoogleCloudStorageService.StoredFile file = gcsService.downloadFile("image.png");
+
+        assertEquals(1234, file.getContent().length);
+        assertEquals("image/png", file.getContentType());
+        assertEquals(1, meterRegistry.timer("gcs.latency", "operation", "download").count());
+        assertEquals(1234.0, meterRegistry.summary("gcs.bytes", "operation", "download").totalAmount());
+    }
+
+    @Test
+    void testDownloadFile_missingFile_returnsNull() {
+        assertNull(gcsService.downloadFile("missing.png"));
+        assertEquals(0.0, meterRegistry.summary("gcs.bytes", "operation", "download").totalAmount());
+    }
+
     @Test
     void testUploadFile_returnsUrl() {
         // Arrange
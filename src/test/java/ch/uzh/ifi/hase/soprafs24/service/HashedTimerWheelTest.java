@@ -0,0 +1,92 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimerWheelTest {
+
+    private HashedTimerWheel wheel;
+
+    @BeforeEach
+    void setup() {
+        // 8 buckets of 10 ms: anything beyond 80 ms needs more than one round
+        wheel = new HashedTimerWheel("test-wheel", 10, 8, Runnable::run);
+        wheel.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void wheelSize_isRoundedUpToPowerOfTwo() {
+        assertEquals(8, wheel.getWheelSize());
+        assertEquals(16, new HashedTimerWheel("w", 10, 9, Runnable::run).getWheelSize());
+    }
+
+    @Test
+    void schedule_firesNotBeforeDelay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        HashedTimerWheel.Timeout t = wheel.schedule(fired::countDown, 50);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertTrue(t.isExpired());
+        assertEquals(0, wheel.getPending());
+    }
+
+    @Test
+    void schedule_beyondOneRevolution_waitsOutRemainingRounds() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        wheel.schedule(fired::countDown, 250);     // > 3 revolutions of 80 ms
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 250);
+    }
+
+    @Test
+    void cancel_beforeExpiry_neverFires() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        CountDownLatch later = new CountDownLatch(1);
+
+        HashedTimerWheel.Timeout t = wheel.schedule(fired::incrementAndGet, 30);
+        assertTrue(t.cancel());
+        assertFalse(t.cancel());
+        wheel.schedule(later::countDown, 60);
+
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+        assertTrue(t.isCancelled());
+        assertEquals(0, wheel.getPending());
+    }
+
+    @Test
+    void manyTimeouts_allFireExactlyOnce() throws InterruptedException {
+        int n = 20_000;
+        AtomicInteger fired = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(n);
+
+        for (int i = 0; i < n; i++) {
+            wheel.schedule(() -> {
+                fired.incrementAndGet();
+                done.countDown();
+            }, i % 200);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(n, fired.get());
+        assertEquals(0, wheel.getPending());
+    }
+}
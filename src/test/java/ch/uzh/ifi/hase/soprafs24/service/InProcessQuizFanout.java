@@ -0,0 +1,28 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Test fake for a multi-instance deployment: every joined "node" (its
+ * messaging template) receives each published frame, like a shared bus.
+ */
+class InProcessQuizFanout implements QuizFanout {
+
+    private final List<SimpMessagingTemplate> nodes = new CopyOnWriteArrayList<>();
+
+    InProcessQuizFanout join(SimpMessagingTemplate node) {
+        nodes.add(node);
+        return this;
+    }
+
+    @Override
+    public void publish(String destination, Object payload, Map<String, Object> headers) {
+        for (SimpMessagingTemplate node : nodes) {
+            node.convertAndSend(destination, payload, headers);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Invitation;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.InvitationEventDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.InvitationEventsDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.mapper.InvitationMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InvitationNotifierTest {
+
+    private final QuizFanout fanout = mock(QuizFanout.class);
+
+    @Test
+    void created_isPushedToTheInvitedUser() {
+        InvitationNotifier notifier = new InvitationNotifier(fanout, new InvitationMapper(), 8, 600_000);
+
+        notifier.invitationCreated(invitation(5L, 1L, 2L));
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(fanout).publish(eq("/user/2/queue/invitations"), payload.capture(), anyMap());
+        InvitationEventDTO event = (InvitationEventDTO) payload.getValue();
+        assertEquals(InvitationNotifier.CREATED, event.getType());
+        assertEquals(5L, event.getInvitationId());
+        assertEquals(1L, event.getInvitation().getFromUserId());
+        assertNull(event.getInvitation().getQuizId());
+    }
+
+    @Test
+    void answers_goToTheSender_cancellationToTheInvitedUser() {
+        InvitationNotifier notifier = new InvitationNotifier(fanout, new InvitationMapper(), 8, 600_000);
+        Invitation inv = invitation(5L, 1L, 2L);
+
+        notifier.invitationAccepted(inv);
+        notifier.invitationRejected(inv);
+        notifier.invitationCancelled(inv);
+
+        verify(fanout, times(2)).publish(eq("/user/1/queue/invitations"), any(), anyMap());
+        verify(fanout).publish(eq("/user/2/queue/invitations"), any(), anyMap());
+    }
+
+    @Test
+    void expired_goesToBothUsers() {
+        InvitationNotifier notifier = new InvitationNotifier(fanout, new InvitationMapper(), 8, 600_000);
+
+        notifier.invitationExpired(invitation(5L, 1L, 2L));
+
+        verify(fanout).publish(eq("/user/1/queue/invitations"), any(), anyMap());
+        verify(fanout).publish(eq("/user/2/queue/invitations"), any(), anyMap());
+        assertEquals(InvitationNotifier.EXPIRED, notifier.eventsSince(1L, 0L).getEvents().get(0).getType());
+    }
+
+    @Test
+    void eventsSince_returnsOnlyNewerEvents() {
+        InvitationNotifier notifier = new InvitationNotifier(fanout, new InvitationMapper(), 8, 600_000);
+        long start = notifier.eventsSince(2L, 0L).getLatestSequence();
+
+        notifier.invitationCreated(invitation(5L, 1L, 2L));
+        notifier.invitationCreated(invitation(6L, 3L, 2L));
+        notifier.invitationCreated(invitation(7L, 1L, 4L));     // someone else's
+
+        InvitationEventsDTO all = notifier.eventsSince(2L, start);
+        assertTrue(all.isComplete());
+        assertEquals(2, all.getEvents().size());
+        assertTrue(all.getEvents().get(0).getSequence() < all.getEvents().get(1).getSequence());
+        // the cursor is global: it is past the own events and past the event of user 4 as well
+        assertTrue(all.getLatestSequence() > all.getEvents().get(1).getSequence());
+        assertTrue(notifier.eventsSince(4L, all.getLatestSequence()).getEvents().isEmpty());
+
+        InvitationEventsDTO rest = notifier.eventsSince(2L, all.getEvents().get(0).getSequence());
+        assertEquals(1, rest.getEvents().size());
+        assertEquals(6L, rest.getEvents().get(0).getInvitationId());
+
+        assertTrue(notifier.eventsSince(2L, all.getLatestSequence()).getEvents().isEmpty());
+    }
+
+    @Test
+    void eventsSince_droppedEvents_areReportedIncomplete() {
+        InvitationNotifier notifier = new InvitationNotifier(fanout, new InvitationMapper(), 2, 600_000);
+        long start = notifier.eventsSince(2L, 0L).getLatestSequence();
+        for (long id = 1; id <= 3; id++) {
+            notifier.invitationCreated(invitation(id, 1L, 2L));
+        }
+
+        InvitationEventsDTO events = notifier.eventsSince(2L, start);
+
+        assertFalse(events.isComplete());
+        assertEquals(List.of(2L, 3L),
+                events.getEvents().stream().map(InvitationEventDTO::getInvitationId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void eventsSince_cursorFromBeforeStart_isIncomplete() {
+        InvitationNotifier notifier = new InvitationNotifier(fanout, new InvitationMapper(), 8, 600_000);
+
+        assertFalse(notifier.eventsSince(2L, 0L).isComplete());
+    }
+
+    @Test
+    void sweep_dropsIdleMailboxes() {
+        InvitationNotifier notifier = new InvitationNotifier(fanout, new InvitationMapper(), 8, -1);
+        notifier.invitationCreated(invitation(5L, 1L, 2L));
+        long seen = notifier.eventsSince(2L, 0L).getLatestSequence();
+
+        notifier.sweep();
+
+        assertEquals(0, notifier.getMailboxes());
+        InvitationEventsDTO after = notifier.eventsSince(2L, seen);
+        assertTrue(after.isComplete(), "nothing newer than the swept events was issued");
+        assertTrue(after.getEvents().isEmpty());
+    }
+
+    @Test
+    void failedPush_keepsTheEventForCatchUp() {
+        InvitationNotifier notifier = new InvitationNotifier(fanout, new InvitationMapper(), 8, 600_000);
+        long start = notifier.eventsSince(2L, 0L).getLatestSequence();
+        doThrow(new IllegalStateException("broker down")).when(fanout).publish(any(), any(), anyMap());
+
+        notifier.invitationCreated(invitation(5L, 1L, 2L));
+
+        assertEquals(1, notifier.eventsSince(2L, start).getEvents().size());
+    }
+
+    private static Invitation invitation(Long id, Long fromUserId, Long toUserId) {
+        User from = new User(); from.setId(fromUserId);
+        User to   = new User(); to.setId(toUserId);
+        Invitation inv = new Invitation();
+        inv.setId(id);
+        inv.setFromUser(from);
+        inv.setToUser(to);
+        inv.setIsAccepted(false);
+        inv.setDecks(new ArrayList<>());
+        return inv;
+    }
+}
@@ -0,0 +1,44 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InvitationReaperTest {
+
+    private final QuizService quizService = mock(QuizService.class);
+
+    @Test
+    void reap_continuesWhileBatchesAreFull() {
+        InvitationReaper reaper = new InvitationReaper(quizService, 600_000, 2);
+        Date cutoff = new Date();
+        when(quizService.expireInvitations(cutoff, 2)).thenReturn(2, 2, 1);
+
+        assertEquals(5, reaper.reap(cutoff));
+        verify(quizService, times(3)).expireInvitations(cutoff, 2);
+    }
+
+    @Test
+    void reapExpired_usesTheTtlAsCutoff() {
+        InvitationReaper reaper = new InvitationReaper(quizService, 60_000, 500);
+        long before = System.currentTimeMillis();
+
+        reaper.reapExpired();
+
+        verify(quizService).expireInvitations(argThat(d ->
+                d.getTime() >= before - 60_000 && d.getTime() <= System.currentTimeMillis() - 60_000), eq(500));
+    }
+
+    @Test
+    void reapExpired_withoutTtl_doesNothing() {
+        InvitationReaper reaper = new InvitationReaper(quizService, 0, 500);
+
+        reaper.reapExpired();
+
+        verifyNoInteractions(quizService);
+    }
+}
@@ -0,0 +1,256 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.FlashcardCategory;
+import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
+import ch.uzh.ifi.hase.soprafs24.entity.Deck;
+import ch.uzh.ifi.hase.soprafs24.entity.Quiz;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.repository.DeckRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.MatchRequestDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.MatchmakingEventDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MatchmakingServiceTest {
+
+    private final QuizService    quizService    = mock(QuizService.class);
+    private final UserService    userService    = mock(UserService.class);
+    private final DeckRepository deckRepository = mock(DeckRepository.class);
+    private final QuizFanout     fanout         = mock(QuizFanout.class);
+    private final PresenceRegistry presence =
+            new PresenceRegistry(mock(UserRepository.class), mock(PlatformTransactionManager.class), 5000);
+
+    private final AtomicLong quizIds = new AtomicLong(100);
+
+    @BeforeEach
+    void setup() {
+        when(userService.getUserById(anyLong())).thenAnswer(inv -> user(inv.getArgument(0)));
+        when(deckRepository.findPublicIdsByCategory(any())).thenReturn(List.of(7L));
+        when(quizService.createMatchedQuiz(anyList(), anyList(), anyInt(), anyInt())).thenAnswer(inv -> {
+            Quiz quiz = new Quiz();
+            quiz.setId(quizIds.incrementAndGet());
+            return quiz;
+        });
+    }
+
+    @Test
+    void twoPlayersOfACategory_areMatched() {
+        MatchmakingService matchmaking = service(120_000);
+
+        MatchmakingEventDTO first = matchmaking.enqueue(request(1L, FlashcardCategory.SCIENCE));
+        MatchmakingEventDTO second = matchmaking.enqueue(request(2L, FlashcardCategory.SCIENCE));
+
+        assertEquals(MatchmakingService.WAITING, first.getType());
+        assertEquals(MatchmakingService.MATCHED, second.getType());
+        assertEquals(101L, second.getQuizId());
+        assertEquals(1L, second.getOpponentId());
+        assertEquals(0, matchmaking.getWaiting());
+        verify(quizService).createMatchedQuiz(List.of(1L, 2L), List.of(7L), 300, 10);
+
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(fanout).publish(eq("/user/1/queue/matchmaking"), event.capture(), anyMap());
+        assertEquals(2L, ((MatchmakingEventDTO) event.getValue()).getOpponentId());
+        verify(fanout).publish(eq("/user/2/queue/matchmaking"), any(), anyMap());
+    }
+
+    @Test
+    void differentCategories_areNotMatched() {
+        MatchmakingService matchmaking = service(120_000);
+
+        matchmaking.enqueue(request(1L, FlashcardCategory.SCIENCE));
+        MatchmakingEventDTO other = matchmaking.enqueue(request(2L, FlashcardCategory.HISTORY));
+
+        assertEquals(MatchmakingService.WAITING, other.getType());
+        assertEquals(2, matchmaking.getWaiting());
+        verifyNoInteractions(fanout);
+    }
+
+    @Test
+    void players_areMatchedInArrivalOrder() {
+        MatchmakingService matchmaking = service(120_000);
+
+        for (long id = 1; id <= 4; id++) {
+            matchmaking.enqueue(request(id, FlashcardCategory.SPORTS));
+        }
+
+        verify(quizService).createMatchedQuiz(List.of(1L, 2L), List.of(7L), 300, 10);
+        verify(quizService).createMatchedQuiz(List.of(3L, 4L), List.of(7L), 300, 10);
+    }
+
+    @Test
+    void enqueueTwice_conflict() {
+        MatchmakingService matchmaking = service(120_000);
+        matchmaking.enqueue(request(1L, FlashcardCategory.SCIENCE));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> matchmaking.enqueue(request(1L, FlashcardCategory.SCIENCE)));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatus());
+    }
+
+    @Test
+    void cancelledPlayer_isNotMatched() {
+        MatchmakingService matchmaking = service(120_000);
+        matchmaking.enqueue(request(1L, FlashcardCategory.SCIENCE));
+
+        matchmaking.cancel(1L);
+        MatchmakingEventDTO next = matchmaking.enqueue(request(2L, FlashcardCategory.SCIENCE));
+
+        assertEquals(MatchmakingService.WAITING, next.getType());
+        assertThrows(ResponseStatusException.class, () -> matchmaking.cancel(1L));
+        verify(quizService, never()).createMatchedQuiz(anyList(), anyList(), anyInt(), anyInt());
+    }
+
+    @Test
+    void playerGoneOffline_isSkipped() {
+        MatchmakingService matchmaking = service(120_000);
+        matchmaking.enqueue(request(1L, FlashcardCategory.SCIENCE));
+        presence.setStatus(1L, UserStatus.OFFLINE);
+
+        matchmaking.enqueue(request(2L, FlashcardCategory.SCIENCE));
+        MatchmakingEventDTO third = matchmaking.enqueue(request(3L, FlashcardCategory.SCIENCE));
+
+        assertEquals(MatchmakingService.MATCHED, third.getType());
+        verify(quizService).createMatchedQuiz(List.of(2L, 3L), List.of(7L), 300, 10);
+    }
+
+    @Test
+    void decks_giveTheCategoryAndTheQuestions() {
+        MatchmakingService matchmaking = service(120_000);
+        when(deckRepository.findAllById(List.of(5L))).thenReturn(List.of(deck(5L, FlashcardCategory.MATH)));
+        when(deckRepository.findAllById(List.of(6L))).thenReturn(List.of(deck(6L, FlashcardCategory.MATH)));
+
+        MatchRequestDTO first = request(1L, null);
+        first.setDeckIds(List.of(5L, 5L));
+        MatchRequestDTO second = request(2L, FlashcardCategory.MATH);
+        second.setDeckIds(List.of(6L));
+        matchmaking.enqueue(first);
+        MatchmakingEventDTO matched = matchmaking.enqueue(second);
+
+        assertEquals(FlashcardCategory.MATH, matched.getCategory());
+        verify(quizService).createMatchedQuiz(List.of(1L, 2L), List.of(5L, 6L), 300, 10);
+        verify(deckRepository, never()).findPublicIdsByCategory(any());
+    }
+
+    @Test
+    void decksOfAnotherCategory_badRequest() {
+        MatchmakingService matchmaking = service(120_000);
+        when(deckRepository.findAllById(List.of(5L))).thenReturn(List.of(deck(5L, FlashcardCategory.MATH)));
+        MatchRequestDTO req = request(1L, FlashcardCategory.SCIENCE);
+        req.setDeckIds(List.of(5L));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> matchmaking.enqueue(req));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        assertEquals(0, matchmaking.getWaiting());
+    }
+
+    @Test
+    void failedQuiz_isReportedToBothAndTheyMayRetry() {
+        MatchmakingService matchmaking = service(120_000);
+        when(quizService.createMatchedQuiz(anyList(), anyList(), anyInt(), anyInt()))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "The matched decks contain no flashcards."));
+
+        matchmaking.enqueue(request(1L, FlashcardCategory.SCIENCE));
+        MatchmakingEventDTO failed = matchmaking.enqueue(request(2L, FlashcardCategory.SCIENCE));
+
+        assertEquals(MatchmakingService.FAILED, failed.getType());
+        assertEquals("The matched decks contain no flashcards.", failed.getMessage());
+        assertEquals(UserStatus.ONLINE, presence.getStatus(1L, null));
+        verify(fanout, times(2)).publish(anyString(), any(), anyMap());
+        assertEquals(MatchmakingService.WAITING, matchmaking.enqueue(request(1L, FlashcardCategory.SCIENCE)).getType());
+    }
+
+    @Test
+    void sweep_expiresLongWaits() {
+        MatchmakingService matchmaking = service(-1);
+        matchmaking.enqueue(request(1L, FlashcardCategory.SCIENCE));
+
+        matchmaking.sweep();
+
+        assertEquals(0, matchmaking.getWaiting());
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(fanout).publish(eq("/user/1/queue/matchmaking"), event.capture(), anyMap());
+        assertEquals(MatchmakingService.EXPIRED, ((MatchmakingEventDTO) event.getValue()).getType());
+    }
+
+    @Test
+    void concurrentEnqueues_pairEveryPlayerExactlyOnce() throws Exception {
+        MatchmakingService matchmaking = service(120_000);
+        Set<Long> matched = ConcurrentHashMap.newKeySet();
+        when(quizService.createMatchedQuiz(anyList(), anyList(), anyInt(), anyInt())).thenAnswer(inv -> {
+            List<Long> players = inv.getArgument(0);
+            for (Long player : players) {
+                assertTrue(matched.add(player), "matched twice: " + player);
+            }
+            return new Quiz();
+        });
+
+        int threads = 8;
+        int perThread = 250;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = t * (long) perThread;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (long id = base + 1; id <= base + perThread; id++) {
+                    matchmaking.enqueue(request(id, FlashcardCategory.SCIENCE));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+
+        assertEquals(threads * perThread, matched.size());
+        assertEquals(0, matchmaking.getWaiting());
+    }
+
+    private MatchmakingService service(long maxWaitMillis) {
+        return new MatchmakingService(quizService, userService, deckRepository, presence, fanout,
+                300, 10, 5, maxWaitMillis);
+    }
+
+    private static MatchRequestDTO request(Long userId, FlashcardCategory category) {
+        MatchRequestDTO req = new MatchRequestDTO();
+        req.setUserId(userId);
+        req.setCategory(category);
+        return req;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setStatus(UserStatus.ONLINE);
+        return user;
+    }
+
+    private static Deck deck(Long id, FlashcardCategory category) {
+        Deck deck = new Deck();
+        deck.setId(id);
+        deck.setDeckCategory(category);
+        return deck;
+    }
+}
@@ -0,0 +1,135 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
+import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PresenceRegistryTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @Test
+    void connect_setsOnlineAndFlushWritesIt() {
+        PresenceRegistry presence = new PresenceRegistry(userRepository, transactionManager, 5000);
+
+        presence.sessionConnected("s1", 1L);
+
+        assertEquals(UserStatus.ONLINE, presence.getStatus(1L, UserStatus.OFFLINE));
+        assertEquals(1, presence.getConnectedUsers());
+        presence.flush();
+        verify(userRepository).updateStatus(UserStatus.ONLINE, List.of(1L));
+        assertEquals(0, presence.getPendingWrites());
+    }
+
+    @Test
+    void flush_writesOneStatementPerStatus() {
+        PresenceRegistry presence = new PresenceRegistry(userRepository, transactionManager, 5000);
+        presence.setStatus(1L, UserStatus.PLAYING);
+        presence.setStatus(2L, UserStatus.PLAYING);
+        presence.setStatus(3L, UserStatus.ONLINE);
+        presence.setStatus(3L, UserStatus.PLAYING);     // only the latest status is written
+
+        presence.flush();
+
+        verify(userRepository).updateStatus(eq(UserStatus.PLAYING), argThat(ids -> ids.size() == 3));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void connectWhilePlaying_keepsPlaying() {
+        PresenceRegistry presence = new PresenceRegistry(userRepository, transactionManager, 5000);
+        presence.setStatus(1L, UserStatus.PLAYING);
+
+        presence.sessionConnected("s1", 1L);
+
+        assertEquals(UserStatus.PLAYING, presence.getStatus(1L, null));
+    }
+
+    @Test
+    void lastSessionClosed_goesOfflineAfterGraceAndIsForgotten() {
+        PresenceRegistry presence = new PresenceRegistry(userRepository, transactionManager, 0);
+        presence.sessionConnected("s1", 1L);
+        presence.flush();
+
+        presence.sessionDisconnected("s1");
+        presence.flush();
+
+        verify(userRepository).updateStatus(UserStatus.OFFLINE, List.of(1L));
+        assertEquals(UserStatus.ONLINE, presence.getStatus(1L, UserStatus.ONLINE), "falls back to the table");
+        assertEquals(0, presence.getConnectedUsers());
+    }
+
+    @Test
+    void reconnectWithinGrace_staysOnline() {
+        PresenceRegistry presence = new PresenceRegistry(userRepository, transactionManager, 60_000);
+        presence.sessionConnected("s1", 1L);
+        presence.flush();
+
+        presence.sessionDisconnected("s1");
+        presence.flush();
+        presence.sessionConnected("s2", 1L);
+        presence.flush();
+
+        assertEquals(UserStatus.ONLINE, presence.getStatus(1L, null));
+        verify(userRepository, never()).updateStatus(eq(UserStatus.OFFLINE), anyCollection());
+    }
+
+    @Test
+    void oneOfTwoSessionsClosed_staysOnline() {
+        PresenceRegistry presence = new PresenceRegistry(userRepository, transactionManager, 0);
+        presence.sessionConnected("tab1", 1L);
+        presence.sessionConnected("tab2", 1L);
+
+        presence.sessionDisconnected("tab1");
+        presence.flush();
+
+        assertEquals(UserStatus.ONLINE, presence.getStatus(1L, null));
+        assertEquals(1, presence.getConnectedUsers());
+    }
+
+    @Test
+    void unknownSessionDisconnect_isIgnored() {
+        PresenceRegistry presence = new PresenceRegistry(userRepository, transactionManager, 0);
+
+        presence.sessionDisconnected("anonymous");
+        presence.flush();
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void failedFlush_isRetried() {
+        PresenceRegistry presence = new PresenceRegistry(userRepository, transactionManager, 5000);
+        presence.setStatus(1L, UserStatus.PLAYING);
+        when(userRepository.updateStatus(any(), anyCollection()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+
+        presence.flush();
+        assertEquals(1, presence.getPendingWrites());
+        presence.flush();
+
+        assertEquals(0, presence.getPendingWrites());
+        verify(userRepository, times(2)).updateStatus(UserStatus.PLAYING, List.of(1L));
+    }
+
+    @Test
+    void record_isNotWrittenAgain() {
+        PresenceRegistry presence = new PresenceRegistry(userRepository, transactionManager, 5000);
+        presence.setStatus(1L, UserStatus.PLAYING);
+
+        presence.record(1L, UserStatus.OFFLINE);            // e.g. logout, saved with the token
+        presence.flush();
+
+        assertEquals(UserStatus.OFFLINE, presence.getStatus(1L, null));
+        verifyNoInteractions(userRepository);
+    }
+}
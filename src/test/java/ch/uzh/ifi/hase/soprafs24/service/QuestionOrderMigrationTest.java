@@ -0,0 +1,83 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.QuestionOrderConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class QuestionOrderMigrationTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private QuestionOrderMigration migration;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        migration = new QuestionOrderMigration(jdbcTemplate, transactionManager, true, 2);
+    }
+
+    /** Feeds (quizId, cardId) rows to the row callback. */
+    private void joinRows(long[][] rows) throws Exception {
+        List<ResultSet> resultRows = new ArrayList<>();
+        for (long[] row : rows) {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(row[0]);
+            when(rs.getLong(2)).thenReturn(row[1]);
+            resultRows.add(rs);
+        }
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (ResultSet rs : resultRows) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT quiz_id, flashcard_id"), any(RowCallbackHandler.class),
+                any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void migrate_packsJoinRowsPerQuizInBatches_thenDeletesThem() throws Exception {
+        when(jdbcTemplate.queryForList(startsWith("SELECT DISTINCT"), eq(Long.class), any(), any()))
+                .thenReturn(List.of(1L, 3L), List.of(4L), List.of());
+        // quiz 2 lies in the id range but is packed already
+        joinRows(new long[][]{ {1, 10}, {1, 11}, {2, 99}, {3, 30}, {4, 40} });
+
+        int migrated = migration.migrate();
+
+        assertEquals(3, migrated);
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("UPDATE quiz"), updates.capture());
+        List<Object[]> firstBatch = updates.getAllValues().get(0);
+        assertEquals(2, firstBatch.size());
+        assertArrayEquals(new long[]{ 10, 11 }, QuestionOrderConverter.decode((byte[]) firstBatch.get(0)[0]));
+        assertEquals(1L, firstBatch.get(0)[1]);
+        assertArrayEquals(new long[]{ 30 }, QuestionOrderConverter.decode((byte[]) firstBatch.get(1)[0]));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM quiz_flashcards"));
+    }
+
+    @Test
+    void migrate_nothingToDo_onlyCleansUp() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT DISTINCT"), eq(Long.class), any(), any()))
+                .thenReturn(List.of());
+
+        assertEquals(0, migration.migrate());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate).update(startsWith("DELETE FROM quiz_flashcards"));
+    }
+}
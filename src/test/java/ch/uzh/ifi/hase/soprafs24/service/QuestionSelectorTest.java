@@ -0,0 +1,138 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.repository.FlashcardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class QuestionSelectorTest {
+
+    @Mock private FlashcardRepository flashcardRepository;
+
+    private QuestionSelector selector;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        selector = new QuestionSelector(flashcardRepository, 0);
+
+        // deck 1: ids 1..100, deck 2: ids 1001..1300; counts only for the decks asked for
+        Map<Long, Long> sizes = Map.of(1L, 100L, 2L, 300L);
+        when(flashcardRepository.countByDeckIds(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> deckIds = inv.getArgument(0);
+            return deckIds.stream()
+                    .filter(sizes::containsKey)
+                    .map(id -> new Object[]{ id, sizes.get(id) })
+                    .collect(Collectors.toList());
+        });
+        when(flashcardRepository.streamIdsByDeckId(1L))
+                .thenAnswer(inv -> LongStream.rangeClosed(1, 100).boxed());
+        when(flashcardRepository.streamIdsByDeckId(2L))
+                .thenAnswer(inv -> LongStream.rangeClosed(1001, 1300).boxed());
+    }
+
+    @Test
+    void selectIds_capped_isStratifiedByDeckSize() {
+        long[] ids = selector.selectIds(List.of(1L, 2L), 20, 42L);
+
+        assertEquals(20, ids.length);
+        assertEquals(5, Arrays.stream(ids).filter(id -> id <= 100).count());
+        assertEquals(15, Arrays.stream(ids).filter(id -> id > 1000).count());
+        assertEquals(20, Arrays.stream(ids).distinct().count());
+    }
+
+    @Test
+    void selectIds_sameSeed_sameOrder() {
+        long[] a = selector.selectIds(List.of(1L, 2L), 20, 7L);
+        long[] b = selector.selectIds(List.of(1L, 2L), 20, 7L);
+        long[] c = selector.selectIds(List.of(1L, 2L), 20, 8L);
+
+        assertArrayEquals(a, b);
+        assertFalse(Arrays.equals(a, c));
+    }
+
+    @Test
+    void selectIds_noCap_takesEveryCardOnce() {
+        long[] ids = selector.selectIds(List.of(1L, 2L), 0, 1L);
+
+        assertEquals(400, ids.length);
+        assertEquals(400, Arrays.stream(ids).distinct().count());
+    }
+
+    @Test
+    void selectIds_capAboveDeckSize_takesEveryCard() {
+        long[] ids = selector.selectIds(List.of(1L), 500, 1L);
+
+        assertEquals(100, ids.length);
+    }
+
+    @Test
+    void selectIds_countsOfDecksNotAskedFor_areIgnored() {
+        when(flashcardRepository.countByDeckIds(anyCollection())).thenReturn(List.of(
+                new Object[]{ 1L, 100L },
+                new Object[]{ 2L, 300L }));
+
+        long[] ids = selector.selectIds(List.of(1L), 0, 1L);
+
+        assertEquals(100, ids.length);
+        assertTrue(Arrays.stream(ids).allMatch(id -> id <= 100));
+    }
+
+    @Test
+    void selectIds_maxQuestions_boundsEverySelection() {
+        QuestionSelector bounded = new QuestionSelector(flashcardRepository, 10);
+
+        assertEquals(10, bounded.selectIds(List.of(1L, 2L), 0, 1L).length);
+        assertEquals(5, bounded.selectIds(List.of(1L, 2L), 5, 1L).length);
+    }
+
+    @Test
+    void quotas_largestRemainder_sumsToLimit() {
+        assertArrayEquals(new int[]{ 1, 1, 1 }, QuestionSelector.quotas(new long[]{ 10, 10, 10 }, 3));
+        assertArrayEquals(new int[]{ 3, 2 }, QuestionSelector.quotas(new long[]{ 10, 7 }, 5));
+        assertArrayEquals(new int[]{ 0, 4 }, QuestionSelector.quotas(new long[]{ 0, 9 }, 4));
+        assertArrayEquals(new int[]{ 2, 3 }, QuestionSelector.quotas(new long[]{ 2, 3 }, 10));
+    }
+
+    @Test
+    void sample_isUniformEnough() {
+        int[] hits = new int[10];
+        SplittableRandom random = new SplittableRandom(99);
+        long[] out = new long[3];
+        for (int run = 0; run < 10_000; run++) {
+            QuestionSelector.sample(LongStream.range(0, 10).boxed().iterator(), 3, random, out, 0);
+            for (long id : out) {
+                hits[(int) id]++;
+            }
+        }
+        // every id is expected 3000 times
+        for (int h : hits) {
+            assertTrue(h > 2700 && h < 3300, "hits " + Arrays.toString(hits));
+        }
+    }
+
+    @Test
+    void sample_neverRepeatsAnId() {
+        long[] out = new long[50];
+        int n = QuestionSelector.sample(LongStream.range(0, 1000).boxed().iterator(), 50,
+                new SplittableRandom(5), out, 0);
+
+        assertEquals(50, n);
+        Set<Long> distinct = Arrays.stream(out).boxed().collect(Collectors.toSet());
+        assertEquals(50, distinct.size());
+    }
+}
@@ -0,0 +1,115 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizActorExecutorTest {
+
+    private QuizActorExecutor actors;
+
+    @BeforeEach
+    void setup() {
+        actors = new QuizActorExecutor(4, 8);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        actors.stop();
+    }
+
+    @Test
+    void eventsOfOneQuiz_neverOverlap() throws Exception {
+        AtomicInteger inside   = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        int[] counter = new int[1];                  // deliberately unsynchronized
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            calls.add(callers.submit(() -> actors.run(1L, () -> {
+                if (inside.getAndIncrement() != 0) {
+                    overlaps.incrementAndGet();
+                }
+                counter[0]++;
+                inside.decrementAndGet();
+            })));
+        }
+        for (Future<?> f : calls) {
+            f.get(5, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        assertEquals(0, overlaps.get());
+        assertEquals(2_000, actors.call(1L, () -> counter[0]));
+    }
+
+    @Test
+    void differentQuizzes_runInParallel() throws InterruptedException {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch done        = new CountDownLatch(2);
+        for (long quizId = 1; quizId <= 2; quizId++) {
+            actors.execute(quizId, () -> {
+                bothRunning.countDown();
+                try {
+                    bothRunning.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        assertEquals(0, bothRunning.getCount());
+    }
+
+    @Test
+    void call_rethrowsTheEventsException() {
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> actors.run(1L, () -> { throw new IllegalStateException("boom"); }));
+        assertEquals("boom", thrown.getMessage());
+
+        // the mailbox keeps working
+        assertEquals(42, actors.call(1L, () -> 42));
+    }
+
+    @Test
+    void call_fromInsideTheSameQuiz_runsInline() {
+        String result = actors.call(1L, () -> actors.call(1L, () -> "nested"));
+        assertEquals("nested", result);
+    }
+
+    @Test
+    void call_fromInsideAnotherQuiz_isRejected() {
+        assertThrows(IllegalStateException.class, () -> actors.call(1L, () -> actors.call(2L, () -> "nested")));
+
+        // posting without waiting is fine
+        assertEquals("posted", actors.call(1L, () -> actors.submit(2L, () -> "posted")).join());
+    }
+
+    @Test
+    void mailboxes_areDroppedOnceIdle() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(50);
+        for (long quizId = 0; quizId < 50; quizId++) {
+            actors.execute(quizId, done::countDown);
+        }
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+
+        long until = System.currentTimeMillis() + 2_000;
+        while (actors.getMailboxes() > 0 && System.currentTimeMillis() < until) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, actors.getMailboxes());
+    }
+}
@@ -0,0 +1,196 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizUpdateMessageDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class QuizBroadcastSchedulerTest {
+
+    @Mock private SimpMessagingTemplate messagingTemplate;
+
+    private QuizProgressStore progressStore;
+    private QuizBroadcastScheduler broadcaster;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        progressStore = new QuizProgressStore(300, 21600);
+        // the tick is not started, tests call flush() themselves
+        broadcaster = new QuizBroadcastScheduler(new LocalQuizFanout(messagingTemplate), progressStore, new SimpleMeterRegistry(), 50, 3, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void progressChanged_isCoalescedIntoOneFramePerTick() {
+        progressStore.getProgress(1L, 10L).setTotalCorrect(1);
+        broadcaster.progressChanged(1L, 5);
+        progressStore.getProgress(1L, 10L).setTotalCorrect(2);
+        broadcaster.progressChanged(1L, 5);
+        broadcaster.progressChanged(1L, 5);
+
+        assertEquals(1, broadcaster.flush());
+
+        ArgumentCaptor<QuizUpdateMessageDTO> msg = ArgumentCaptor.forClass(QuizUpdateMessageDTO.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/quizUpdates/1"), msg.capture(), anyMap());
+        assertEquals("progress", msg.getValue().getUpdateType());
+        assertEquals(1L, msg.getValue().getSequence());
+        assertTrue(msg.getValue().isSnapshot());                                  // first frame
+        assertEquals(2, msg.getValue().getPlayerProgress().get(0).getScore());   // latest state
+        assertEquals(0, broadcaster.flush());
+    }
+
+    @Test
+    void quizFinished_isSentImmediatelyAndSupersedesProgress() {
+        broadcaster.progressChanged(1L, 5);
+        broadcaster.quizFinished(1L, 5);
+
+        ArgumentCaptor<QuizUpdateMessageDTO> msg = ArgumentCaptor.forClass(QuizUpdateMessageDTO.class);
+        verify(messagingTemplate, timeout(1000)).convertAndSend(eq("/topic/quizUpdates/1"), msg.capture(), anyMap());
+        assertEquals("finished", msg.getValue().getUpdateType());
+
+        broadcaster.progressChanged(1L, 5);
+        assertEquals(0, broadcaster.flush());
+        verify(messagingTemplate, times(1)).convertAndSend(any(String.class), any(Object.class), anyMap());
+    }
+
+    @Test
+    void insideTransaction_nothingIsScheduledBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            broadcaster.progressChanged(1L, 5);
+            assertEquals(0, broadcaster.flush());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1, broadcaster.flush());
+    }
+
+    @Test
+    void deltaFrames_onlyCarryChangedPlayers() {
+        progressStore.getProgress(1L, 10L);
+        progressStore.getProgress(1L, 11L);
+        broadcaster.progressChanged(1L, 5);
+        broadcaster.flush();
+
+        progressStore.getProgress(1L, 11L).setCurrentIndex(1);
+        broadcaster.progressChanged(1L, 5);
+        broadcaster.flush();
+
+        ArgumentCaptor<QuizUpdateMessageDTO> msg = ArgumentCaptor.forClass(QuizUpdateMessageDTO.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/quizUpdates/1"), msg.capture(), anyMap());
+        QuizUpdateMessageDTO delta = msg.getAllValues().get(1);
+        assertEquals(2L, delta.getSequence());
+        assertFalse(delta.isSnapshot());
+        assertNull(delta.getTotalQuestions());
+        assertEquals(1, delta.getPlayerProgress().size());
+        assertEquals(11L, delta.getPlayerProgress().get(0).getUserId());
+
+        // nothing changed: no frame, no sequence number used
+        broadcaster.progressChanged(1L, 5);
+        assertEquals(0, broadcaster.flush());
+    }
+
+    @Test
+    void everyNthFrame_isAFullSnapshot() {
+        QuizProgressStore.ProgressState p = progressStore.getProgress(1L, 10L);
+        progressStore.getProgress(1L, 11L);
+        for (int i = 1; i <= 4; i++) {
+            p.setCurrentIndex(i);
+            broadcaster.progressChanged(1L, 5);
+            broadcaster.flush();
+        }
+
+        ArgumentCaptor<QuizUpdateMessageDTO> msg = ArgumentCaptor.forClass(QuizUpdateMessageDTO.class);
+        verify(messagingTemplate, times(4)).convertAndSend(eq("/topic/quizUpdates/1"), msg.capture(), anyMap());
+        List<QuizUpdateMessageDTO> frames = msg.getAllValues();
+        assertTrue(frames.get(0).isSnapshot());
+        assertFalse(frames.get(1).isSnapshot());
+        assertFalse(frames.get(2).isSnapshot());
+        assertTrue(frames.get(3).isSnapshot());     // snapshotEvery = 3
+        assertEquals(2, frames.get(3).getPlayerProgress().size());
+        assertEquals(5L, frames.get(3).getTotalQuestions());
+    }
+
+    @Test
+    void leaders_goWithSnapshotsAndWhenTheTopChanges() {
+        progressStore.getProgress(1L, 10L);
+        progressStore.getLeaderboard(1L).update(10L, 1, 0L);
+        progressStore.getLeaderboard(1L).update(11L, 0, 0L);
+        broadcaster.progressChanged(1L, 5);
+        assertEquals(1, broadcaster.flush());
+
+        // no progress entry changed, only the ranking
+        progressStore.getLeaderboard(1L).update(11L, 2, 0L);
+        broadcaster.progressChanged(1L, 5);
+        assertEquals(1, broadcaster.flush());
+
+        ArgumentCaptor<QuizUpdateMessageDTO> msg = ArgumentCaptor.forClass(QuizUpdateMessageDTO.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/quizUpdates/1"), msg.capture(), anyMap());
+        assertEquals(10L, msg.getAllValues().get(0).getLeaders().get(0).getUserId());
+        QuizUpdateMessageDTO delta = msg.getAllValues().get(1);
+        assertFalse(delta.isSnapshot());
+        assertTrue(delta.getPlayerProgress().isEmpty());
+        assertEquals(11L, delta.getLeaders().get(0).getUserId());
+        assertEquals(1, delta.getLeaders().get(0).getRank());
+
+        broadcaster.progressChanged(1L, 5);
+        assertEquals(0, broadcaster.flush());
+        assertEquals(2, broadcaster.snapshot(1L).getLeaders().size());
+    }
+
+    @Test
+    void snapshot_listsAllPlayersAtTheLastSequence() {
+        progressStore.getProgress(1L, 10L);
+        broadcaster.progressChanged(1L, 5);
+        broadcaster.flush();
+        progressStore.getProgress(1L, 11L);
+
+        QuizUpdateMessageDTO snapshot = broadcaster.snapshot(1L);
+
+        assertTrue(snapshot.isSnapshot());
+        assertEquals(1L, snapshot.getSequence());
+        assertEquals(2, snapshot.getPlayerProgress().size());
+        assertEquals(0L, broadcaster.snapshot(2L).getSequence());
+    }
+
+    @Test
+    void framesReachEveryNode() {
+        SimpMessagingTemplate otherNode = mock(SimpMessagingTemplate.class);
+        QuizFanout bus = new InProcessQuizFanout().join(messagingTemplate).join(otherNode);
+        QuizBroadcastScheduler clustered =
+                new QuizBroadcastScheduler(bus, progressStore, new SimpleMeterRegistry(), 50, 3, 2);
+        try {
+            progressStore.getProgress(1L, 10L);
+            clustered.progressChanged(1L, 5);
+            clustered.flush();
+
+            verify(messagingTemplate).convertAndSend(eq("/topic/quizUpdates/1"), any(Object.class), anyMap());
+            verify(otherNode).convertAndSend(eq("/topic/quizUpdates/1"), any(Object.class), anyMap());
+        } finally {
+            clustered.stop();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizLeaderboardTest {
+
+    @Test
+    void higherScore_ranksFirst() {
+        QuizLeaderboard board = new QuizLeaderboard();
+
+        assertEquals(1, board.update(1L, 2, 0L));
+        assertEquals(1, board.update(2L, 5, 0L));
+        assertEquals(3, board.update(3L, 1, 0L));
+
+        assertEquals(2, board.get(1L).getRank());
+        assertEquals(3, board.size());
+    }
+
+    @Test
+    void sameScore_earlierFinisherFirst_thenUnfinished_thenLowerId() {
+        QuizLeaderboard board = new QuizLeaderboard();
+        board.update(4L, 3, 0L);
+        board.update(3L, 3, 0L);
+        board.update(2L, 3, 2_000L);
+        board.update(1L, 3, 1_000L);
+
+        List<QuizLeaderboard.Entry> top = board.top(10);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(top));
+        assertTrue(top.get(0).isFinished());
+        assertFalse(top.get(2).isFinished());
+        assertEquals(2, board.getFinished());
+    }
+
+    @Test
+    void rescoring_movesThePlayer() {
+        QuizLeaderboard board = new QuizLeaderboard();
+        board.join(1L);
+        board.join(2L);
+        board.join(2L);
+
+        assertEquals(2, board.size());
+        assertEquals(1, board.update(2L, 1, 0L));
+        assertEquals(2, board.get(1L).getRank());
+        assertEquals(1, board.update(1L, 2, 500L));
+        assertEquals(1, board.getFinished());
+        assertNull(board.get(3L));
+    }
+
+    @Test
+    void top_isLimitedToK() {
+        QuizLeaderboard board = new QuizLeaderboard();
+        for (long id = 1; id <= 50; id++) {
+            board.update(id, (int) id, 0L);
+        }
+
+        List<QuizLeaderboard.Entry> top = board.top(3);
+
+        assertEquals(List.of(50L, 49L, 48L), ids(top));
+        assertEquals(3, top.get(2).getRank());
+        assertTrue(board.top(0).isEmpty());
+        assertEquals(50, board.top(100).size());
+    }
+
+    @Test
+    void randomUpdates_matchASortedList() {
+        QuizLeaderboard board = new QuizLeaderboard();
+        Map<Long, long[]> players = new HashMap<>();     // userId -> {score, finishedAt}
+        Random random = new Random(7);
+
+        for (int i = 0; i < 5_000; i++) {
+            long id = 1 + random.nextInt(300);
+            int score = random.nextInt(20);
+            long finishedAt = random.nextInt(4) == 0 ? 1 + random.nextInt(1_000) : 0L;
+            board.update(id, score, finishedAt);
+            players.put(id, new long[] {score, finishedAt});
+        }
+
+        List<Long> expected = new ArrayList<>(players.keySet());
+        expected.sort(Comparator.<Long>comparingLong(id -> -players.get(id)[0])
+                .thenComparingLong(id -> players.get(id)[1] > 0 ? players.get(id)[1] : Long.MAX_VALUE)
+                .thenComparingLong(id -> id));
+        assertEquals(expected, ids(board.top(players.size())));
+        for (int rank = 1; rank <= expected.size(); rank++) {
+            assertEquals(rank, board.get(expected.get(rank - 1)).getRank());
+        }
+    }
+
+    private static List<Long> ids(List<QuizLeaderboard.Entry> entries) {
+        List<Long> ids = new ArrayList<>();
+        for (QuizLeaderboard.Entry e : entries) {
+            ids.add(e.getUserId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,128 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizProgressStoreTest {
+
+    private QuizProgressStore store;
+
+    @BeforeEach
+    void setup() {
+        store = new QuizProgressStore(300, 21600);
+    }
+
+    @Test
+    void getProgress_sameKey_returnsSameState() {
+        QuizProgressStore.ProgressState a = store.getProgress(1L, 10L);
+        QuizProgressStore.ProgressState b = store.getProgress(1L, 10L);
+        assertSame(a, b);
+    }
+
+    @Test
+    void getProgressForQuiz_onlyReturnsPlayersOfThatQuiz() {
+        store.getProgress(1L, 10L);
+        store.getProgress(1L, 11L);
+        store.getProgress(2L, 10L);
+        store.getProgress(11L, 12L);   // would match the old "1" string prefix scan
+
+        List<QuizProgressStore.UserProgressEntry> entries = store.getProgressForQuiz(1L);
+
+        assertEquals(2, entries.size());
+        assertEquals(10L, entries.get(0).getUserId());
+        assertEquals(11L, entries.get(1).getUserId());
+        assertTrue(store.getProgressForQuiz(99L).isEmpty());
+    }
+
+    @Test
+    void advance_onlySucceedsOncePerIndex() {
+        QuizProgressStore.ProgressState p = store.getProgress(1L, 10L);
+        assertTrue(p.advance(0, 1));
+        assertFalse(p.advance(0, 1));
+        assertEquals(1, p.getCurrentIndex());
+    }
+
+    @Test
+    void markFinished_onlyFirstCallerWins() {
+        QuizProgressStore.ProgressState p = store.getProgress(1L, 10L);
+        assertTrue(p.markFinished());
+        assertFalse(p.markFinished());
+        assertTrue(p.isFinished());
+    }
+
+    @Test
+    void concurrentUpdates_areNotLost() throws InterruptedException {
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int t = 0; t < threads; t++) {
+            long userId = t % 2;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    store.getProgress(7L, userId).incrementAttempts();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(2, store.getPlayerCount(7L));
+        int total = store.getProgressForQuiz(7L).stream()
+                .mapToInt(e -> e.getProgress().getTotalAttempts())
+                .sum();
+        assertEquals(threads * perThread, total);
+    }
+
+    @Test
+    void reap_dropsCompletedQuizAfterTtl() {
+        QuizProgressStore reaping = new QuizProgressStore(60, 3600);
+        reaping.getProgress(1L, 10L);
+        reaping.getProgress(1L, 11L);
+        reaping.markCompleted(1L);
+        long now = System.currentTimeMillis();
+
+        assertEquals(0, reaping.reap(now));
+        assertEquals(1, reaping.reap(now + 61_000));
+
+        assertTrue(reaping.getProgressForQuiz(1L).isEmpty());
+        assertEquals(0, reaping.getLiveQuizzes());
+        assertEquals(0, reaping.getLiveEntries());
+        assertEquals(1, reaping.getEvictedQuizzes());
+        assertEquals(2, reaping.getEvictedEntries());
+    }
+
+    @Test
+    void reap_dropsAbandonedQuizOnlyOnceDeadlinePassed() {
+        QuizProgressStore reaping = new QuizProgressStore(60, 3600);
+        long now = System.currentTimeMillis();
+        reaping.registerQuiz(1L, now + 120_000);
+        reaping.getProgress(1L, 10L);
+
+        assertEquals(0, reaping.reap(now + 90_000));    // idle, but still before the deadline
+        assertEquals(1, reaping.reap(now + 130_000));   // deadline passed and idle for > ttl
+    }
+
+    @Test
+    void reap_keepsRunningQuizWithoutTimeLimitUntilMaxIdle() {
+        QuizProgressStore reaping = new QuizProgressStore(60, 3600);
+        reaping.getProgress(1L, 10L);
+        long now = System.currentTimeMillis();
+
+        assertEquals(0, reaping.reap(now + 600_000));
+        assertEquals(1, reaping.reap(now + 3_601_000));
+        assertEquals(1, reaping.getLiveEntries() + reaping.getEvictedEntries());
+    }
+}
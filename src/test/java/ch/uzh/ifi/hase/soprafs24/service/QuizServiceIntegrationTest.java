@@ -31,10 +31,15 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.test.annotation.DirtiesContext;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -42,8 +47,7 @@ import static org.assertj.core.api.Assertions.assertThat;
         classes = QuizServiceIntegrationTest.TestConfig.class,
         webEnvironment = SpringBootTest.WebEnvironment.NONE
 )
-@AutoConfigureTestDatabase   // brings up an embedded H2
-@Transactional
+@AutoConfigureTestDatabase   // brings up an embedded H2, fresh for every test
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 class QuizServiceIntegrationTest {
 
@@ -51,22 +55,28 @@ class QuizServiceIntegrationTest {
     @EnableAutoConfiguration
     @EntityScan("ch.uzh.ifi.hase.soprafs24.entity")
     @EnableJpaRepositories("ch.uzh.ifi.hase.soprafs24.repository")
-    @Import({ QuizService.class, StatisticsService.class })
+    @Import({ QuizService.class, QuizProgressStore.class, QuizSessionCache.class,
+            QuizWriteBehindBuffer.class, QuizBroadcastScheduler.class, LocalQuizFanout.class,
+            QuizTimeouts.class, QuestionSelector.class, AnswerMatcher.class, PresenceRegistry.class, FlashcardCache.class,
+            QuizActorExecutor.class })
     static class TestConfig {}
 
     @Autowired private QuizService           quizService;
-    @Autowired private StatisticsService     statisticsService;
     @Autowired private UserRepository        userRepository;
     @Autowired private DeckRepository        deckRepository;
     @Autowired private QuizRepository        quizRepository;
     @Autowired private ScoreRepository       scoreRepository;
     @Autowired private StatisticsRepository  statisticsRepository;
+    @Autowired private PresenceRegistry      presence;
+    @Autowired private EntityManager         entityManager;
+    @Autowired private PlatformTransactionManager transactionManager;
 
     @MockBean private QuizMapper             quizMapper;
     @MockBean private FlashcardMapper        flashcardMapper;
     @MockBean private SimpMessagingTemplate  messagingTemplate;
     @MockBean private UserService            userService;
     @MockBean private InvitationRepository   invitationRepository;
+    @MockBean private InvitationNotifier     invitationNotifier;
 
     private User user;
     private Deck deck;
@@ -114,10 +124,15 @@ class QuizServiceIntegrationTest {
     void fullSoloQuizFlow_updatesScoreAndStatistics_andResetsUserStatus() {
         // Start a 2-question solo quiz
         Quiz quiz = quizService.startQuiz(deck.getId(), 2, null, false);
-        assertThat(quiz.getSelectedFlashcards()).hasSize(2);
-
-        // Answer each question correctly
-        var cards = quiz.getSelectedFlashcards();
+        assertThat(quiz.getQuestionOrder()).hasSize(2);
+        assertThat(quiz.getSelectedFlashcards()).isEmpty();
+
+        // Answer each question correctly, in the stored order
+        Map<Long, Flashcard> byId = deck.getFlashcards().stream()
+                .collect(Collectors.toMap(Flashcard::getId, c -> c));
+        List<Flashcard> cards = Arrays.stream(quiz.getQuestionOrder())
+                .mapToObj(byId::get)
+                .collect(Collectors.toList());
         for (int i = 0; i < cards.size(); i++) {
             QuizAnswerResponseDTO dto = quizService.processAnswerWithFeedback(
                     quiz.getId(),
@@ -147,7 +162,31 @@ class QuizServiceIntegrationTest {
         assertThat(stat.getNumberOfAttempts()).isEqualTo(2);
         assertThat(stat.getTimeTaken()).isGreaterThanOrEqualTo(0L);
 
+        // the finished quiz set the player back to ONLINE: in the presence registry right away,
+        // in the user table after its flush
+        assertThat(presence.getStatus(user.getId(), null)).isEqualTo(UserStatus.ONLINE);
+        presence.flush();
+        entityManager.clear();
         User reloaded = userRepository.findById(user.getId()).orElseThrow();
-        assertThat(reloaded.getStatus()).isEqualTo(UserStatus.PLAYING);
+        assertThat(reloaded.getStatus()).isEqualTo(UserStatus.ONLINE);
+    }
+
+    @Test
+    void concurrentQuizzesOnOneDeck_allKeepTheDeck() {
+        Quiz first  = quizService.startQuiz(deck.getId(), 2, null, false);
+        Quiz second = quizService.startQuiz(deck.getId(), 1, null, false);
+
+        // the quiz events commit on their own, so the lazy deck links are read in a transaction of the test
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            assertThat(quizRepository.findById(first.getId()).orElseThrow().getDecks())
+                    .extracting(Deck::getId).containsExactly(deck.getId());
+            assertThat(quizRepository.findById(second.getId()).orElseThrow().getDecks())
+                    .extracting(Deck::getId).containsExactly(deck.getId());
+        });
+
+        // deleting a quiz only drops its link, never the deck
+        quizRepository.delete(first);
+        quizRepository.flush();
+        assertThat(deckRepository.existsById(deck.getId())).isTrue();
     }
 }
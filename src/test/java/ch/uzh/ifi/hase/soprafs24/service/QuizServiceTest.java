@@ -6,29 +6,51 @@ import ch.uzh.ifi.hase.soprafs24.entity.Deck;
 import ch.uzh.ifi.hase.soprafs24.entity.Flashcard;
 import ch.uzh.ifi.hase.soprafs24.entity.Invitation;
 import ch.uzh.ifi.hase.soprafs24.entity.Quiz;
+import ch.uzh.ifi.hase.soprafs24.entity.Score;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
 import ch.uzh.ifi.hase.soprafs24.repository.DeckRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.FlashcardRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.InvitationRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.QuizRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.ScoreRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.BatchedAnswerDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.InvitationDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.LeaderboardDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizAnswerBatchResponseDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.QuizAnswerResponseDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.mapper.FlashcardMapper;
 import ch.uzh.ifi.hase.soprafs24.rest.mapper.QuizMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class QuizServiceTest {
@@ -38,7 +60,24 @@ class QuizServiceTest {
     @Mock private QuizRepository quizRepository;
     @Mock private InvitationRepository invitationRepository;
     @Mock private DeckRepository deckRepository;
+    @Mock private ScoreRepository scoreRepository;
     @Mock private QuizMapper quizMapper;
+    @Mock private QuizBroadcastScheduler broadcaster;
+    @Mock private QuizWriteBehindBuffer writeBehind;
+    @Mock private QuizTimeouts timeouts;
+    @Mock private QuestionSelector questionSelector;
+    @Mock private InvitationNotifier invitationNotifier;
+    @Spy  private AnswerMatcher answerMatcher = new AnswerMatcher(1);
+    @Spy  private PresenceRegistry presence =
+            new PresenceRegistry(mock(UserRepository.class), mock(PlatformTransactionManager.class), 5000);
+    @Spy  private QuizProgressStore progressStore = new QuizProgressStore(300, 21600);
+    @Spy  private FlashcardMapper flashcardMapper = new FlashcardMapper();
+    private final FlashcardCache flashcardCache =
+            new FlashcardCache(mock(FlashcardRepository.class), new ObjectMapper(), 1000);
+    @Spy  private QuizSessionCache sessionCache = new QuizSessionCache(flashcardCache, progressStore, 3);
+    @Spy  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy  private QuizActorExecutor actors = new QuizActorExecutor(2, 32);
+    @Mock private PlatformTransactionManager transactionManager;
 
     @InjectMocks private QuizService quizService;
 
@@ -47,6 +86,15 @@ class QuizServiceTest {
         MockitoAnnotations.openMocks(this);
     }
 
+    /** Id of the player's current question, read from the JSON the clients get. */
+    private long currentQuestionId(Long quizId, Long userId) {
+        try {
+            return new ObjectMapper().readTree(quizService.getCurrentQuestionJson(quizId, userId)).get("id").asLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Test
     void getInvitationByFromUserId_returnsInvitations() {
         User fromUser = new User();
@@ -88,10 +136,11 @@ class QuizServiceTest {
         User from = new User(); from.setStatus(UserStatus.ONLINE);
         User to   = new User(); to.setStatus(UserStatus.ONLINE);
         Deck deck = new Deck();
+        deck.setId(100L);
 
         when(userService.getUserById(1L)).thenReturn(from);
         when(userService.getUserById(2L)).thenReturn(to);
-        when(deckRepository.findById(100L)).thenReturn(Optional.of(deck));
+        when(deckRepository.findAllById(List.of(100L))).thenReturn(List.of(deck));
         when(invitationRepository.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
 
         Invitation saved = quizService.createInvitation(dto);
@@ -100,14 +149,38 @@ class QuizServiceTest {
         assertEquals(to,   saved.getToUser());
         assertEquals(1,    saved.getDecks().size());
         assertFalse(saved.getIsAccepted());
+        assertNotNull(saved.getCreatedDate());
         verify(invitationRepository).saveAndFlush(any());
+        verify(deckRepository, never()).findById(any());
+    }
+
+    @Test
+    void createInvitation_unknownDeck_notFound() {
+        InvitationDTO dto = new InvitationDTO();
+        dto.setFromUserId(1L);
+        dto.setToUserId(2L);
+        dto.setDeckIds(List.of(100L, 101L));
+        User from = new User(); from.setStatus(UserStatus.ONLINE);
+        User to   = new User(); to.setStatus(UserStatus.ONLINE);
+        Deck deck = new Deck();
+        deck.setId(100L);
+        when(userService.getUserById(1L)).thenReturn(from);
+        when(userService.getUserById(2L)).thenReturn(to);
+        when(deckRepository.findAllById(List.of(100L, 101L))).thenReturn(List.of(deck));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> quizService.createInvitation(dto));
+        assertEquals(404, ex.getStatus().value());
+        assertEquals("Deck not found: 101", ex.getReason());
+        verify(invitationRepository, never()).saveAndFlush(any());
     }
 
     @Test
     void confirmedInvitation_success() {
-        User sender   = new User(); sender.setStatus(UserStatus.ONLINE);
-        User receiver = new User(); receiver.setStatus(UserStatus.ONLINE);
+        User sender   = new User(); sender.setId(1L);   sender.setStatus(UserStatus.ONLINE);
+        User receiver = new User(); receiver.setId(2L); receiver.setStatus(UserStatus.ONLINE);
         Quiz quiz     = new Quiz();
+        quiz.setId(5L);
         Invitation inv = new Invitation();
         inv.setFromUser(sender);
         inv.setToUser(receiver);
@@ -119,16 +192,27 @@ class QuizServiceTest {
 
         quizService.confirmedInvitation(1L);
 
-        assertEquals(UserStatus.PLAYING, sender.getStatus());
-        assertEquals(UserStatus.PLAYING, receiver.getStatus());
+        assertEquals(UserStatus.PLAYING, presence.getStatus(1L, null));
+        assertEquals(UserStatus.PLAYING, presence.getStatus(2L, null));
+        assertEquals(2, presence.getPendingWrites());
         assertTrue(inv.getIsAccepted());
         assertNotNull(inv.getIsAcceptedDate());
 
-        verify(userRepository).save(sender);
-        verify(userRepository).save(receiver);
-        verify(userRepository).flush();
+        verify(userRepository, never()).save(any());    // the registry writes statuses in batches
         verify(quizRepository).saveAndFlush(quiz);
         verify(invitationRepository).saveAndFlush(inv);
+        verify(invitationNotifier).invitationAccepted(inv);
+    }
+
+    @Test
+    void confirmedInvitation_withoutQuiz_conflict() {
+        Invitation inv = new Invitation();
+        when(invitationRepository.findById(1L)).thenReturn(Optional.of(inv));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> quizService.confirmedInvitation(1L));
+        assertEquals(409, ex.getStatus().value());
+        verify(quizRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -145,39 +229,87 @@ class QuizServiceTest {
         verify(quizRepository).flush();
         verify(invitationRepository).delete(inv);
         verify(invitationRepository).flush();
+        verify(invitationNotifier).invitationRejected(inv);
     }
 
     @Test
     void findInvitationByFromUserIdAndIsAcceptedTrue_returnsEarliestAcceptedAndDeletesOthers() {
-        User fromUser = new User(); fromUser.setId(1L);
         User to1 = new User(), to2 = new User();
+        to2.setId(3L);
+        presence.setStatus(3L, UserStatus.PLAYING);
 
         Invitation old = new Invitation();
+        old.setId(10L);
         old.setIsAccepted(true);
         old.setIsAcceptedDate(new Date(1000));
         old.setToUser(to1);
 
         Invitation late = new Invitation();
+        late.setId(11L);
         late.setIsAccepted(true);
         late.setIsAcceptedDate(new Date(2000));
         late.setToUser(to2);
         Quiz   q2 = new Quiz();
+        q2.setId(20L);
         late.setQuiz(q2);
 
-        when(userService.getUserById(1L)).thenReturn(fromUser);
-        when(invitationRepository.findByFromUser(fromUser)).thenReturn(List.of(old, late));
-        doNothing().when(quizRepository).delete(any());
+        when(invitationRepository.findFirstByFromUser_IdAndIsAcceptedTrueOrderByIsAcceptedDateAscIdAsc(1L))
+                .thenReturn(Optional.of(old));
+        when(invitationRepository.findByFromUser_IdAndIsAcceptedTrueAndIdNot(1L, 10L)).thenReturn(List.of(late));
 
         Invitation result = quizService.findInvitationByFromUserIdAndIsAcceptedTrue(1L);
 
         assertEquals(old, result);
-        assertEquals(UserStatus.ONLINE, to2.getStatus());
+        assertEquals(UserStatus.ONLINE, presence.getStatus(3L, null));
+
+        verify(invitationRepository).unlinkDecks(List.of(11L));
+        verify(invitationRepository).deleteByIds(List.of(11L));
+        verify(quizRepository).deleteScores(List.of(20L));
+        verify(quizRepository).deleteByIds(List.of(20L));
+        verify(timeouts).cancelQuizDeadline(20L);
+        verify(quizRepository, never()).delete(any());
+        verify(invitationRepository, never()).delete(any());
+        verify(invitationRepository, never()).findByFromUser(any());
+        verify(userRepository, never()).saveAndFlush(any());
+        verify(invitationNotifier).invitationCancelled(late);
+        verify(invitationNotifier, never()).invitationCancelled(old);
+    }
 
-        verify(quizRepository).delete(q2);
-        verify(quizRepository).flush();
-        verify(userRepository).saveAndFlush(to2);
-        verify(invitationRepository).delete(late);
-        verify(invitationRepository).flush();
+    @Test
+    void findInvitationByFromUserIdAndIsAcceptedTrue_noneAccepted_returnsNull() {
+        when(invitationRepository.findFirstByFromUser_IdAndIsAcceptedTrueOrderByIsAcceptedDateAscIdAsc(1L))
+                .thenReturn(Optional.empty());
+
+        assertNull(quizService.findInvitationByFromUserIdAndIsAcceptedTrue(1L));
+        verify(invitationRepository, never()).deleteByIds(any());
+    }
+
+    @Test
+    void expireInvitations_deletesStaleInvitationsAndTellsBothUsers() {
+        Invitation stale = new Invitation();
+        stale.setId(12L);
+        Quiz waiting = new Quiz();
+        waiting.setId(21L);
+        stale.setQuiz(waiting);
+        Date cutoff = new Date();
+        when(invitationRepository.findByIsAcceptedFalseAndCreatedDateBefore(eq(cutoff), any()))
+                .thenReturn(List.of(stale));
+
+        assertEquals(1, quizService.expireInvitations(cutoff, 100));
+
+        verify(invitationNotifier).invitationExpired(stale);
+        verify(invitationRepository).deleteByIds(List.of(12L));
+        verify(quizRepository).unlinkDecks(List.of(21L));
+        verify(quizRepository).unlinkStatistics(List.of(21L));
+        verify(quizRepository).deleteByIds(List.of(21L));
+    }
+
+    @Test
+    void expireInvitations_nothingStale_deletesNothing() {
+        when(invitationRepository.findByIsAcceptedFalseAndCreatedDateBefore(any(), any())).thenReturn(List.of());
+
+        assertEquals(0, quizService.expireInvitations(new Date(), 100));
+        verify(invitationRepository, never()).deleteByIds(any());
     }
 
     @Test
@@ -208,6 +340,61 @@ class QuizServiceTest {
                 () -> quizService.ensureInvitable(user));
     }
 
+    @Test
+    void checkUserStatusForInvitation_prefersPresenceOverStoredStatus() {
+        User user = new User();
+        user.setId(7L);
+        user.setStatus(UserStatus.ONLINE);              // not flushed yet
+        presence.setStatus(7L, UserStatus.PLAYING);
+
+        assertThrows(ResponseStatusException.class,
+                () -> quizService.ensureInvitable(user));
+    }
+
+    @Test
+    void cancelInvitationBySender_freesBothUsers() {
+        User from = new User(); from.setId(1L);
+        User to   = new User(); to.setId(2L);
+        presence.setStatus(1L, UserStatus.PLAYING);
+        presence.setStatus(2L, UserStatus.PLAYING);
+        Invitation inv = new Invitation();
+        inv.setFromUser(from);
+        inv.setToUser(to);
+        when(invitationRepository.findById(9L)).thenReturn(Optional.of(inv));
+
+        quizService.cancelInvitationBySender(9L);
+
+        assertEquals(UserStatus.ONLINE, presence.getStatus(1L, null));
+        assertEquals(UserStatus.ONLINE, presence.getStatus(2L, null));
+        verify(invitationRepository).delete(inv);
+        verify(invitationNotifier).invitationCancelled(inv);
+    }
+
+    @Test
+    void cancelInvitationBySender_rolledBack_keepsThePresence() {
+        User from = new User(); from.setId(1L);
+        User to   = new User(); to.setId(2L);
+        presence.setStatus(1L, UserStatus.PLAYING);
+        presence.setStatus(2L, UserStatus.PLAYING);
+        Invitation inv = new Invitation();
+        inv.setFromUser(from);
+        inv.setToUser(to);
+        when(invitationRepository.findById(9L)).thenReturn(Optional.of(inv));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            quizService.cancelInvitationBySender(9L);
+            assertEquals(UserStatus.PLAYING, presence.getStatus(1L, null));   // not before the commit
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(UserStatus.PLAYING, presence.getStatus(1L, null));
+        assertEquals(UserStatus.PLAYING, presence.getStatus(2L, null));
+    }
+
     @Test
     void getInvitationById_validId_returnsInvitation() {
         Invitation inv = new Invitation();
@@ -254,6 +441,54 @@ class QuizServiceTest {
         verify(quizMapper).fromInvitationToEntity(inv);
         verify(invitationRepository).saveAndFlush(inv);
         verify(quizRepository).saveAndFlush(quiz);
+        verify(invitationNotifier).invitationCreated(inv);
+    }
+
+    @Test
+    void createMatchedQuiz_startsRightAwayWithAScorePerPlayer() {
+        User a = new User(); a.setId(1L);
+        User b = new User(); b.setId(2L);
+        Deck deck = new Deck(); deck.setId(7L);
+        Flashcard card1 = new Flashcard(); card1.setId(70L);
+        Flashcard card2 = new Flashcard(); card2.setId(71L);
+        flashcardCache.putAll(List.of(card1, card2));
+
+        when(userRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(a, b));
+        when(deckRepository.findAllById(List.of(7L))).thenReturn(List.of(deck));
+        when(questionSelector.selectIds(List.of(7L), 10)).thenReturn(new long[] { 70L, 71L });
+        when(quizRepository.saveAndFlush(any())).thenAnswer(inv -> {
+            Quiz saved = inv.getArgument(0);
+            saved.setId(30L);
+            return saved;
+        });
+
+        Quiz quiz = quizService.createMatchedQuiz(List.of(1L, 2L), List.of(7L), 300, 10);
+
+        assertEquals(QuizStatus.IN_PROGRESS, quiz.getQuizStatus());
+        assertTrue(quiz.getIsMultiple());
+        assertEquals(2, quiz.getScores().size());
+        assertEquals(2, quiz.getScores().get(0).getTotalQuestions());
+        assertNull(quiz.getInvitation());
+        assertEquals(UserStatus.PLAYING, presence.getStatus(1L, null));
+        assertEquals(UserStatus.PLAYING, presence.getStatus(2L, null));
+        assertNotNull(sessionCache.get(30L));
+        verify(timeouts).scheduleQuizDeadline(eq(30L), anyLong());
+    }
+
+    @Test
+    void createMatchedQuiz_emptyDecks_conflict() {
+        User a = new User(); a.setId(1L);
+        User b = new User(); b.setId(2L);
+        Deck deck = new Deck(); deck.setId(7L);
+        when(userRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(a, b));
+        when(deckRepository.findAllById(List.of(7L))).thenReturn(List.of(deck));
+        when(questionSelector.selectIds(List.of(7L), 10)).thenReturn(new long[0]);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> quizService.createMatchedQuiz(List.of(1L, 2L), List.of(7L), 300, 10));
+
+        assertEquals("409 CONFLICT \"The matched decks contain no flashcards.\"", ex.getMessage());
+        verify(quizRepository, never()).saveAndFlush(any());
     }
 
     // ─────────────────────────────────────────────────────────────────────────────
@@ -306,10 +541,91 @@ class QuizServiceTest {
             assertEquals(QuizStatus.IN_PROGRESS, result.getQuizStatus());
             assertNotNull(result.getStartTime());
         }
+
+        @Test
+        void lobbyWithTwoJoinedPlayers_starts() {
+            Quiz q = new Quiz();
+            q.setId(3L);
+            q.setIsMultiple(true);
+            q.setQuizStatus(QuizStatus.WAITING);
+            q.setDecks(new ArrayList<>(List.of(new Deck())));
+
+            when(quizRepository.findById(3L)).thenReturn(Optional.of(q));
+            when(quizRepository.saveAndFlush(q)).thenReturn(q);
+            when(scoreRepository.countByQuiz_Id(3L)).thenReturn(2L);
+
+            assertEquals(QuizStatus.IN_PROGRESS, quizService.startMultiplayerIfReady(3L).getQuizStatus());
+        }
     }
 
     // ─────────────────────────────────────────────────────────────────────────────
-    // getCurrentQuestion(...)
+    // joinLobby(...)
+    // ─────────────────────────────────────────────────────────────────────────────
+    @Nested
+    class JoinLobbyTests {
+
+        private Quiz q;
+
+        @BeforeEach
+        void initLobby() {
+            q = new Quiz();
+            q.setId(4L);
+            q.setIsMultiple(true);
+            q.setQuizStatus(QuizStatus.WAITING);
+            q.setQuestionOrder(new long[] {10L, 20L});
+            when(quizRepository.findById(4L)).thenReturn(Optional.of(q));
+
+            User user = new User(); user.setId(100L); user.setStatus(UserStatus.ONLINE);
+            when(userRepository.findById(100L)).thenReturn(Optional.of(user));
+        }
+
+        @Test
+        void newPlayer_getsAScore() {
+            quizService.joinLobby(4L, 100L);
+
+            verify(scoreRepository).save(argThat((Score s) -> s.getUser().getId().equals(100L)
+                    && s.getQuiz() == q && s.getTotalQuestions() == 2));
+        }
+
+        @Test
+        void joinedPlayer_isNotAddedTwice() {
+            when(scoreRepository.existsByQuiz_IdAndUser_Id(4L, 100L)).thenReturn(true);
+
+            quizService.joinLobby(4L, 100L);
+
+            verify(scoreRepository, never()).save(any(Score.class));
+        }
+
+        @Test
+        void fullLobby_conflict() {
+            when(scoreRepository.countByQuiz_Id(4L)).thenReturn(500L);
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> quizService.joinLobby(4L, 100L));
+            assertEquals("409 CONFLICT \"The lobby is full.\"", ex.getMessage());
+            verify(scoreRepository, never()).save(any(Score.class));
+        }
+
+        @Test
+        void runningQuiz_conflict() {
+            q.setQuizStatus(QuizStatus.IN_PROGRESS);
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> quizService.joinLobby(4L, 100L));
+            assertEquals(409, ex.getStatus().value());
+        }
+
+        @Test
+        void playingUser_badRequest() {
+            presence.setStatus(100L, UserStatus.PLAYING);
+
+            assertThrows(ResponseStatusException.class, () -> quizService.joinLobby(4L, 100L));
+            verify(scoreRepository, never()).save(any(Score.class));
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────────
+    // getCurrentQuestionJson(...)
     // ─────────────────────────────────────────────────────────────────────────────
     @Nested
     class GetCurrentQuestionTests {
@@ -332,23 +648,23 @@ class QuizServiceTest {
         void quizNotFound_throwsNotFound() {
             when(quizRepository.findById(99L)).thenReturn(Optional.empty());
             assertThrows(ResponseStatusException.class,
-                    () -> quizService.getCurrentQuestion(99L, 1L));
+                    () -> quizService.getCurrentQuestionJson(99L, 1L));
         }
 
         @Test
         void notInProgress_throwsBadRequest() {
             q.setQuizStatus(QuizStatus.WAITING);
             assertThrows(ResponseStatusException.class,
-                    () -> quizService.getCurrentQuestion(5L, 1L),
+                    () -> quizService.getCurrentQuestionJson(5L, 1L),
                     "Quiz not in progress.");
         }
 
         @Test
         void alreadyFinished_throwsBadRequest() {
-            QuizProgressStore.getProgress(5L, 100L).setFinished(true);
+            progressStore.getProgress(5L, 100L).setFinished(true);
             ResponseStatusException ex = assertThrows(
                     ResponseStatusException.class,
-                    () -> quizService.getCurrentQuestion(5L, 100L)
+                    () -> quizService.getCurrentQuestionJson(5L, 100L)
             );
             assertEquals("400 BAD_REQUEST \"You already finished this quiz.\"", ex.getMessage());
         }
@@ -357,25 +673,370 @@ class QuizServiceTest {
         void noQuestions_throwsInternalServerError() {
             q.setSelectedFlashcards(Collections.emptyList());
             assertThrows(ResponseStatusException.class,
-                    () -> quizService.getCurrentQuestion(5L, 200L),
+                    () -> quizService.getCurrentQuestionJson(5L, 200L),
                     "No questions in this quiz.");
         }
 
         @Test
         void indexOutOfBounds_throwsBadRequest() {
-            QuizProgressStore.getProgress(5L, 300L).setCurrentIndex(2);
+            progressStore.getProgress(5L, 300L).setCurrentIndex(2);
             assertThrows(ResponseStatusException.class,
-                    () -> quizService.getCurrentQuestion(5L, 300L),
+                    () -> quizService.getCurrentQuestionJson(5L, 300L),
                     "No more questions.");
         }
 
         @Test
-        void validRequest_returnsCurrentFlashcard() {
-            Flashcard result = quizService.getCurrentQuestion(5L, 400L);
-            assertSame(card1, result);
-            var prog = QuizProgressStore.getProgress(5L, 400L);
+        void validRequest_returnsCurrentQuestion() {
+            assertEquals(card1.getId(), currentQuestionId(5L, 400L));
+            var prog = progressStore.getProgress(5L, 400L);
             prog.setCurrentIndex(1);
-            assertSame(card2, quizService.getCurrentQuestion(5L, 400L));
+            assertEquals(card2.getId(), currentQuestionId(5L, 400L));
+        }
+
+        @Test
+        void currentQuestionJson_isSerializedOnceAndHasNoAnswer() {
+            byte[] first = quizService.getCurrentQuestionJson(5L, 400L);
+            String json = new String(first, java.nio.charset.StandardCharsets.UTF_8);
+
+            assertTrue(json.contains("\"id\":" + card1.getId()));
+            assertFalse(json.contains("answer"));
+            assertSame(first, quizService.getCurrentQuestionJson(5L, 401L));
+        }
+
+        @Test
+        void legacyQuiz_questionOrderIsPackedWhenOpened() {
+            assertNull(q.getQuestionOrder());
+
+            quizService.getCurrentQuestionJson(5L, 400L);
+
+            assertArrayEquals(new long[]{ 10L, 20L }, q.getQuestionOrder());
+        }
+
+        @Test
+        void repeatedRequests_serveQuestionsFromSessionCache() {
+            quizService.getCurrentQuestionJson(5L, 500L);
+            quizService.getCurrentQuestionJson(5L, 500L);
+            verify(quizRepository, times(1)).findById(5L);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────────
+    // server-side timeouts: expireQuiz(...), expireQuestion(...)
+    // ─────────────────────────────────────────────────────────────────────────────
+    @Nested
+    class ServerTimeoutTests {
+
+        private Quiz q;
+
+        @BeforeEach
+        void initQuiz() {
+            Flashcard card1 = new Flashcard(); card1.setId(10L);
+            Flashcard card2 = new Flashcard(); card2.setId(20L);
+            q = new Quiz();
+            q.setId(5L);
+            q.setIsMultiple(false);
+            q.setQuizStatus(QuizStatus.IN_PROGRESS);
+            q.setSelectedFlashcards(new ArrayList<>(List.of(card1, card2)));
+            when(quizRepository.findById(5L)).thenReturn(Optional.of(q));
+        }
+
+        @Test
+        void expireQuiz_inProgress_completesAndPushesFinishedFrame() {
+            quizService.expireQuiz(5L);
+
+            assertEquals(QuizStatus.COMPLETED, q.getQuizStatus());
+            assertNotNull(q.getEndTime());
+            verify(quizRepository).saveAndFlush(q);
+            verify(timeouts).cancelQuizDeadline(5L);
+            verify(broadcaster).quizFinished(5L, 2);
+        }
+
+        @Test
+        void expireQuiz_resetsOnlyPlayersStillPlaying() {
+            User playing = new User(); playing.setId(1L);
+            User offline = new User(); offline.setId(2L);
+            for (User u : List.of(playing, offline)) {
+                Score score = new Score();
+                score.setUser(u);
+                q.getScores().add(score);
+            }
+            presence.setStatus(1L, UserStatus.PLAYING);
+            presence.setStatus(2L, UserStatus.OFFLINE);     // left before the quiz ended
+
+            quizService.expireQuiz(5L);
+
+            assertEquals(UserStatus.ONLINE, presence.getStatus(1L, null));
+            assertEquals(UserStatus.OFFLINE, presence.getStatus(2L, null));
+        }
+
+        @Test
+        void expireQuiz_alreadyCompleted_isNoop() {
+            q.setQuizStatus(QuizStatus.COMPLETED);
+
+            quizService.expireQuiz(5L);
+
+            verify(quizRepository, never()).saveAndFlush(any());
+            verifyNoInteractions(broadcaster);
+        }
+
+        @Test
+        void expireQuestion_unanswered_movesPlayerToNextQuestion() {
+            quizService.getCurrentQuestionJson(5L, 100L);     // opens the session
+
+            quizService.expireQuestion(5L, 100L, 0);
+
+            assertEquals(1, progressStore.getProgress(5L, 100L).getCurrentIndex());
+            verify(timeouts).scheduleQuestionTimeout(5L, 100L, 1);
+            verify(broadcaster).progressChanged(5L, 2);
+        }
+
+        @Test
+        void expireQuestion_answeredInTheMeantime_isNoop() {
+            quizService.getCurrentQuestionJson(5L, 100L);
+            progressStore.getProgress(5L, 100L).setCurrentIndex(1);
+
+            quizService.expireQuestion(5L, 100L, 0);
+
+            assertEquals(1, progressStore.getProgress(5L, 100L).getCurrentIndex());
+            verifyNoInteractions(broadcaster);
+        }
+
+        @Test
+        void expireQuestion_lastCard_finishesPlayerAndQuiz() {
+            quizService.getCurrentQuestionJson(5L, 100L);
+            progressStore.getProgress(5L, 100L).setCurrentIndex(1);
+
+            quizService.expireQuestion(5L, 100L, 1);
+
+            assertTrue(progressStore.getProgress(5L, 100L).isFinished());
+            assertEquals(QuizStatus.COMPLETED, q.getQuizStatus());
+            verify(writeBehind).recordStats(eq(5L), eq(100L), eq(0), eq(0), anyLong());
+            verify(broadcaster).quizFinished(5L, 2);
+        }
+
+        @Test
+        void expireQuestion_sessionGone_isNoop() {
+            quizService.expireQuestion(5L, 100L, 0);
+
+            assertEquals(0, progressStore.getPlayerCount(5L));
+            verifyNoInteractions(broadcaster);
+        }
+
+        @Test
+        void getCurrentQuestion_startsQuestionClockOnlyOnce() {
+            when(timeouts.isQuestionTimeoutEnabled()).thenReturn(true);
+
+            quizService.getCurrentQuestionJson(5L, 100L);
+            quizService.getCurrentQuestionJson(5L, 100L);
+
+            verify(timeouts, times(1)).scheduleQuestionTimeout(5L, 100L, 0);
+        }
+    }
+
+    @Nested
+    class SubmitAnswerTests {
+
+        @BeforeEach
+        void initQuiz() {
+            Flashcard card1 = new Flashcard(); card1.setId(10L); card1.setAnswer("Bern");
+            Flashcard card2 = new Flashcard(); card2.setId(20L); card2.setAnswer("Paris");
+            Quiz q = new Quiz();
+            q.setId(5L);
+            q.setIsMultiple(false);
+            q.setQuizStatus(QuizStatus.IN_PROGRESS);
+            q.setSelectedFlashcards(new ArrayList<>(List.of(card1, card2)));
+            when(quizRepository.findById(5L)).thenReturn(Optional.of(q));
+
+            User user = new User(); user.setId(100L); user.setStatus(UserStatus.PLAYING);
+            when(userRepository.findById(100L)).thenReturn(Optional.of(user));
+        }
+
+        @Test
+        void correctAnswer_completesWithNextQuestion() throws Exception {
+            Long first = currentQuestionId(5L, 100L);
+            String answer = first.equals(10L) ? "Bern" : "Paris";
+
+            QuizAnswerResponseDTO dto = quizService.submitAnswer(5L, first, answer, null, 100L)
+                    .get(2, TimeUnit.SECONDS);
+
+            assertTrue(dto.isWasCorrect());
+            assertFalse(dto.isFinished());
+            assertNotEquals(first, dto.getNextQuestion().getId());
+            assertEquals(1, progressStore.getProgress(5L, 100L).getCurrentIndex());
+        }
+
+        @Test
+        void answer_reportsTheRank() throws Exception {
+            progressStore.getLeaderboard(5L).update(200L, 1, 0L);
+            Long first = currentQuestionId(5L, 100L);
+
+            QuizAnswerResponseDTO wrong = quizService.submitAnswer(5L, first, "Rome", null, 100L)
+                    .get(2, TimeUnit.SECONDS);
+            assertEquals(2, wrong.getRank());
+            assertEquals(2, wrong.getPlayers());
+
+            String answer = first.equals(10L) ? "Bern" : "Paris";
+            QuizAnswerResponseDTO right = quizService.submitAnswer(5L, first, answer, null, 100L)
+                    .get(2, TimeUnit.SECONDS);
+            assertEquals(1, right.getRank());   // same score, lower user id
+        }
+
+        @Test
+        void leaderboard_isCappedAndShowsTheCallersPlace() {
+            for (long id = 1; id <= 150; id++) {
+                progressStore.getLeaderboard(5L).update(id, (int) (id % 7), 0L);
+            }
+
+            LeaderboardDTO dto = quizService.getLeaderboard(5L, 7L, 1000);
+
+            assertEquals(150, dto.getPlayers());
+            assertEquals(100, dto.getLeaders().size());
+            assertEquals(6, dto.getLeaders().get(0).getScore());
+            assertEquals(0, dto.getOwn().getScore());
+            assertTrue(dto.getOwn().getRank() > 100);
+        }
+
+        @Test
+        void leaderboard_unknownQuiz_notFound() {
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> quizService.getLeaderboard(77L, null, 10));
+            assertEquals(404, ex.getStatus().value());
+        }
+
+        @Test
+        void correctAnswer_prefetchesFromTheNextQuestion() throws Exception {
+            Long first = currentQuestionId(5L, 100L);
+            String answer = first.equals(10L) ? "Bern" : "Paris";
+
+            QuizAnswerResponseDTO dto = quizService.submitAnswer(5L, first, answer, null, 100L)
+                    .get(2, TimeUnit.SECONDS);
+
+            assertEquals(1, dto.getPrefetch().getFromIndex());
+            assertEquals(2, dto.getPrefetch().getTotalQuestions());
+            assertEquals(1, dto.getPrefetch().getQuestions().size());
+            assertEquals(dto.getNextQuestion().getId(), dto.getPrefetch().getQuestions().get(0).getId());
+        }
+
+        @Test
+        void typedAnswer_isMatchedByItsNormalizedKey() throws Exception {
+            Long first = currentQuestionId(5L, 100L);
+            String answer = first.equals(10L) ? "  BERN!" : "paris.";
+
+            assertTrue(quizService.submitAnswer(5L, first, answer, null, 100L)
+                    .get(2, TimeUnit.SECONDS).isWasCorrect());
+        }
+
+        @Test
+        void optionOfACardWithoutOptions_isWrong() throws Exception {
+            Long first = currentQuestionId(5L, 100L);
+
+            QuizAnswerResponseDTO dto = quizService.submitAnswer(5L, first, null, 0, 100L)
+                    .get(2, TimeUnit.SECONDS);
+
+            assertFalse(dto.isWasCorrect());
+            assertEquals(1, progressStore.getProgress(5L, 100L).getTotalAttempts());
+        }
+
+        @Test
+        void rejectedAnswer_completesWithTheServiceException() {
+            quizService.getCurrentQuestionJson(5L, 100L);
+
+            ExecutionException ex = assertThrows(ExecutionException.class,
+                    () -> quizService.submitAnswer(5L, 999L, "Bern", null, 100L).get(2, TimeUnit.SECONDS));
+            assertTrue(ex.getCause() instanceof ResponseStatusException);
+            assertEquals(400, ((ResponseStatusException) ex.getCause()).getStatus().value());
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────────
+    // processAnswerBatch(...)
+    // ─────────────────────────────────────────────────────────────────────────────
+    @Nested
+    class AnswerBatchTests {
+
+        private Quiz q;
+        private long first;
+        private String firstAnswer;
+
+        @BeforeEach
+        void initQuiz() {
+            Flashcard card1 = new Flashcard(); card1.setId(10L); card1.setAnswer("Bern");
+            Flashcard card2 = new Flashcard(); card2.setId(20L); card2.setAnswer("Paris");
+            q = new Quiz();
+            q.setId(5L);
+            q.setIsMultiple(false);
+            q.setQuizStatus(QuizStatus.IN_PROGRESS);
+            q.setSelectedFlashcards(new ArrayList<>(List.of(card1, card2)));
+            when(quizRepository.findById(5L)).thenReturn(Optional.of(q));
+
+            User user = new User(); user.setId(100L); user.setStatus(UserStatus.PLAYING);
+            when(userRepository.findById(100L)).thenReturn(Optional.of(user));
+
+            first = q.getSelectedFlashcards().get(0).getId();
+            firstAnswer = q.getSelectedFlashcards().get(0).getAnswer();
+        }
+
+        private BatchedAnswerDTO answer(long flashcardId, String text, long clientTimestamp) {
+            BatchedAnswerDTO a = new BatchedAnswerDTO();
+            a.setFlashcardId(flashcardId);
+            a.setSelectedAnswer(text);
+            a.setClientTimestamp(clientTimestamp);
+            return a;
+        }
+
+        @Test
+        void batch_isAppliedInOrderAndFlushedOnce() {
+            QuizAnswerBatchResponseDTO dto = quizService.processAnswerBatch(5L, 100L,
+                    List.of(answer(first, "no idea", 1_000L), answer(first, firstAnswer, 2_000L)));
+
+            assertEquals(2, dto.getApplied());
+            assertEquals(1, dto.getCurrentIndex());
+            assertEquals(1, dto.getTotalCorrect());
+            assertEquals(2, dto.getTotalAttempts());
+            assertFalse(dto.isFinished());
+            verify(writeBehind, times(1)).recordCorrectAnswer(5L, 100L, 2);
+            verify(writeBehind, times(1)).recordStats(eq(5L), eq(100L), eq(1), eq(2), anyLong());
+            verify(writeBehind).flushQuiz(5L);
+        }
+
+        @Test
+        void retriedBatch_isIgnored() {
+            List<BatchedAnswerDTO> batch = List.of(answer(first, "no idea", 1_000L), answer(first, firstAnswer, 2_000L));
+            quizService.processAnswerBatch(5L, 100L, batch);
+
+            QuizAnswerBatchResponseDTO again = quizService.processAnswerBatch(5L, 100L, batch);
+
+            assertEquals(0, again.getApplied());
+            assertEquals(2, again.getIgnored());
+            assertEquals(2, again.getTotalAttempts());
+            assertEquals(1, again.getCurrentIndex());
+        }
+
+        @Test
+        void answerForAnotherQuestion_rejectsTheWholeBatch() {
+            assertThrows(ResponseStatusException.class, () -> quizService.processAnswerBatch(5L, 100L,
+                    List.of(answer(first, firstAnswer, 1_000L), answer(first, firstAnswer, 2_000L))));
+
+            var prog = progressStore.getProgress(5L, 100L);
+            assertEquals(0, prog.getCurrentIndex());
+            assertEquals(0, prog.getTotalAttempts());
+            verify(writeBehind, never()).recordCorrectAnswer(any(), any(), anyInt());
+        }
+
+        @Test
+        void unorderedTimestamps_badRequest() {
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> quizService.processAnswerBatch(5L, 100L,
+                            List.of(answer(first, "x", 2_000L), answer(first, "y", 1_000L))));
+            assertEquals(400, ex.getStatus().value());
+        }
+
+        @Test
+        void multiplayerQuiz_badRequest() {
+            q.setIsMultiple(true);
+
+            assertThrows(ResponseStatusException.class, () -> quizService.processAnswerBatch(5L, 100L,
+                    List.of(answer(first, firstAnswer, 1_000L))));
         }
     }
 }
@@ -0,0 +1,126 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizTimeoutsTest {
+
+    private QuizProgressStore progressStore;
+    private QuizTimeouts timeouts;
+
+    @BeforeEach
+    void setup() {
+        progressStore = new QuizProgressStore(60, 3600);
+        timeouts = new QuizTimeouts(progressStore, 10, 64, 1, 1);
+        timeouts.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        timeouts.stop();
+    }
+
+    @Test
+    void quizDeadline_notifiesListenersOnce() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        List<Long> quizzes = new CopyOnWriteArrayList<>();
+        timeouts.addQuizDeadlineListener(id -> {
+            quizzes.add(id);
+            expired.countDown();
+        });
+
+        timeouts.scheduleQuizDeadline(7L, System.currentTimeMillis() + 30);
+
+        assertTrue(expired.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(7L), quizzes);
+    }
+
+    @Test
+    void quizDeadline_alreadyPassed_firesOnNextTick() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        timeouts.addQuizDeadlineListener(id -> expired.countDown());
+
+        timeouts.scheduleQuizDeadline(7L, System.currentTimeMillis() - 5_000);
+
+        assertTrue(expired.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void quizDeadline_rescheduled_replacesPreviousOne() throws InterruptedException {
+        List<Long> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch expired = new CountDownLatch(1);
+        timeouts.addQuizDeadlineListener(id -> {
+            fired.add(id);
+            expired.countDown();
+        });
+
+        long now = System.currentTimeMillis();
+        timeouts.scheduleQuizDeadline(7L, now + 30);
+        timeouts.scheduleQuizDeadline(7L, now + 60);
+
+        assertTrue(expired.await(2, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, fired.size());
+    }
+
+    @Test
+    void cancelQuizDeadline_andNoTimeLimit_neverFire() throws InterruptedException {
+        List<Long> fired = new CopyOnWriteArrayList<>();
+        timeouts.addQuizDeadlineListener(fired::add);
+
+        timeouts.scheduleQuizDeadline(7L, System.currentTimeMillis() + 30);
+        timeouts.scheduleQuizDeadline(8L, 0);
+        timeouts.cancelQuizDeadline(7L);
+
+        Thread.sleep(100);
+        assertTrue(fired.isEmpty());
+        assertEquals(0, timeouts.getPending());
+    }
+
+    @Test
+    void evictedQuiz_deadlineIsCancelled() {
+        progressStore.getProgress(7L, 10L);
+        progressStore.markCompleted(7L);
+        timeouts.scheduleQuizDeadline(7L, System.currentTimeMillis() + 60_000);
+        assertEquals(1, timeouts.getPending());
+
+        progressStore.reap(System.currentTimeMillis() + 61_000);
+
+        assertEquals(0, timeouts.getPending());
+    }
+
+    @Test
+    void questionTimeout_passesQuizUserAndIndex() throws InterruptedException {
+        CountDownLatch expired = new CountDownLatch(1);
+        List<String> calls = new CopyOnWriteArrayList<>();
+        timeouts.addQuestionTimeoutListener((quizId, userId, index) -> {
+            calls.add(quizId + "/" + userId + "/" + index);
+            expired.countDown();
+        });
+
+        assertTrue(timeouts.isQuestionTimeoutEnabled());
+        timeouts.scheduleQuestionTimeout(7L, 10L, 3);
+
+        assertTrue(expired.await(3, TimeUnit.SECONDS));
+        assertEquals(List.of("7/10/3"), calls);
+    }
+
+    @Test
+    void questionTimeout_disabled_schedulesNothing() {
+        QuizTimeouts disabled = new QuizTimeouts(progressStore, 10, 64, 1, 0);
+
+        disabled.scheduleQuestionTimeout(7L, 10L, 0);
+
+        assertFalse(disabled.isQuestionTimeoutEnabled());
+        assertEquals(0, disabled.getPending());
+        disabled.stop();
+    }
+}
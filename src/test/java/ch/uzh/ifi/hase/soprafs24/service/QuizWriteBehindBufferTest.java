@@ -0,0 +1,163 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class QuizWriteBehindBufferTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private QuizWriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        buffer = new QuizWriteBehindBuffer(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushQuiz_mergesAnswersIntoOneRowPerPlayer() {
+        buffer.recordCorrectAnswer(1L, 10L, 5);
+        buffer.recordCorrectAnswer(1L, 10L, 5);
+        buffer.recordStats(1L, 10L, 1, 1, 1000);
+        buffer.recordStats(1L, 10L, 2, 3, 4000);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        buffer.flushQuiz(1L);
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE score"), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertArrayEquals(new Object[]{2, 1L, 10L}, rows.getValue().get(0));
+
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE statistics"), rows.capture());
+        Object[] stats = rows.getValue().get(0);
+        assertEquals(2, stats[0]);      // latest score
+        assertEquals(3, stats[1]);      // latest attempts
+        assertEquals(4L, stats[2]);     // seconds
+
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("INSERT"), anyList());
+        assertEquals(0, buffer.getPendingQuizzes());
+    }
+
+    @Test
+    void flushQuiz_insertsRowsThatDoNotExistYet() {
+        buffer.recordCorrectAnswer(1L, 10L, 5);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+
+        buffer.flushQuiz(1L);
+
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO score"), anyList());
+    }
+
+    @Test
+    void flushQuiz_onlyTouchesThatQuiz() {
+        buffer.recordCorrectAnswer(1L, 10L, 5);
+        buffer.recordCorrectAnswer(2L, 10L, 5);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        buffer.flushQuiz(1L);
+
+        assertEquals(1, buffer.getPendingQuizzes());
+    }
+
+    @Test
+    void flushAll_drainsEverything() {
+        buffer.recordCorrectAnswer(1L, 10L, 5);
+        buffer.recordCorrectAnswer(2L, 11L, 5);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        buffer.flushAll();
+
+        assertEquals(0, buffer.getPendingQuizzes());
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("UPDATE score"), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlush_keepsItsDeltasForTheNextOne() {
+        buffer.recordCorrectAnswer(1L, 10L, 5);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(new int[]{1});
+
+        buffer.flushAll();
+        assertEquals(1, buffer.getPendingQuizzes());
+
+        buffer.recordCorrectAnswer(1L, 10L, 5);
+        buffer.flushAll();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("UPDATE score"), rows.capture());
+        assertArrayEquals(new Object[]{2, 1L, 10L}, rows.getAllValues().get(1).get(0));
+        assertEquals(0, buffer.getPendingQuizzes());
+    }
+
+    @Test
+    void flushInATransaction_blocksOtherFlushesUntilItCompleted() throws Exception {
+        buffer.recordCorrectAnswer(1L, 10L, 5);
+        buffer.recordCorrectAnswer(1L, 11L, 5);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0, 0});
+
+        TransactionSynchronizationManager.initSynchronization();
+        CompletableFuture<Void> timer;
+        try {
+            buffer.flushQuiz(1L);
+            buffer.recordCorrectAnswer(1L, 10L, 5);
+            timer = CompletableFuture.runAsync(buffer::flushAll);
+            assertThrows(TimeoutException.class, () -> timer.get(200, TimeUnit.MILLISECONDS));
+
+            // rolled back: the deltas go back, merged with the newer answer
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        timer.get(2, TimeUnit.SECONDS);
+
+        assertEquals(0, buffer.getPendingQuizzes());
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("UPDATE score"),
+                argThat((List<Object[]> rows) -> rows.size() == 2));
+    }
+
+    @Test
+    void flushInATransaction_doesNotBlockOtherQuizzes() throws Exception {
+        buffer.recordCorrectAnswer(1L, 10L, 5);
+        buffer.recordCorrectAnswer(2L, 20L, 5);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buffer.flushQuiz(1L);
+
+            CompletableFuture.runAsync(() -> buffer.flushQuiz(2L)).get(2, TimeUnit.SECONDS);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(0, buffer.getPendingQuizzes());
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("UPDATE score"), anyList());
+    }
+}
@@ -6,6 +6,7 @@ import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
@@ -19,6 +20,10 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private PresenceRegistry presence =
+            new PresenceRegistry(mock(UserRepository.class), mock(PlatformTransactionManager.class), 5000);
+
     @InjectMocks
     private UserService userService;
 
@@ -195,6 +200,19 @@ class UserServiceTest {
         assertSame(u, userService.getUserById(10L));
     }
 
+    @Test
+    void getUserById_showsPresenceStatus() {
+        User u = new User();
+        u.setId(10L);
+        u.setStatus(UserStatus.ONLINE);
+        presence.setStatus(10L, UserStatus.PLAYING);   // not written to the table yet
+        when(userRepository.findById(10L))
+                .thenReturn(Optional.of(u));
+
+        assertEquals(UserStatus.PLAYING, userService.getUserById(10L).getStatus());
+        verify(userRepository, never()).save(any());
+    }
+
     @Test
     void getUserById_notFound_throwsNotFound() {
         when(userRepository.findById(20L))
@@ -285,6 +303,7 @@ class UserServiceTest {
         String raw = "mypw";
         String encoded = new BCryptPasswordEncoder().encode(raw);
         User u = new User();
+        u.setId(12L);
         u.setUsername("u");
         u.setPassword(encoded);
         u.setStatus(UserStatus.OFFLINE);
@@ -298,6 +317,8 @@ class UserServiceTest {
 
         assertNotNull(loggedIn.getToken());
         assertEquals(UserStatus.ONLINE, loggedIn.getStatus());
+        assertEquals(UserStatus.ONLINE, presence.getStatus(12L, null));
+        assertEquals(0, presence.getPendingWrites());  // written with the token
         verify(userRepository).save(u);
         verify(userRepository).flush();
     }
@@ -318,6 +339,7 @@ class UserServiceTest {
 
         assertNull(loggedOut.getToken());
         assertEquals(UserStatus.OFFLINE, loggedOut.getStatus());
+        assertEquals(UserStatus.OFFLINE, presence.getStatus(55L, null));
         verify(userRepository).save(u);
         verify(userRepository).flush();
     }